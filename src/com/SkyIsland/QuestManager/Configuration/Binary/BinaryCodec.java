@@ -0,0 +1,388 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.Configuration.State.GoalState;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
+import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+import com.SkyIsland.QuestManager.Quest.History.History;
+import com.SkyIsland.QuestManager.Quest.History.HistoryEvent;
+
+/**
+ * Binary save format for players, parties and quest states.<br />
+ * Every file starts with a short header: the magic bytes <code>QMB</code>, the format version,
+ * what kind of data follows, and how many bytes of it there are. The data itself is a fixed layout
+ * for each kind, so apart from values inside requirement states there are no keys or type tags to
+ * write or parse.<br />
+ * Players and parties are read back through {@link QuestPlayer#valueOf(Map)} and
+ * {@link Party#valueOf(Map)}, so they're checked and upgraded the same way as ones read from yaml.
+ * @author Skyler
+ *
+ */
+public final class BinaryCodec {
+
+	/**
+	 * File extension of binary save files
+	 */
+	public static final String EXTENSION = ".qmb";
+
+	/**
+	 * File extension of yaml save files
+	 */
+	public static final String YAML_EXTENSION = ".yml";
+
+	public static final int VERSION = 1;
+
+	private static final byte[] MAGIC = {'Q', 'M', 'B'};
+
+	private static final byte KIND_PLAYER = 1;
+
+	private static final byte KIND_PARTIES = 2;
+
+	private static final byte KIND_QUEST_STATE = 3;
+
+	private BinaryCodec() {
+		;
+	}
+
+	/**
+	 * @param file
+	 * @return Whether the file is a binary save file, going by its name
+	 */
+	public static boolean isBinary(File file) {
+		return file.getName().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Returns the file the same data would be saved to in the other format
+	 * @param file
+	 * @return
+	 */
+	public static File otherFormat(File file) {
+		String name = file.getName();
+		if (name.endsWith(EXTENSION)) {
+			return new File(file.getParentFile(), name.substring(0, name.length() - EXTENSION.length())
+					+ YAML_EXTENSION);
+		}
+
+		if (name.endsWith(YAML_EXTENSION)) {
+			return new File(file.getParentFile(), name.substring(0, name.length() - YAML_EXTENSION.length())
+					+ EXTENSION);
+		}
+
+		return file;
+	}
+
+	/**
+	 * Reads the whole file into a buffer
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static ByteBuffer readFile(File file) throws IOException {
+		return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+	}
+
+	private static BinaryWriter startFile(byte kind) {
+		BinaryWriter out = new BinaryWriter();
+		out.writeBytes(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(kind);
+		out.writeInt(0); //filled in by finishFile
+		return out;
+	}
+
+	private static byte[] finishFile(BinaryWriter out) {
+		byte[] bytes = out.toByteArray();
+		ByteBuffer.wrap(bytes).putInt(MAGIC.length + 2, bytes.length - (MAGIC.length + 6));
+		return bytes;
+	}
+
+	/**
+	 * Checks the header and returns a reader over just the data it describes
+	 * @param buffer
+	 * @param kind
+	 * @return
+	 * @throws IOException If the header is missing, for a different version or kind, or the data is cut off
+	 */
+	private static BinaryReader openFile(ByteBuffer buffer, byte kind) throws IOException {
+		BinaryReader header = new BinaryReader(buffer);
+		for (byte b : MAGIC) {
+			if (header.readByte() != b) {
+				throw new IOException("Not a QuestManager binary file");
+			}
+		}
+
+		int version = header.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary format version: " + version);
+		}
+
+		byte found = header.readByte();
+		if (found != kind) {
+			throw new IOException("Expected data of kind " + kind + " but found " + found);
+		}
+
+		int length = header.readInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IOException("Data is cut off; expected " + length + " bytes but there are "
+					+ buffer.remaining());
+		}
+
+		ByteBuffer body = buffer.slice();
+		body.limit(length);
+		buffer.position(buffer.position() + length);
+		return new BinaryReader(body);
+	}
+
+	////////////////////////////////////// Players //////////////////////////////////////
+
+	public static byte[] encodePlayer(QuestPlayer player) {
+		BinaryWriter out = startFile(KIND_PLAYER);
+		writePlayer(out, player.serialize());
+		return finishFile(out);
+	}
+
+	public static QuestPlayer decodePlayer(ByteBuffer buffer) throws IOException {
+		return QuestPlayer.valueOf(readPlayer(openFile(buffer, KIND_PLAYER)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writePlayer(BinaryWriter out, Map<String, Object> map) {
+		out.writeString((String) map.get("id"));
+		out.writeString((String) map.get("title"));
+		out.writeStringList((List<String>) map.get("unlockedtitles"));
+		out.writeInt((Integer) map.get("fame"));
+		out.writeInt((Integer) map.get("alphaFame"));
+		out.writeInt((Integer) map.get("money"));
+		out.writeInt((Integer) map.get("level"));
+		out.writeInt((Integer) map.get("maxhp"));
+		out.writeInt((Integer) map.get("mp"));
+		out.writeInt((Integer) map.get("maxmp"));
+		out.writeValue(map.get("portalloc"));
+		out.writeStringList((List<String>) map.get("completedquests"));
+		out.writeString((String) map.get("focusquest"));
+		out.writeStringList((List<String>) map.get("notes"));
+		out.writeStringList((List<String>) map.get("spells"));
+
+		Map<String, String> stored = (Map<String, String>) map.get("storedspells");
+		out.writeInt(stored.size());
+		for (Map.Entry<String, String> entry : stored.entrySet()) {
+			out.writeString(entry.getKey());
+			out.writeString(entry.getValue());
+		}
+	}
+
+	private static Map<String, Object> readPlayer(BinaryReader in) throws IOException {
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("id", in.readString());
+		map.put("title", in.readString());
+		map.put("unlockedtitles", in.readStringList());
+		map.put("fame", in.readInt());
+		map.put("alphaFame", in.readInt());
+		map.put("money", in.readInt());
+		map.put("level", in.readInt());
+		map.put("maxhp", in.readInt());
+		map.put("mp", in.readInt());
+		map.put("maxmp", in.readInt());
+
+		Object portal = in.readValue();
+		if (portal instanceof Location) {
+			portal = new LocationState((Location) portal);
+		}
+		map.put("portalloc", portal);
+
+		map.put("completedquests", in.readStringList());
+		map.put("focusquest", in.readString());
+		map.put("notes", in.readStringList());
+		map.put("spells", in.readStringList());
+
+		int count = in.readInt();
+		Map<String, String> stored = new TreeMap<String, String>();
+		for (int i = 0; i < count; i++) {
+			stored.put(in.readString(), in.readString());
+		}
+		map.put("storedspells", stored);
+
+		return map;
+	}
+
+	////////////////////////////////////// Parties //////////////////////////////////////
+
+	@SuppressWarnings("unchecked")
+	public static byte[] encodeParties(Collection<Party> parties) {
+		BinaryWriter out = startFile(KIND_PARTIES);
+		out.writeInt(parties.size());
+		for (Party party : parties) {
+			Map<String, Object> map = party.serialize();
+			out.writeString((String) map.get("name"));
+			writePlayer(out, (Map<String, Object>) map.get("leader"));
+
+			List<Map<String, Object>> members = (List<Map<String, Object>>) map.get("members");
+			out.writeInt(members.size());
+			for (Map<String, Object> member : members) {
+				writePlayer(out, member);
+			}
+		}
+		return finishFile(out);
+	}
+
+	public static List<Party> decodeParties(ByteBuffer buffer) throws IOException {
+		BinaryReader in = openFile(buffer, KIND_PARTIES);
+		int count = in.readInt();
+		List<Party> parties = new ArrayList<Party>();
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> map = new HashMap<String, Object>();
+			map.put("name", in.readString());
+			map.put("leader", readPlayer(in));
+
+			int size = in.readInt();
+			List<Map<String, Object>> members = new LinkedList<Map<String, Object>>();
+			for (int j = 0; j < size; j++) {
+				members.add(readPlayer(in));
+			}
+			map.put("members", members);
+
+			Party party = Party.valueOf(map);
+			if (party != null) {
+				parties.add(party);
+			}
+		}
+		return parties;
+	}
+
+	//////////////////////////////////// Quest States ////////////////////////////////////
+
+	public static byte[] encodeQuestState(QuestState state) {
+		BinaryWriter out = startFile(KIND_QUEST_STATE);
+		out.writeLong(System.currentTimeMillis());
+		out.writeString(state.getName());
+		out.writeInt(state.getGoalIndex());
+		out.writeString(state.getParticipantID());
+		writeGoalState(out, state.getGoalState());
+		writeHistory(out, state.getHistory());
+		return finishFile(out);
+	}
+
+	/**
+	 * Reads a quest state. Like {@link QuestState#read(YamlConfiguration)}, this doesn't look up the
+	 * participant, and is safe to call off of the main thread.
+	 * @param buffer
+	 * @return
+	 * @throws IOException
+	 */
+	public static QuestState decodeQuestState(ByteBuffer buffer) throws IOException {
+		BinaryReader in = openFile(buffer, KIND_QUEST_STATE);
+		QuestState state = new QuestState();
+		in.readLong(); //save time
+		state.setName(in.readString());
+		state.setGoalIndex(in.readInt());
+		state.setParticipantID(in.readString());
+		state.setGoalState(readGoalState(in));
+
+		History history = readHistory(in);
+		state.setHistory(history == null ? new History() : history);
+		return state;
+	}
+
+	private static void writeGoalState(BinaryWriter out, GoalState state) {
+		out.writeString(state.getName());
+		out.writeInt(state.getRequirementStates().size());
+		for (RequirementState req : state.getRequirementStates()) {
+			out.writeMap(req.getConfig().getValues(false));
+		}
+	}
+
+	private static GoalState readGoalState(BinaryReader in) throws IOException {
+		GoalState state = new GoalState();
+		state.setName(in.readString());
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			state.addRequirementState(new RequirementState(toSection(in.readMap())));
+		}
+		return state;
+	}
+
+	private static void writeHistory(BinaryWriter out, History history) {
+		if (history == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(history.events().size());
+		for (HistoryEvent event : history.events()) {
+			out.writeString(event.getDescription());
+		}
+	}
+
+	private static History readHistory(BinaryReader in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			return null;
+		}
+
+		History history = new History();
+		for (int i = 0; i < count; i++) {
+			history.addHistoryEvent(new HistoryEvent(in.readString()));
+		}
+		return history;
+	}
+
+	/**
+	 * Turns a map read back in into a configuration section, with nested maps as sections
+	 * @param map
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private static ConfigurationSection toSection(Map<String, Object> map) {
+		YamlConfiguration config = new YamlConfiguration();
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			if (entry.getValue() instanceof Map) {
+				config.createSection(entry.getKey(), (Map<String, Object>) entry.getValue());
+			} else {
+				config.set(entry.getKey(), entry.getValue());
+			}
+		}
+		return config;
+	}
+
+	////////////////////////////////////// Yaml //////////////////////////////////////
+
+	/**
+	 * Reads a quest state from either format, depending on the file's name
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 * @throws InvalidConfigurationException
+	 */
+	public static QuestState readQuestState(File file) throws IOException, InvalidConfigurationException {
+		if (isBinary(file)) {
+			return decodeQuestState(readFile(file));
+		}
+
+		YamlConfiguration config = new YamlConfiguration();
+		config.load(file);
+		QuestState state = new QuestState();
+		state.read(config);
+		return state;
+	}
+
+}
@@ -0,0 +1,210 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
+
+/**
+ * Reads values written by a {@link BinaryWriter} straight out of a ByteBuffer.<br />
+ * Running off the end of the buffer, or finding a length or tag that doesn't make sense, is
+ * reported as an IOException rather than left to blow up somewhere else.
+ * @author Skyler
+ *
+ */
+public class BinaryReader {
+
+	private ByteBuffer buffer;
+
+	public BinaryReader(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public BinaryReader(byte[] bytes) {
+		this(ByteBuffer.wrap(bytes));
+	}
+
+	public int remaining() {
+		return buffer.remaining();
+	}
+
+	public byte readByte() throws IOException {
+		try {
+			return buffer.get();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public int readInt() throws IOException {
+		try {
+			return buffer.getInt();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	public long readLong() throws IOException {
+		try {
+			return buffer.getLong();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	public float readFloat() throws IOException {
+		try {
+			return buffer.getFloat();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	public double readDouble() throws IOException {
+		try {
+			return buffer.getDouble();
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of data");
+		}
+	}
+
+	/**
+	 * Reads a length, making sure there's at least that many bytes left
+	 * @return The length, or -1 for a null value
+	 * @throws IOException
+	 */
+	private int readLength() throws IOException {
+		int length = readInt();
+		if (length < -1 || length > buffer.remaining()) {
+			throw new IOException("Bad length: " + length);
+		}
+		return length;
+	}
+
+	public String readString() throws IOException {
+		int length = readLength();
+		if (length < 0) {
+			return null;
+		}
+
+		String value;
+		if (buffer.hasArray()) {
+			value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+					StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Reads a list of strings into a new, modifiable list
+	 * @return The list, or null if a null list was written
+	 * @throws IOException
+	 */
+	public List<String> readStringList() throws IOException {
+		int size = readLength();
+		if (size < 0) {
+			return null;
+		}
+
+		List<String> list = new LinkedList<String>();
+		for (int i = 0; i < size; i++) {
+			list.add(readString());
+		}
+		return list;
+	}
+
+	public Map<String, Object> readMap() throws IOException {
+		int size = readLength();
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < size; i++) {
+			String key = readString();
+			map.put(key, readValue());
+		}
+		return map;
+	}
+
+	/**
+	 * Reads a value written with {@link BinaryWriter#writeValue(Object)}
+	 * @return
+	 * @throws IOException
+	 */
+	public Object readValue() throws IOException {
+		byte tag = readByte();
+		switch (tag) {
+		case BinaryTag.NULL:
+			return null;
+		case BinaryTag.STRING:
+			return readString();
+		case BinaryTag.INT:
+			return readInt();
+		case BinaryTag.LONG:
+			return readLong();
+		case BinaryTag.FLOAT:
+			return readFloat();
+		case BinaryTag.DOUBLE:
+			return readDouble();
+		case BinaryTag.BOOLEAN:
+			return readBoolean();
+		case BinaryTag.LIST:
+			int size = readLength();
+			List<Object> list = new ArrayList<Object>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readValue());
+			}
+			return list;
+		case BinaryTag.MAP:
+			return readMap();
+		case BinaryTag.LOCATION:
+			return readLocation();
+		case BinaryTag.LOCATION_STATE:
+			Location location = readLocation();
+			return location == null ? null : new LocationState(location);
+		case BinaryTag.SERIALIZABLE:
+			String alias = readString();
+			Map<String, Object> map = readMap();
+			map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+			return ConfigurationSerialization.deserializeObject(map);
+		default:
+			throw new IOException("Unknown value tag: " + tag);
+		}
+	}
+
+	/**
+	 * Reads a location
+	 * @return The location, or null if its world isn't loaded
+	 * @throws IOException
+	 */
+	private Location readLocation() throws IOException {
+		String worldName = readString();
+		double x = readDouble(), y = readDouble(), z = readDouble();
+		float yaw = readFloat(), pitch = readFloat();
+
+		if (worldName == null || Bukkit.getWorld(worldName) == null) {
+			return null;
+		}
+
+		return new Location(Bukkit.getWorld(worldName), x, y, z, yaw, pitch);
+	}
+
+}
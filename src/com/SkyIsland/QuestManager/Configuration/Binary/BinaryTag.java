@@ -0,0 +1,42 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+/**
+ * Type tags written ahead of values whose type isn't fixed by the format
+ * @author Skyler
+ *
+ */
+public final class BinaryTag {
+
+	public static final byte NULL = 0;
+
+	public static final byte STRING = 1;
+
+	public static final byte INT = 2;
+
+	public static final byte LONG = 3;
+
+	public static final byte FLOAT = 4;
+
+	public static final byte DOUBLE = 5;
+
+	public static final byte BOOLEAN = 6;
+
+	public static final byte LIST = 7;
+
+	public static final byte MAP = 8;
+
+	public static final byte LOCATION = 9;
+
+	public static final byte LOCATION_STATE = 10;
+
+	/**
+	 * Any other {@link org.bukkit.configuration.serialization.ConfigurationSerializable},
+	 * written as its alias and serialized map
+	 */
+	public static final byte SERIALIZABLE = 11;
+
+	private BinaryTag() {
+		;
+	}
+
+}
@@ -0,0 +1,242 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
+
+/**
+ * Writes values into a growing, big-endian ByteBuffer.<br />
+ * Strings are written as their length in bytes followed by their UTF-8 encoding. Values of unknown
+ * type (like those in a {@link ConfigurationSerializable#serialize()} map) are written with a one
+ * byte {@link BinaryTag tag} ahead of them so they can be read back as the same type.
+ * @author Skyler
+ *
+ */
+public class BinaryWriter {
+
+	private ByteBuffer buffer;
+
+	public BinaryWriter() {
+		this(256);
+	}
+
+	public BinaryWriter(int capacity) {
+		this.buffer = ByteBuffer.allocate(Math.max(16, capacity));
+	}
+
+	private void ensure(int bytes) {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+
+		int size = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+		ByteBuffer bigger = ByteBuffer.allocate(size);
+		buffer.flip();
+		bigger.put(buffer);
+		buffer = bigger;
+	}
+
+	public BinaryWriter writeByte(int value) {
+		ensure(1);
+		buffer.put((byte) value);
+		return this;
+	}
+
+	public BinaryWriter writeBoolean(boolean value) {
+		return writeByte(value ? 1 : 0);
+	}
+
+	public BinaryWriter writeInt(int value) {
+		ensure(4);
+		buffer.putInt(value);
+		return this;
+	}
+
+	public BinaryWriter writeLong(long value) {
+		ensure(8);
+		buffer.putLong(value);
+		return this;
+	}
+
+	public BinaryWriter writeFloat(float value) {
+		ensure(4);
+		buffer.putFloat(value);
+		return this;
+	}
+
+	public BinaryWriter writeDouble(double value) {
+		ensure(8);
+		buffer.putDouble(value);
+		return this;
+	}
+
+	public BinaryWriter writeBytes(byte[] bytes) {
+		ensure(bytes.length);
+		buffer.put(bytes);
+		return this;
+	}
+
+	/**
+	 * Writes the string, which can be null
+	 * @param value
+	 * @return
+	 */
+	public BinaryWriter writeString(String value) {
+		if (value == null) {
+			return writeInt(-1);
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		return writeBytes(bytes);
+	}
+
+	/**
+	 * Writes the list of strings, which can be null
+	 * @param values
+	 * @return
+	 */
+	public BinaryWriter writeStringList(Collection<String> values) {
+		if (values == null) {
+			return writeInt(-1);
+		}
+
+		writeInt(values.size());
+		for (String value : values) {
+			writeString(value);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the map's entries, each value {@link #writeValue(Object) tagged}
+	 * @param map
+	 * @return
+	 */
+	public BinaryWriter writeMap(Map<String, ?> map) {
+		writeInt(map.size());
+		for (Map.Entry<String, ?> entry : map.entrySet()) {
+			writeString(entry.getKey());
+			writeValue(entry.getValue());
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a value of any type that can go in a configuration, tagged with its type
+	 * @param value
+	 * @return
+	 * @throws IllegalArgumentException If the value is of a type that can't be written
+	 */
+	@SuppressWarnings("unchecked")
+	public BinaryWriter writeValue(Object value) {
+		if (value == null) {
+			return writeByte(BinaryTag.NULL);
+		}
+
+		if (value instanceof String) {
+			writeByte(BinaryTag.STRING);
+			return writeString((String) value);
+		}
+
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			writeByte(BinaryTag.INT);
+			return writeInt(((Number) value).intValue());
+		}
+
+		if (value instanceof Long) {
+			writeByte(BinaryTag.LONG);
+			return writeLong((Long) value);
+		}
+
+		if (value instanceof Float) {
+			writeByte(BinaryTag.FLOAT);
+			return writeFloat((Float) value);
+		}
+
+		if (value instanceof Double) {
+			writeByte(BinaryTag.DOUBLE);
+			return writeDouble((Double) value);
+		}
+
+		if (value instanceof Boolean) {
+			writeByte(BinaryTag.BOOLEAN);
+			return writeBoolean((Boolean) value);
+		}
+
+		if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			writeByte(BinaryTag.LIST);
+			writeInt(list.size());
+			for (Object o : list) {
+				writeValue(o);
+			}
+			return this;
+		}
+
+		if (value instanceof ConfigurationSection) {
+			writeByte(BinaryTag.MAP);
+			return writeMap(((ConfigurationSection) value).getValues(false));
+		}
+
+		if (value instanceof Map) {
+			writeByte(BinaryTag.MAP);
+			return writeMap((Map<String, ?>) value);
+		}
+
+		if (value instanceof Location) {
+			writeByte(BinaryTag.LOCATION);
+			return writeLocation((Location) value);
+		}
+
+		if (value instanceof LocationState) {
+			writeByte(BinaryTag.LOCATION_STATE);
+			return writeLocation(((LocationState) value).getLocation());
+		}
+
+		if (value instanceof ConfigurationSerializable) {
+			ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+			writeByte(BinaryTag.SERIALIZABLE);
+			writeString(ConfigurationSerialization.getAlias(serializable.getClass()));
+			return writeMap(serializable.serialize());
+		}
+
+		throw new IllegalArgumentException("Unable to write value of type "
+				+ value.getClass().getName());
+	}
+
+	private BinaryWriter writeLocation(Location location) {
+		writeString(location.getWorld() == null ? null : location.getWorld().getName());
+		writeDouble(location.getX());
+		writeDouble(location.getY());
+		writeDouble(location.getZ());
+		writeFloat(location.getYaw());
+		return writeFloat(location.getPitch());
+	}
+
+	/**
+	 * @return How many bytes have been written
+	 */
+	public int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * @return A copy of everything written so far
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[buffer.position()];
+		System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+		return bytes;
+	}
+
+}
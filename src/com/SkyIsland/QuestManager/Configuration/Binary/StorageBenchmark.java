@@ -0,0 +1,137 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Times saving and loading players and quest states in yaml against the
+ * {@link BinaryCodec binary format}.<br />
+ * Everything happens in memory, so this measures the cost of encoding and parsing, not of the disk.
+ * Each round saves every given player and state to a string or byte array and loads them back.
+ * @author Skyler
+ *
+ */
+public class StorageBenchmark {
+
+	/**
+	 * Totals for one format
+	 */
+	private static class Result {
+
+		private long saveNanos;
+
+		private long loadNanos;
+
+		private long bytes;
+
+		private String describe(String format, int rounds) {
+			return format + ": save " + (saveNanos / 1000000) + "ms, load " + (loadNanos / 1000000)
+					+ "ms, " + (bytes / Math.max(1, rounds)) + " bytes";
+		}
+
+	}
+
+	private List<QuestPlayer> players;
+
+	private List<QuestState> states;
+
+	public StorageBenchmark(Collection<QuestPlayer> players, Collection<QuestState> states) {
+		this.players = new ArrayList<QuestPlayer>(players);
+		this.states = new ArrayList<QuestState>(states);
+	}
+
+	/**
+	 * Runs the benchmark. Has to be called on the main thread, since loading players looks them up.
+	 * @param rounds How many times to save and load everything
+	 * @return A line describing each format's results
+	 * @throws IOException If something that was just saved can't be loaded back
+	 */
+	public List<String> run(int rounds) throws IOException {
+		Result yaml = new Result(), binary = new Result();
+
+		for (int i = 0; i < rounds; i++) {
+			runYaml(yaml);
+			runBinary(binary);
+		}
+
+		List<String> lines = new ArrayList<String>(3);
+		lines.add(players.size() + " player(s), " + states.size() + " quest state(s), "
+				+ rounds + " round(s)");
+		lines.add(yaml.describe("Yaml", rounds));
+		lines.add(binary.describe("Binary", rounds));
+		return lines;
+	}
+
+	private void runYaml(Result result) throws IOException {
+		List<String> saved = new ArrayList<String>(players.size() + states.size());
+
+		long start = System.nanoTime();
+		for (QuestPlayer player : players) {
+			YamlConfiguration config = new YamlConfiguration();
+			config.set("player", player);
+			saved.add(config.saveToString());
+		}
+		for (QuestState state : states) {
+			saved.add(state.toConfig().saveToString());
+		}
+		result.saveNanos += System.nanoTime() - start;
+
+		for (String string : saved) {
+			result.bytes += string.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		start = System.nanoTime();
+		try {
+			for (int i = 0; i < saved.size(); i++) {
+				YamlConfiguration config = new YamlConfiguration();
+				config.loadFromString(saved.get(i));
+				if (i < players.size()) {
+					config.get("player");
+				} else {
+					new QuestState().read(config);
+				}
+			}
+		} catch (InvalidConfigurationException e) {
+			throw new IOException(e);
+		}
+		result.loadNanos += System.nanoTime() - start;
+	}
+
+	private void runBinary(Result result) throws IOException {
+		List<byte[]> saved = new ArrayList<byte[]>(players.size() + states.size());
+
+		long start = System.nanoTime();
+		for (QuestPlayer player : players) {
+			saved.add(BinaryCodec.encodePlayer(player));
+		}
+		for (QuestState state : states) {
+			saved.add(BinaryCodec.encodeQuestState(state));
+		}
+		result.saveNanos += System.nanoTime() - start;
+
+		for (byte[] bytes : saved) {
+			result.bytes += bytes.length;
+		}
+
+		start = System.nanoTime();
+		for (int i = 0; i < saved.size(); i++) {
+			if (i < players.size()) {
+				BinaryCodec.decodePlayer(ByteBuffer.wrap(saved.get(i)));
+			} else {
+				BinaryCodec.decodeQuestState(ByteBuffer.wrap(saved.get(i)));
+			}
+		}
+		result.loadNanos += System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,202 @@
+package com.SkyIsland.QuestManager.Configuration.Binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.SaveQueue;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Converts save files between yaml and the {@link BinaryCodec binary format} in place.<br />
+ * Each converted file is written next to the original, which is then removed. Files that can't be
+ * converted are left alone and reported in {@link #getFailures()}.<br />
+ * Saves waiting in the {@link SaveQueue} should be flushed before converting, or they'll be
+ * written over the converted files' originals afterwards.
+ * @author Skyler
+ *
+ */
+public class StorageConverter {
+
+	private boolean toBinary;
+
+	private int converted;
+
+	private List<String> failures;
+
+	/**
+	 * @param toBinary Whether to convert yaml files to binary (an import) or binary files to yaml
+	 * (an export)
+	 */
+	public StorageConverter(boolean toBinary) {
+		this.toBinary = toBinary;
+		this.converted = 0;
+		this.failures = new LinkedList<String>();
+	}
+
+	private String getSourceExtension() {
+		return toBinary ? BinaryCodec.YAML_EXTENSION : BinaryCodec.EXTENSION;
+	}
+
+	/**
+	 * Converts every player file in the directory and its shard directories
+	 * @param directory
+	 */
+	public void convertPlayers(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			if (file.isDirectory()) {
+				convertPlayers(file);
+				continue;
+			}
+
+			if (!file.getName().endsWith(getSourceExtension())) {
+				continue;
+			}
+
+			try {
+				byte[] bytes;
+				if (toBinary) {
+					YamlConfiguration config = new YamlConfiguration();
+					config.load(file);
+					Object player = config.get("player");
+					if (!(player instanceof QuestPlayer)) {
+						failures.add(file.getName() + ": no player in file");
+						continue;
+					}
+					bytes = BinaryCodec.encodePlayer((QuestPlayer) player);
+				} else {
+					QuestPlayer player = BinaryCodec.decodePlayer(BinaryCodec.readFile(file));
+					if (player == null) {
+						failures.add(file.getName() + ": no player in file");
+						continue;
+					}
+					YamlConfiguration config = new YamlConfiguration();
+					config.set("player", player);
+					bytes = config.saveToString().getBytes(StandardCharsets.UTF_8);
+				}
+
+				replace(file, bytes);
+			} catch (IOException | InvalidConfigurationException | RuntimeException e) {
+				failures.add(file.getName() + ": " + e.toString().trim());
+			}
+		}
+	}
+
+	/**
+	 * Converts the party file. Either format's name can be given.
+	 * @param file
+	 */
+	public void convertParties(File file) {
+		if (!file.getName().endsWith(getSourceExtension())) {
+			file = BinaryCodec.otherFormat(file);
+		}
+
+		if (!file.exists()) {
+			return;
+		}
+
+		try {
+			byte[] bytes;
+			if (toBinary) {
+				YamlConfiguration config = new YamlConfiguration();
+				config.load(file);
+				List<Party> parties = new ArrayList<Party>();
+				ConfigurationSection section = config.getConfigurationSection("parties");
+				if (section != null) {
+					for (String key : section.getKeys(false)) {
+						Object party = section.get(key);
+						if (party instanceof Party) {
+							parties.add((Party) party);
+						}
+					}
+				}
+				bytes = BinaryCodec.encodeParties(parties);
+			} else {
+				YamlConfiguration config = new YamlConfiguration();
+				ConfigurationSection section = config.createSection("parties");
+				for (Party party : BinaryCodec.decodeParties(BinaryCodec.readFile(file))) {
+					section.set(party.getID().toString(), party);
+				}
+				bytes = config.saveToString().getBytes(StandardCharsets.UTF_8);
+			}
+
+			replace(file, bytes);
+		} catch (IOException | InvalidConfigurationException | RuntimeException e) {
+			failures.add(file.getName() + ": " + e.toString().trim());
+		}
+	}
+
+	/**
+	 * Converts every quest state file in the directory
+	 * @param directory
+	 */
+	public void convertStates(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			if (file.isDirectory() || !file.getName().endsWith(getSourceExtension())) {
+				continue;
+			}
+
+			try {
+				QuestState state = BinaryCodec.readQuestState(file);
+				byte[] bytes;
+				if (toBinary) {
+					bytes = BinaryCodec.encodeQuestState(state);
+				} else {
+					bytes = state.toConfig().saveToString().getBytes(StandardCharsets.UTF_8);
+				}
+
+				replace(file, bytes);
+			} catch (IOException | InvalidConfigurationException | RuntimeException e) {
+				failures.add(file.getName() + ": " + e.toString().trim());
+			}
+		}
+	}
+
+	/**
+	 * Writes the converted file and removes the original
+	 * @param original
+	 * @param bytes
+	 * @throws IOException
+	 */
+	private void replace(File original, byte[] bytes) throws IOException {
+		SaveQueue.writeFile(BinaryCodec.otherFormat(original), bytes);
+		if (!original.delete()) {
+			failures.add(original.getName() + ": converted, but unable to remove the original");
+		}
+		converted++;
+	}
+
+	/**
+	 * @return How many files have been converted
+	 */
+	public int getConvertedCount() {
+		return converted;
+	}
+
+	/**
+	 * @return A description of each file that couldn't be converted
+	 */
+	public List<String> getFailures() {
+		return failures;
+	}
+
+}
@@ -4,10 +4,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -17,13 +21,100 @@ import com.SkyIsland.QuestManager.Player.Utils.SpellHolder;
 
 /**
  * Wrapper class for configuration files needed by the plugin.<br />
- * This does not include configuration files for individual quests.
+ * This does not include configuration files for individual quests.<br />
+ * All values are read once when the file is loaded, and never change afterwards. Reloading
+ * creates a new PluginConfiguration to take this one's place.
  * @author Skyler
  *
  */
 public class PluginConfiguration {
 	
-	private YamlConfiguration config;
+	private final double version;
+	
+	private final String questPath;
+	
+	private final boolean keepOnError;
+	
+	private final boolean villagerCleanup;
+	
+	private final boolean xpMoney;
+	
+	private final int maxPartySize;
+	
+	private final int summonLimit;
+	
+	private final boolean exportRequirementEvents;
+	
+	private final boolean allowTaming;
+	
+	private final boolean usePortals;
+	
+	private final boolean adjustXP;
+	
+	private final boolean magicEnabled;
+	
+	private final int startingMana;
+	
+	private final int magicRegenDay;
+	
+	private final int magicRegenNight;
+	
+	private final boolean magicRegenOutside;
+	
+	private final int magicRegenKill;
+	
+	private final int magicRegenXP;
+	
+	private final int magicRegenFood;
+	
+	private final boolean menuVerbose;
+	
+	private final boolean allowCrafting;
+	
+	private final boolean allowNaming;
+	
+	private final boolean chatTitle;
+	
+	private final boolean compassEnabled;
+	
+	private final String compassName;
+	
+	private final String savePath;
+	
+	private final String enemyPath;
+	
+	private final String spellPath;
+	
+	private final String playerPath;
+	
+	private final int checkpointInterval;
+	
+	private final int playerIdleTime;
+	
+	private final int journalCommitInterval;
+	
+	private final int journalCompactInterval;
+	
+	private final boolean binaryStorage;
+	
+	private final String storage;
+	
+	private final String databaseFile;
+	
+	private final double tickBudget;
+	
+	private final String spellHolderName;
+	
+	private final Material alterType;
+	
+	private final Material compassType;
+	
+	private final List<String> worlds;
+	
+	/**
+	 * Names of the quest worlds, for quick {@link #isQuestWorld(String)} checks
+	 */
+	private final Set<String> worldNames;
 	
 	public enum PluginConfigurationKey {
 		
@@ -58,7 +149,17 @@ public class PluginConfiguration {
 		SAVEDIR("saveDir"),
 		ENEMYDIR("enemyDir"),
 		SPELLDIR("spellDir"),
-		SUMMONLIMIT("summonLimit");
+		PLAYERDIR("playerDir"),
+		CHECKPOINT("config.checkpointInterval"),
+		PLAYERIDLE("config.playerIdleTime"),
+		JOURNALCOMMIT("config.journalCommitInterval"),
+		JOURNALCOMPACT("config.journalCompactInterval"),
+		BINARYSTORAGE("config.binaryStorage"),
+		STORAGE("config.storage"),
+		DATABASE("config.databaseFile"),
+		TICKBUDGET("config.tickBudget"),
+		SUMMONLIMIT("summonLimit"),
+		EXPORTEVENTS("config.exportRequirementEvents");
 		
 		
 		private String key;
@@ -73,7 +174,7 @@ public class PluginConfiguration {
 	}
 	
 	public PluginConfiguration(File configFile) {
-		config = new YamlConfiguration();
+		YamlConfiguration config = new YamlConfiguration();
 		if (!configFile.exists() || configFile.isDirectory()) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().warning(ChatColor.YELLOW + "Unable to find Quest Manager config file!" + ChatColor.RESET);
 			config = createDefaultConfig(configFile);
@@ -90,6 +191,50 @@ public class PluginConfiguration {
 			e.printStackTrace();
 		}
 		
+		//read everything once; the config doesn't change until it's reloaded into a new object
+		this.version = config.getDouble(PluginConfigurationKey.VERSION.key, 0.0);
+		this.worlds = Collections.unmodifiableList(config.getStringList(PluginConfigurationKey.WORLDS.key));
+		this.questPath = config.getString(PluginConfigurationKey.QUESTDIR.key);
+		this.keepOnError = config.getBoolean(PluginConfigurationKey.CONSERVATIVE.key, true);
+		this.villagerCleanup = config.getBoolean(PluginConfigurationKey.CLEANUPVILLAGERS.key);
+		this.xpMoney = config.getBoolean(PluginConfigurationKey.XPMONEY.key);
+		this.maxPartySize = config.getInt(PluginConfigurationKey.PARTYSIZE.key);
+		this.summonLimit = config.getInt(PluginConfigurationKey.SUMMONLIMIT.key, 2);
+		this.exportRequirementEvents = config.getBoolean(PluginConfigurationKey.EXPORTEVENTS.key, false);
+		this.allowTaming = config.getBoolean(PluginConfigurationKey.ALLOWTAMING.key);
+		this.usePortals = config.getBoolean(PluginConfigurationKey.PORTALS.key);
+		this.adjustXP = config.getBoolean(PluginConfigurationKey.ADJUSTXP.key);
+		this.magicEnabled = config.getBoolean(PluginConfigurationKey.ALLOWMAGIC.key);
+		this.startingMana = config.getInt(PluginConfigurationKey.MANADEFAULT.key);
+		this.magicRegenDay = config.getInt(PluginConfigurationKey.DAYREGEN.key);
+		this.magicRegenNight = config.getInt(PluginConfigurationKey.NIGHTREGEN.key);
+		this.magicRegenOutside = config.getBoolean(PluginConfigurationKey.OUTSIDEREGEN.key);
+		this.magicRegenKill = config.getInt(PluginConfigurationKey.KILLREGEN.key);
+		this.magicRegenXP = config.getInt(PluginConfigurationKey.XPREGEN.key);
+		this.magicRegenFood = config.getInt(PluginConfigurationKey.FOODREGEN.key);
+		this.menuVerbose = config.getBoolean(PluginConfigurationKey.VERBOSEMENUS.key);
+		this.allowCrafting = config.getBoolean(PluginConfigurationKey.ALLOWCRAFTING.key);
+		this.allowNaming = config.getBoolean(PluginConfigurationKey.ALLOWNAMING.key);
+		this.chatTitle = config.getBoolean(PluginConfigurationKey.TITLECHAT.key);
+		this.compassEnabled = config.getBoolean(PluginConfigurationKey.COMPASS.key, true);
+		this.compassName = config.getString(PluginConfigurationKey.COMPASSNAME.key, "Magic Compass");
+		this.savePath = config.getString(PluginConfigurationKey.SAVEDIR.key);
+		this.enemyPath = config.getString(PluginConfigurationKey.ENEMYDIR.key);
+		this.spellPath = config.getString(PluginConfigurationKey.SPELLDIR.key);
+		this.playerPath = config.getString(PluginConfigurationKey.PLAYERDIR.key, "players/");
+		this.checkpointInterval = config.getInt(PluginConfigurationKey.CHECKPOINT.key, 300);
+		this.playerIdleTime = config.getInt(PluginConfigurationKey.PLAYERIDLE.key, 600);
+		this.journalCommitInterval = config.getInt(PluginConfigurationKey.JOURNALCOMMIT.key, 500);
+		this.journalCompactInterval = config.getInt(PluginConfigurationKey.JOURNALCOMPACT.key, 300);
+		this.binaryStorage = config.getBoolean(PluginConfigurationKey.BINARYSTORAGE.key, false);
+		this.storage = config.getString(PluginConfigurationKey.STORAGE.key, "file");
+		this.databaseFile = config.getString(PluginConfigurationKey.DATABASE.key, "questmanager.db");
+		this.tickBudget = config.getDouble(PluginConfigurationKey.TICKBUDGET.key, 2.0);
+		this.spellHolderName = config.getString(PluginConfigurationKey.HOLDERNAME.key);
+		this.alterType = Material.valueOf(config.getString(PluginConfigurationKey.ALTERTYPE.key));
+		this.compassType = readCompassType(config);
+		this.worldNames = new HashSet<String>(worlds);
+		
 		if (config.getBoolean(PluginConfigurationKey.CONSERVATIVE.key, true)) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().info("Conservative mode is on,"
 					+ " so invalid configs will simply be ignored instead of destroyed.");
@@ -110,11 +255,34 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public double getVersion() {
-		return config.getDouble(PluginConfigurationKey.VERSION.key, 0.0);
+		return version;
 	}
 	
+	/**
+	 * Returns the names of the quest worlds.<br />
+	 * For checking whether something is in a quest world, use {@link #isQuestWorld(World)} instead.
+	 * @return An unmodifiable list of world names
+	 */
 	public List<String> getWorlds() {
-		return config.getStringList(PluginConfigurationKey.WORLDS.key);
+		return worlds;
+	}
+	
+	/**
+	 * Checks whether the world with the given name is a registered quest world
+	 * @param worldName
+	 * @return
+	 */
+	public boolean isQuestWorld(String worldName) {
+		return worldNames.contains(worldName);
+	}
+	
+	/**
+	 * Checks whether the given world is a registered quest world
+	 * @param world
+	 * @return
+	 */
+	public boolean isQuestWorld(World world) {
+		return world != null && worldNames.contains(world.getName());
 	}
 	
 	/**
@@ -122,7 +290,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getQuestPath() {
-		return config.getString(PluginConfigurationKey.QUESTDIR.key);
+		return questPath;
 	}
 	
 	/**
@@ -131,7 +299,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getKeepOnError() {
-		return config.getBoolean(PluginConfigurationKey.CONSERVATIVE.key, true);
+		return keepOnError;
 	}
 	
 	/**
@@ -141,7 +309,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getVillagerCleanup() {
-		return config.getBoolean(PluginConfigurationKey.CLEANUPVILLAGERS.key);
+		return villagerCleanup;
 	}
 	
 	/**
@@ -151,7 +319,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getXPMoney() {
-		return config.getBoolean(PluginConfigurationKey.XPMONEY.key);
+		return xpMoney;
 	}
 	
 	/**
@@ -159,7 +327,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public int getMaxPartySize() {
-		return config.getInt(PluginConfigurationKey.PARTYSIZE.key);
+		return maxPartySize;
 	}
 	
 	/**
@@ -167,7 +335,18 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public int getSummonLimit() {
-		return config.getInt(PluginConfigurationKey.SUMMONLIMIT.key, 2);
+		return summonLimit;
+	}
+	
+	/**
+	 * Whether or not a {@link com.SkyIsland.QuestManager.Quest.Requirements.RequirementUpdateEvent}
+	 * should be fired through Bukkit each time a requirement changes.<br />
+	 * Quests are notified directly either way; this is only needed by other plugins that want
+	 * to listen in on quest progress.
+	 * @return
+	 */
+	public boolean getExportRequirementEvents() {
+		return exportRequirementEvents;
 	}
 	
 	/**
@@ -175,7 +354,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getAllowTaming() {
-		return config.getBoolean(PluginConfigurationKey.ALLOWTAMING.key);
+		return allowTaming;
 	}
 	
 	/**
@@ -184,7 +363,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getUsePortals() {
-		return config.getBoolean(PluginConfigurationKey.PORTALS.key);
+		return usePortals;
 	}
 	
 	/**
@@ -193,7 +372,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getAdjustXP() {
-		return config.getBoolean(PluginConfigurationKey.ADJUSTXP.key);
+		return adjustXP;
 	}
 	
 	/**
@@ -201,7 +380,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getMagicEnabled() {
-		return config.getBoolean(PluginConfigurationKey.ALLOWMAGIC.key);
+		return magicEnabled;
 	}
 	
 	/**
@@ -209,7 +388,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public int getStartingMana() {
-		return config.getInt(PluginConfigurationKey.MANADEFAULT.key);
+		return startingMana;
 	}
 	
 	/**
@@ -218,7 +397,7 @@ public class PluginConfiguration {
 	 * @return The amount to regen; positive values indicate a constant, negative a rate (out of 100)
 	 */
 	public int getMagicRegenDay() {
-		return config.getInt(PluginConfigurationKey.DAYREGEN.key);
+		return magicRegenDay;
 	}
 	
 	/**
@@ -226,14 +405,14 @@ public class PluginConfiguration {
 	 * @return The amount to regen; positive values indicate a constant, negative a rate (out of 100)
 	 */
 	public int getMagicRegenNight() {
-		return config.getInt(PluginConfigurationKey.NIGHTREGEN.key);
+		return magicRegenNight;
 	}
 	
 	/**
 	 * @return whether or not mp should regen only when outside
 	 */
 	public boolean getMagicRegenOutside() {
-		return config.getBoolean(PluginConfigurationKey.OUTSIDEREGEN.key);
+		return magicRegenOutside;
 	}
 	
 	/**
@@ -241,7 +420,7 @@ public class PluginConfiguration {
 	 * @return The amount to regen; positive values indicate a contant, negative a rate (out of 100)
 	 */
 	public int getMagicRegenKill() {
-		return config.getInt(PluginConfigurationKey.KILLREGEN.key);
+		return magicRegenKill;
 	}
 	
 	/**
@@ -249,7 +428,7 @@ public class PluginConfiguration {
 	 * @return The amount to regen; positive values indicate a constant, negative a rate (out of 100)
 	 */
 	public int getMagicRegenXP() {
-		return config.getInt(PluginConfigurationKey.XPREGEN.key);
+		return magicRegenXP;
 	}
 	
 	/**
@@ -257,7 +436,7 @@ public class PluginConfiguration {
 	 * @return The amount to regen; positive values indicate a constant, negative a rate (out of 100)
 	 */
 	public int getMagicRegenFood() {
-		return config.getInt(PluginConfigurationKey.FOODREGEN.key);
+		return magicRegenFood;
 	}
 	
 	/**
@@ -266,11 +445,11 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getMenuVerbose() {
-		return config.getBoolean(PluginConfigurationKey.VERBOSEMENUS.key);
+		return menuVerbose;
 	}
 	
 	public boolean getAllowCrafting() {
-		return config.getBoolean(PluginConfigurationKey.ALLOWCRAFTING.key);
+		return allowCrafting;
 	}
 	
 	/**
@@ -278,7 +457,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getAllowNaming() {
-		return config.getBoolean(PluginConfigurationKey.ALLOWNAMING.key);
+		return allowNaming;
 	}
 	
 	/**
@@ -286,7 +465,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getChatTitle() {
-		return config.getBoolean(PluginConfigurationKey.TITLECHAT.key);
+		return chatTitle;
 	}
 	
 	/**
@@ -294,7 +473,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public boolean getCompassEnabled() {
-		return config.getBoolean(PluginConfigurationKey.COMPASS.key, true);
+		return compassEnabled;
 	}
 	
 	/**
@@ -302,6 +481,10 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public Material getCompassType() {
+		return compassType;
+	}
+	
+	private static Material readCompassType(YamlConfiguration config) {
 		try {
 			return Material.valueOf(config.getString(PluginConfigurationKey.COMPASSTYPE.key, "COMPASS"));
 		} catch (IllegalArgumentException e) {
@@ -317,7 +500,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getCompassName() {
-		return config.getString(PluginConfigurationKey.COMPASSNAME.key, "Magic Compass");
+		return compassName;
 	}
 	
 	/**
@@ -325,7 +508,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getSavePath() {
-		return config.getString(PluginConfigurationKey.SAVEDIR.key);
+		return savePath;
 	}
 	
 	/**
@@ -333,7 +516,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getEnemyPath() {
-		return config.getString(PluginConfigurationKey.ENEMYDIR.key);
+		return enemyPath;
 	}
 	
 	/**
@@ -341,7 +524,85 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getSpellPath() {
-		return config.getString(PluginConfigurationKey.SPELLDIR.key);
+		return spellPath;
+	}
+	
+	/**
+	 * Returns the path to the directory player save files are kept in
+	 * @return
+	 */
+	public String getPlayerPath() {
+		return playerPath;
+	}
+	
+	/**
+	 * How often, in seconds, players that have changed are saved.<br />
+	 * Zero or less turns periodic saving off, leaving saves to when the plugin is disabled.
+	 * @return
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+	
+	/**
+	 * How long, in seconds, a player has to be offline before they're saved and dropped from memory.<br />
+	 * Zero or less keeps players loaded until the plugin is disabled.
+	 * @return
+	 */
+	public int getPlayerIdleTime() {
+		return playerIdleTime;
+	}
+	
+	/**
+	 * How often, in milliseconds, quest progress recorded in the journal is flushed to disk.<br />
+	 * Zero or less turns the progress journal off.
+	 * @return
+	 */
+	public int getJournalCommitInterval() {
+		return journalCommitInterval;
+	}
+	
+	/**
+	 * How often, in seconds, the progress journal is folded into quest state files
+	 * @return
+	 */
+	public int getJournalCompactInterval() {
+		return journalCompactInterval;
+	}
+	
+	/**
+	 * Whether players, parties and quest states are saved in the binary format instead of yaml.<br />
+	 * Files in either format are read regardless.
+	 * @return
+	 */
+	public boolean getBinaryStorage() {
+		return binaryStorage;
+	}
+	
+	/**
+	 * Where players, parties and quest states are kept: <code>file</code> for save files, or
+	 * <code>sqlite</code> for an embedded database
+	 * @return
+	 */
+	public String getStorage() {
+		return storage;
+	}
+	
+	/**
+	 * The name of the database file, relative to the plugin's folder. Only used with sqlite storage.
+	 * @return
+	 */
+	public String getDatabaseFile() {
+		return databaseFile;
+	}
+	
+	/**
+	 * How long, in milliseconds, scheduled work like npc leashing and requirement checks can
+	 * take each server tick. Anything left over waits for the next tick.
+	 * @return
+	 */
+	public double getTickBudget() {
+		return tickBudget;
 	}
 	
 	/**
@@ -349,7 +610,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public String getSpellHolderName() {
-		return config.getString(PluginConfigurationKey.HOLDERNAME.key);
+		return spellHolderName;
 	}
 	
 	/**
@@ -357,7 +618,7 @@ public class PluginConfiguration {
 	 * @return
 	 */
 	public Material getAlterType() {
-		return Material.valueOf(config.getString(PluginConfigurationKey.ALTERTYPE.key));
+		return alterType;
 	}
 	
 	/**
@@ -377,6 +638,15 @@ public class PluginConfiguration {
 		
 		//config options
 		config.set(PluginConfigurationKey.CONSERVATIVE.key, true);
+		config.set(PluginConfigurationKey.EXPORTEVENTS.key, false);
+		config.set(PluginConfigurationKey.CHECKPOINT.key, 300);
+		config.set(PluginConfigurationKey.PLAYERIDLE.key, 600);
+		config.set(PluginConfigurationKey.JOURNALCOMMIT.key, 500);
+		config.set(PluginConfigurationKey.JOURNALCOMPACT.key, 300);
+		config.set(PluginConfigurationKey.BINARYSTORAGE.key, false);
+		config.set(PluginConfigurationKey.STORAGE.key, "file");
+		config.set(PluginConfigurationKey.DATABASE.key, "questmanager.db");
+		config.set(PluginConfigurationKey.TICKBUDGET.key, 2.0);
 		
 		//menu options
 		config.set(PluginConfigurationKey.VERBOSEMENUS.key, false);
@@ -423,6 +693,7 @@ public class PluginConfiguration {
 		config.set(PluginConfigurationKey.SAVEDIR.key, "savedata/");
 		config.set(PluginConfigurationKey.ENEMYDIR.key, "enemies/");
 		config.set(PluginConfigurationKey.SPELLDIR.key, "spells/");
+		config.set(PluginConfigurationKey.PLAYERDIR.key, "players/");
 				
 		try {
 			config.save(configFile);
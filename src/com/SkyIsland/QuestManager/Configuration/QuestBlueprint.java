@@ -0,0 +1,214 @@
+package com.SkyIsland.QuestManager.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+
+import com.SkyIsland.QuestManager.Configuration.QuestConfiguration.EndType;
+import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
+
+/**
+ * The settings of a quest template, read out of its configuration once when the template is loaded.<br />
+ * Quests look at their template's name, description, party settings, etc all the time, so rather than
+ * going back to the yaml each time they're kept here as plain fields. Locations are resolved and
+ * reward items are deserialized ahead of time as well.<br />
+ * Blueprints don't change after they're made. Locations are handed out as copies.
+ * @author Skyler
+ *
+ */
+public final class QuestBlueprint {
+
+	private final String name;
+
+	private final String description;
+
+	private final String endHint;
+
+	private final boolean saveState;
+
+	private final boolean repeatable;
+
+	private final boolean session;
+
+	private final boolean useParty;
+
+	private final boolean requireParty;
+
+	private final boolean failOnDeath;
+
+	private final List<String> requiredQuests;
+
+	private final Location startingLocation;
+
+	private final Location exitLocation;
+
+	private final EndType endType;
+
+	private final int fame;
+
+	private final int moneyReward;
+
+	private final String titleReward;
+
+	private final String spellReward;
+
+	private final List<ItemStack> itemRewards;
+
+	/**
+	 * Reads a blueprint out of the given quest configuration. Missing fields take their
+	 * {@link QuestConfigurationField default} value.
+	 * @param config
+	 */
+	QuestBlueprint(ConfigurationSection config) {
+		this.name = config.getString(QuestConfigurationField.NAME.getKey(),
+				(String) QuestConfigurationField.NAME.getDefault());
+		this.description = config.getString(QuestConfigurationField.DESCRIPTION.getKey(),
+				(String) QuestConfigurationField.DESCRIPTION.getDefault());
+		this.endHint = config.getString(QuestConfigurationField.ENDHINT.getKey(),
+				(String) QuestConfigurationField.ENDHINT.getDefault());
+
+		this.saveState = readBoolean(config, QuestConfigurationField.SAVESTATE);
+		this.repeatable = readBoolean(config, QuestConfigurationField.REPEATABLE);
+		this.session = readBoolean(config, QuestConfigurationField.SESSION);
+		this.useParty = readBoolean(config, QuestConfigurationField.USEPARTY);
+		this.requireParty = readBoolean(config, QuestConfigurationField.REQUIREPARTY);
+		this.failOnDeath = readBoolean(config, QuestConfigurationField.FAILONDEATH);
+
+		if (config.contains(QuestConfigurationField.PREREQS.getKey())) {
+			this.requiredQuests = Collections.unmodifiableList(new ArrayList<String>(
+					config.getStringList(QuestConfigurationField.PREREQS.getKey())));
+		} else {
+			this.requiredQuests = Collections.emptyList();
+		}
+
+		this.startingLocation = readLocation(config, QuestConfigurationField.STARTLOC);
+		this.exitLocation = readLocation(config, QuestConfigurationField.EXIT);
+
+		EndType type;
+		try {
+			type = EndType.valueOf(config.getString(QuestConfigurationField.END.getKey()
+				+ ".type").toUpperCase());
+		} catch (Exception e) {
+			type = EndType.SAME;
+		}
+		this.endType = type;
+
+		this.fame = config.getInt(QuestConfigurationField.FAME.getKey());
+		this.moneyReward = config.getInt(QuestConfigurationField.MONEYREWARD.getKey());
+		this.titleReward = config.getString(QuestConfigurationField.TITLEREWARD.getKey());
+		this.spellReward = config.getString(QuestConfigurationField.SPELLREWARD.getKey());
+
+		List<ItemStack> rewards = new ArrayList<ItemStack>();
+		List<?> list = config.getList(QuestConfigurationField.REWARDS.getKey());
+		if (list != null) {
+			for (Object o : list) {
+				if (o instanceof ItemStack) {
+					rewards.add((ItemStack) o);
+				}
+			}
+		}
+		this.itemRewards = Collections.unmodifiableList(rewards);
+	}
+
+	private static boolean readBoolean(ConfigurationSection config, QuestConfigurationField field) {
+		return config.getBoolean(field.getKey(), (Boolean) field.getDefault());
+	}
+
+	private static Location readLocation(ConfigurationSection config, QuestConfigurationField field) {
+		Object o = config.get(field.getKey());
+		if (o instanceof LocationState) {
+			return ((LocationState) o).getLocation();
+		}
+
+		return null;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getEndHint() {
+		return endHint;
+	}
+
+	public boolean getSaveState() {
+		return saveState;
+	}
+
+	public boolean isRepeatable() {
+		return repeatable;
+	}
+
+	public boolean isSession() {
+		return session;
+	}
+
+	public boolean getUseParty() {
+		return useParty;
+	}
+
+	public boolean getRequireParty() {
+		return requireParty;
+	}
+
+	public boolean getFailOnDeath() {
+		return failOnDeath;
+	}
+
+	/**
+	 * @return An unmodifiable list of the names of quests that must be completed first
+	 */
+	public List<String> getRequiredQuests() {
+		return requiredQuests;
+	}
+
+	/**
+	 * @return A copy of the starting location, or null if there isn't one
+	 */
+	public Location getStartingLocation() {
+		return (startingLocation == null ? null : startingLocation.clone());
+	}
+
+	/**
+	 * @return A copy of the exit location, or null if there isn't one
+	 */
+	public Location getExitLocation() {
+		return (exitLocation == null ? null : exitLocation.clone());
+	}
+
+	public EndType getEndType() {
+		return endType;
+	}
+
+	public int getFame() {
+		return fame;
+	}
+
+	public int getMoneyReward() {
+		return moneyReward;
+	}
+
+	public String getTitleReward() {
+		return titleReward;
+	}
+
+	public String getSpellReward() {
+		return spellReward;
+	}
+
+	/**
+	 * @return An unmodifiable list of the items rewarded for completing the quest
+	 */
+	public List<ItemStack> getItemRewards() {
+		return itemRewards;
+	}
+
+}
@@ -1,6 +1,8 @@
 package com.SkyIsland.QuestManager.Configuration;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -11,14 +13,12 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
-import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
 import com.SkyIsland.QuestManager.NPC.NPC;
 import com.SkyIsland.QuestManager.NPC.SimpleQuestStartNPC;
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
-import com.SkyIsland.QuestManager.Quest.Goal;
+import com.SkyIsland.QuestManager.Quest.GoalSpec;
 import com.SkyIsland.QuestManager.Quest.Quest;
-import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
 import com.SkyIsland.QuestManager.UI.Menu.Message.Message;
 
 /**
@@ -37,6 +37,10 @@ public class QuestConfiguration {
 	public static final double configVersion = 1.00;
 	
 	private YamlConfiguration config;
+	
+	private QuestBlueprint blueprint;
+	
+	private List<GoalSpec> goals;
 		
 	public QuestConfiguration(YamlConfiguration config) throws InvalidConfigurationException {
 		
@@ -55,6 +59,35 @@ public class QuestConfiguration {
 		//check config has all the fields we need, for safety
 		checkConfig();
 		
+		blueprint = new QuestBlueprint(config);
+		
+		goals = compileGoals();
+		
+	}
+	
+	/**
+	 * Reads and checks each goal in the held configuration, so later quest instances can be made
+	 * from the specs instead of the configuration.
+	 * @return The goal specs in order, or null if the configuration has no goals
+	 * @throws InvalidConfigurationException
+	 */
+	private List<GoalSpec> compileGoals() throws InvalidConfigurationException {
+		if (!config.contains(QuestConfigurationField.GOALS.getKey())) {
+			return null;
+		}
+		
+		ConfigurationSection questSection = config.getConfigurationSection(
+				QuestConfigurationField.GOALS.getKey());
+		if (questSection == null) {
+			return null;
+		}
+		
+		List<GoalSpec> list = new ArrayList<GoalSpec>();
+		for (String key : questSection.getKeys(false)) {
+			list.add(GoalSpec.compile(questSection.getConfigurationSection(key)));
+		}
+		
+		return Collections.unmodifiableList(list);
 	}
 	
 	
@@ -85,12 +118,25 @@ public class QuestConfiguration {
 		}
 	}
 	
+	/**
+	 * Returns the settings of this quest, as read when the configuration was loaded
+	 * @return
+	 */
+	public QuestBlueprint getBlueprint() {
+		return blueprint;
+	}
+	
 	/**
 	 * Returns the stored quest name
 	 * @return The name of the quest, or it's registered {@link QuestConfigurationField default}
 	 */
 	public String getName() {
-		return config.getString(QuestConfigurationField.NAME.getKey(), (String) QuestConfigurationField.NAME.getDefault());
+		if (blueprint == null) {
+			//still checking the config
+			return config.getString(QuestConfigurationField.NAME.getKey(), (String) QuestConfigurationField.NAME.getDefault());
+		}
+		
+		return blueprint.getName();
 	}
 	
 	/**
@@ -98,7 +144,7 @@ public class QuestConfiguration {
 	 * @return
 	 */
 	public String getDescription() {
-		return config.getString(QuestConfigurationField.DESCRIPTION.getKey(), (String) QuestConfigurationField.DESCRIPTION.getDefault());
+		return blueprint.getDescription();
 	}
 	
 	/**
@@ -107,7 +153,7 @@ public class QuestConfiguration {
 	 * @return
 	 */
 	public String getEndHint() {
-		return config.getString(QuestConfigurationField.ENDHINT.getKey(), (String) QuestConfigurationField.ENDHINT.getDefault());
+		return blueprint.getEndHint();
 	}
 	
 	/**
@@ -115,13 +161,11 @@ public class QuestConfiguration {
 	 * @return
 	 */
 	public boolean getSaveState() {
-		return config.getBoolean(QuestConfigurationField.SAVESTATE.getKey(), 
-				(boolean) QuestConfigurationField.SAVESTATE.getDefault());
+		return blueprint.getSaveState();
 	}
 	
 	public boolean isRepeatable() {
-		return config.getBoolean(QuestConfigurationField.REPEATABLE.getKey(), 
-				(boolean) QuestConfigurationField.REPEATABLE.getDefault());
+		return blueprint.isRepeatable();
 	}
 	
 	/**
@@ -130,56 +174,31 @@ public class QuestConfiguration {
 	 * @return
 	 */
 	public boolean isSession() {
-		return config.getBoolean(QuestConfigurationField.SESSION.getKey(), 
-				(boolean) QuestConfigurationField.SESSION.getDefault());
+		return blueprint.isSession();
 	}
 	
-	@SuppressWarnings("unchecked")
 	public List<String> getRequiredQuests() {
-		if (!config.contains(QuestConfigurationField.PREREQS.getKey())) {
-			return (List<String>) QuestConfigurationField.PREREQS.getDefault();
-		}
-		
-		return config.getStringList(QuestConfigurationField.PREREQS.getKey());
-				
+		return blueprint.getRequiredQuests();
 	}
 	
 	public boolean getUseParty() {
-		return config.getBoolean(
-				QuestConfigurationField.USEPARTY.getKey(),
-				(Boolean) QuestConfigurationField.USEPARTY.getDefault());
+		return blueprint.getUseParty();
 	}
 	
 	public boolean getRequireParty() {
-		return config.getBoolean(
-				QuestConfigurationField.REQUIREPARTY.getKey(),
-				(Boolean) QuestConfigurationField.REQUIREPARTY.getDefault());
+		return blueprint.getRequireParty();
 	}
 	
 	public Location getStartingLocation() {
-		Object o = config.get(QuestConfigurationField.STARTLOC.getKey());
-		if (o instanceof LocationState) {
-			LocationState ls = (LocationState) o;
-			return ls.getLocation();
-		} else {
-			return null;
-		}
+		return blueprint.getStartingLocation();
 	}
 	
 	public Location getExitLocation() {
-		Object o = config.get(QuestConfigurationField.EXIT.getKey());
-		if (o instanceof LocationState) {
-			LocationState ls = (LocationState) o;
-			return ls.getLocation();
-		} else {
-			return null;
-		}
+		return blueprint.getExitLocation();
 	}
 	
 	public boolean getFailOnDeath() {
-		return config.getBoolean(
-				QuestConfigurationField.FAILONDEATH.getKey(),
-				(Boolean) QuestConfigurationField.FAILONDEATH.getDefault());
+		return blueprint.getFailOnDeath();
 	}
 	
 	public Collection<NPC> getAuxNPCs() {
@@ -248,12 +267,7 @@ public class QuestConfiguration {
 	}
 	
 	public EndType getEndType() {
-		try {
-			return EndType.valueOf((String) config.getString(QuestConfigurationField.END.getKey()
-				+ ".type").toUpperCase());
-		} catch (Exception e) {
-			return EndType.SAME;
-		}
+		return blueprint.getEndType();
 	}
 	
 	/**
@@ -267,49 +281,32 @@ public class QuestConfiguration {
 	public Quest instanceQuest(Participant participant) throws InvalidConfigurationException,
 		SessionConflictException {
 				
-		if (!config.contains(QuestConfigurationField.GOALS.getKey())) {
+		if (goals == null || goals.isEmpty()) {
 			return null;
 		}
 		
-		if (isSession())
-		for (Quest q : QuestManagerPlugin.questManagerPlugin.getManager().getRunningQuests())
-		if (q.getName().equals(getName())){
+		if (blueprint.isSession()
+				&& QuestManagerPlugin.questManagerPlugin.getManager().isQuestRunning(blueprint.getName())) {
 			//can't instantiate it, cause one's already going
 			throw new SessionConflictException();
 		}
 		
-		ConfigurationSection questSection = config.getConfigurationSection(
-				QuestConfigurationField.GOALS.getKey());
-		
-		List<ConfigurationSection> goalList = new LinkedList<ConfigurationSection>();
-		for (String key : questSection.getKeys(false)) {
-			goalList.add(questSection.getConfigurationSection(key));
-		}
-			
 		Quest quest = new Quest(this, participant);
 		
-		for (ConfigurationSection section : goalList) {
-			Goal goal = Goal.fromConfig(quest, section);
-			quest.addGoal(goal);
+		for (GoalSpec spec : goals) {
+			quest.addGoal(spec.instantiate(quest));
 		}
 		
-		//activate first goal
-		for (Requirement req : quest.getGoals().get(0).getRequirements()) {
-			req.activate();
-		}
+		//start first goal
+		quest.getGoals().get(0).start();
 		
 		//get fame and reward info
-		quest.setFame(config.getInt(QuestConfigurationField.FAME.getKey()));
-		quest.setTitleReward(config.getString(QuestConfigurationField.TITLEREWARD.getKey()));
-		quest.setSpellReward(config.getString(QuestConfigurationField.SPELLREWARD.getKey()));
-		quest.setMoneyReward(config.getInt(QuestConfigurationField.MONEYREWARD.getKey()));
-		
-		@SuppressWarnings("unchecked")
-		List<ItemStack> rewards = (List<ItemStack>) config.getList(QuestConfigurationField.REWARDS.getKey());
-
+		quest.setFame(blueprint.getFame());
+		quest.setTitleReward(blueprint.getTitleReward());
+		quest.setSpellReward(blueprint.getSpellReward());
+		quest.setMoneyReward(blueprint.getMoneyReward());
 		
-		if (rewards != null && !rewards.isEmpty())
-		for (ItemStack item : rewards) {
+		for (ItemStack item : blueprint.getItemRewards()) {
 			quest.addItemReward(item);
 		}
 		
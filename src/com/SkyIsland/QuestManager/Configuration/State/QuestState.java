@@ -26,6 +26,8 @@ public class QuestState {
 	
 	private Participant participant;
 	
+	private String participantID;
+	
 	private History history;
 	
 	public QuestState() {
@@ -35,6 +37,18 @@ public class QuestState {
 
 
 	public void load(YamlConfiguration config) throws InvalidConfigurationException {
+		read(config);
+		resolveParticipant();
+	}
+	
+	/**
+	 * Reads everything but the participant out of the config. The participant's ID is kept
+	 * for a later call to {@link #resolveParticipant()}.<br />
+	 * This doesn't touch the player manager, so it's safe to call off of the main thread.
+	 * @param config
+	 * @throws InvalidConfigurationException
+	 */
+	public void read(YamlConfiguration config) throws InvalidConfigurationException {
 		
 		if (!config.contains("saveTime") || !config.contains("participants") || !config.contains("name") 
 				|| !config.contains("goalstate") || !config.contains("goalstate")) {
@@ -57,12 +71,28 @@ public class QuestState {
 			history = new History();
 		}
 		
-		this.participant = (Participant) QuestManagerPlugin.questManagerPlugin.getPlayerManager()
-				.getParticipant(config.getString("participants"));
+		this.participantID = config.getString("participants");
 		
 	}
 	
+	/**
+	 * Looks up the participant whose ID was {@link #read(YamlConfiguration) read} from the config.<br />
+	 * This goes through the player manager, and should only be called on the main thread.
+	 */
+	public void resolveParticipant() {
+		this.participant = (Participant) QuestManagerPlugin.questManagerPlugin.getPlayerManager()
+				.getParticipant(participantID);
+	}
+	
 	public void save(File file) throws IOException {
+		toConfig().save(file);
+	}
+	
+	/**
+	 * Puts this state into a new config, ready to be saved
+	 * @return
+	 */
+	public YamlConfiguration toConfig() {
 		YamlConfiguration config = new YamlConfiguration();
 		
 		config.set("saveTime", (new Date()).getTime());
@@ -74,13 +104,13 @@ public class QuestState {
 		config.set("goalstate", goalState.asConfig());
 		
 		//config.set("goals", goalList);
-		config.set("participants", participant.getIDString());
+		config.set("participants", getParticipantID());
 		
 		if (history != null) {
 			config.set("history", history.toConfig());
 		}
 		
-		config.save(file);
+		return config;
 	}
 	
 	public Participant getParticipant() {
@@ -90,6 +120,22 @@ public class QuestState {
 	public void setParticipant(Participant participant) {
 		this.participant = participant;
 	}
+	
+	/**
+	 * Returns the ID of the participant, whether or not it's been {@link #resolveParticipant() resolved}
+	 * @return
+	 */
+	public String getParticipantID() {
+		return participant != null ? participant.getIDString() : participantID;
+	}
+	
+	/**
+	 * Sets the ID of the participant to look up in {@link #resolveParticipant()}
+	 * @param participantID
+	 */
+	public void setParticipantID(String participantID) {
+		this.participantID = participantID;
+	}
 
 	/**
 	 * @return the name
@@ -0,0 +1,277 @@
+package com.SkyIsland.QuestManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Keeps handles to the entities of NPCs, summons and the like by their UUID, so they can find
+ * their entity without sweeping every entity in every world.<br />
+ * Only entities somebody has asked for are kept. Asking for an entity, or {@link #track(Entity)
+ * tracking} it, starts watching for its UUID: it's picked up as its chunk loads and dropped when
+ * its chunk unloads or it dies, until it's {@link #forget(UUID) forgotten}. The first time an
+ * entity is asked for it may already be loaded, so it's looked for in the loaded chunks around
+ * where it's expected to be. Only if it isn't there, or nobody knows where to expect it, are the
+ * loaded worlds searched, for every UUID that hasn't been seen yet at once.<br />
+ * Looking up an entity that isn't loaded simply misses; it never loads chunks unless asked to
+ * through {@link #loadEntity(UUID, Location)}.
+ * @author Skyler
+ *
+ */
+public class EntityHandleCache implements Listener {
+
+	private Map<UUID, Entity> entities;
+
+	/**
+	 * The UUIDs of every entity somebody wants
+	 */
+	private Set<UUID> watched;
+
+	/**
+	 * Watched UUIDs that haven't been looked for in the loaded worlds yet
+	 */
+	private Set<UUID> unresolved;
+
+	private AtomicLong hits;
+
+	private AtomicLong misses;
+
+	private long scanCount;
+
+	public EntityHandleCache() {
+		this.entities = new HashMap<UUID, Entity>();
+		this.watched = new HashSet<UUID>();
+		this.unresolved = new HashSet<UUID>();
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	/**
+	 * Looks up the loaded entity with the given UUID, and keeps watching for it from now on
+	 * @param id
+	 * @return The entity, or null if it isn't loaded (or doesn't exist)
+	 */
+	public Entity getEntity(UUID id) {
+		return getEntity(id, null);
+	}
+
+	/**
+	 * Looks up the loaded entity with the given UUID, and keeps watching for it from now on
+	 * @param id
+	 * @param near Where the entity is expected to be, if it's known. Used the first time the
+	 * entity is asked for, to avoid searching every loaded world.
+	 * @return The entity, or null if it isn't loaded (or doesn't exist)
+	 */
+	public Entity getEntity(UUID id, Location near) {
+		if (id == null) {
+			return null;
+		}
+
+		Entity e = entities.get(id);
+		if (e != null) {
+			if (e.isValid()) {
+				hits.incrementAndGet();
+				return e;
+			}
+
+			//removed without telling us
+			entities.remove(id);
+		}
+
+		if (watched.add(id)) {
+			unresolved.add(id);
+		}
+
+		if (unresolved.contains(id)) {
+			if (!resolveNear(id, near)) {
+				resolve();
+			}
+			e = entities.get(id);
+			if (e != null) {
+				hits.incrementAndGet();
+				return e;
+			}
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Looks up the entity with the given UUID, loading the chunk at its last known location
+	 * if it isn't currently loaded.<br />
+	 * This should only be used when the entity really has to be dealt with, like when removing it.
+	 * @param id
+	 * @param lastKnown Where the entity was last seen. If null, no chunk is loaded
+	 * @return The entity, or null if it couldn't be found
+	 */
+	public Entity loadEntity(UUID id, Location lastKnown) {
+		Entity e = getEntity(id, lastKnown);
+		if (e != null || lastKnown == null) {
+			return e;
+		}
+
+		//getting the chunk itself would load it, so ask the world first
+		World world = lastKnown.getWorld();
+		int x = lastKnown.getBlockX() >> 4, z = lastKnown.getBlockZ() >> 4;
+		if (world == null || world.isChunkLoaded(x, z)) {
+			return null;
+		}
+
+		//loading fires a ChunkLoadEvent, which picks up the entity since it's watched
+		world.loadChunk(x, z);
+		return getEntity(id);
+	}
+
+	/**
+	 * Starts tracking the given entity, like one that was just created and is needed right away
+	 * @param e
+	 */
+	public void track(Entity e) {
+		if (e == null) {
+			return;
+		}
+
+		watched.add(e.getUniqueId());
+		unresolved.remove(e.getUniqueId());
+		entities.put(e.getUniqueId(), e);
+	}
+
+	/**
+	 * Stops watching for the entity with the given UUID, once nobody needs it anymore
+	 * @param id
+	 */
+	public void forget(UUID id) {
+		if (id == null) {
+			return;
+		}
+
+		watched.remove(id);
+		unresolved.remove(id);
+		entities.remove(id);
+	}
+
+	/**
+	 * Looks for the entity in the loaded chunks around the given location
+	 * @param id
+	 * @param near
+	 * @return Whether it was found
+	 */
+	private boolean resolveNear(UUID id, Location near) {
+		if (near == null || near.getWorld() == null) {
+			return false;
+		}
+
+		World world = near.getWorld();
+		int cx = near.getBlockX() >> 4, cz = near.getBlockZ() >> 4;
+		for (int x = cx - 1; x <= cx + 1; x++)
+		for (int z = cz - 1; z <= cz + 1; z++) {
+			if (!world.isChunkLoaded(x, z)) {
+				continue;
+			}
+
+			for (Entity e : world.getChunkAt(x, z).getEntities()) {
+				if (e.getUniqueId().equals(id)) {
+					entities.put(id, e);
+					unresolved.remove(id);
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Looks for every unresolved UUID in the loaded worlds in a single pass. Whatever isn't found
+	 * isn't loaded, and will be picked up when its chunk loads.
+	 */
+	private void resolve() {
+		scanCount++;
+		for (World w : Bukkit.getWorlds())
+		for (Entity e : w.getEntities()) {
+			if (unresolved.contains(e.getUniqueId())) {
+				entities.put(e.getUniqueId(), e);
+			}
+		}
+
+		unresolved.clear();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return How many times the loaded worlds have been searched for newly watched entities
+	 */
+	public long getScanCount() {
+		return scanCount;
+	}
+
+	/**
+	 * @return How many entities are being watched for
+	 */
+	public int getWatchedCount() {
+		return watched.size();
+	}
+
+	/**
+	 * @return How many watched entities are currently loaded and tracked
+	 */
+	public int size() {
+		return entities.size();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkLoad(ChunkLoadEvent e) {
+		if (watched.isEmpty()) {
+			return;
+		}
+
+		for (Entity entity : e.getChunk().getEntities()) {
+			if (watched.contains(entity.getUniqueId())) {
+				entities.put(entity.getUniqueId(), entity);
+			}
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChunkUnload(ChunkUnloadEvent e) {
+		if (e.isCancelled() || entities.isEmpty()) {
+			return;
+		}
+
+		for (Entity entity : e.getChunk().getEntities()) {
+			entities.remove(entity.getUniqueId());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onEntityDeath(EntityDeathEvent e) {
+		if (watched.isEmpty()) {
+			return;
+		}
+
+		forget(e.getEntity().getUniqueId());
+	}
+
+}
@@ -6,7 +6,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.Effect;
 import org.bukkit.Location;
 import org.bukkit.Sound;
-import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -29,6 +28,7 @@ public class Summon extends QuestMonsterNPC implements Alarmable<Integer>, Liste
 		this.entityID = entity.getUniqueId();
 		this.entity = entity;
 		this.casterID = casterID;
+		QuestManagerPlugin.questManagerPlugin.getEntityCache().track(entity);
 		
 		Alarm.getScheduler().schedule(this, 0, duration);
 		Bukkit.getPluginManager().registerEvents(this, 
@@ -38,47 +38,48 @@ public class Summon extends QuestMonsterNPC implements Alarmable<Integer>, Liste
 	@Override
 	public void alarm(Integer key) {
 		// kill our summon
-		Entity e = getEntity();
+		Entity e = loadEntity();
 		
 		if (e == null) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Unable to locate and remove "
 				+ "summon!");
 		} else {
-			e.getLocation().getChunk().load();
 			e.remove();
 			
 			playDeathEffect(e.getLocation());
 		}
 		
+		QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(entityID);
 		QuestManagerPlugin.questManagerPlugin.getSummonManager().unregisterSummon(this);
 	}
 	
+	@Override
 	public Entity getEntity() {
 		if (entity != null && entity.isValid() && !entity.isDead() && entity.getUniqueId().equals(entityID)) {
 			//still cached
 			return entity;
 		}
 		
-		//try and load last chunk the entity was in
-		if (entity != null) {
-			entity.getLocation().getChunk().load();
-			
-		} else {
-			System.out.println("entity is null: " + "summon!");
+		Entity e = QuestManagerPlugin.questManagerPlugin.getEntityCache().getEntity(entityID);
+		if (e != null) {
+			entity = e;
 		}
 		
-		//cache has expired (new entity ID, etc) so grab entity
-		for (World w : Bukkit.getWorlds())
-		for (Entity e : w.getEntities()) {
-			if (e.getUniqueId().equals(entityID)) {
+		return e;
+	}
+	
+	@Override
+	public Entity loadEntity() {
+		Entity e = getEntity();
+		if (e == null && entity != null) {
+			e = QuestManagerPlugin.questManagerPlugin.getEntityCache().loadEntity(entityID,
+					entity.getLocation());
+			if (e != null) {
 				entity = e;
-				return e;
 			}
 		}
 		
-		//unable to find entity!
-		return null;
-		
+		return e;
 	}
 	
 	@Override
@@ -93,10 +94,10 @@ public class Summon extends QuestMonsterNPC implements Alarmable<Integer>, Liste
 	public void remove() {
 		Alarm.getScheduler().unregister(this);
 		
-		getEntity();
-		if (entity == null) {
+		if (loadEntity() == null) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Unable to locate and remove "
 					+ "summon!");
+			QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(entityID);
 			return;
 		}
 		
@@ -109,6 +110,7 @@ public class Summon extends QuestMonsterNPC implements Alarmable<Integer>, Liste
 		
 		playDeathEffect(entity.getLocation());
 		entity.remove();
+		QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(entityID);
 	}
 	
 	public UUID getCasterID() {
@@ -11,13 +11,13 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.EquipmentConfiguration;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
+import com.SkyIsland.QuestManager.NPC.Utils.SpawnSpec;
 
 /**
  * Basic NPC with no interactivity and no movement.
@@ -96,22 +96,9 @@ public class DummyNPC extends SimpleNPC {
 		
 		DummyNPC npc = new DummyNPC(loc);
 
-		loc.getChunk();
-		npc.setEntity(loc.getWorld().spawnEntity(loc, type));
 		npc.setStartingLoc(loc);
-		npc.getEntity().setCustomName((String) map.get("name"));
-		
 		npc.name = (String) map.get("name");
-
-		if (npc.getEntity() instanceof LivingEntity) {
-			EntityEquipment equipment = ((LivingEntity) npc.getEntity()).getEquipment();
-			equipment.setHelmet(econ.getHead());
-			equipment.setChestplate(econ.getChest());
-			equipment.setLeggings(econ.getLegs());
-			equipment.setBoots(econ.getBoots());
-			equipment.setItemInHand(econ.getHeld());
-			
-		}
+		npc.setSpawnSpec(new SpawnSpec(type, loc, (String) map.get("name"), econ));
 		
 		return npc;
 	}
@@ -121,20 +108,10 @@ public class DummyNPC extends SimpleNPC {
 		Map<String, Object> map = new HashMap<String, Object>(4);
 		
 		map.put("name", name);
-		map.put("type", getEntity().getType());
-		map.put("location", new LocationState(getEntity().getLocation()));
-		
-		EquipmentConfiguration econ;
-		
-		if (getEntity() instanceof LivingEntity) {
-			econ = new EquipmentConfiguration(
-					((LivingEntity) getEntity()).getEquipment()
-					);
-		} else {
-			econ = new EquipmentConfiguration();
-		}
+		map.put("type", spawnSpec.getType().name());
+		map.put("location", new LocationState(spawnSpec.getLocation()));
 		
-		map.put("equipment", econ);
+		map.put("equipment", spawnSpec.getEquipment());
 	
 		
 		return map;
@@ -14,7 +14,6 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
@@ -22,6 +21,7 @@ import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.EquipmentConfiguration;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
 import com.SkyIsland.QuestManager.Fanciful.FancyMessage;
+import com.SkyIsland.QuestManager.NPC.Utils.SpawnSpec;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.UI.ChatMenu;
 import com.SkyIsland.QuestManager.UI.Menu.BioptionChatMenu;
@@ -103,20 +103,10 @@ public class LevelupNPC extends SimpleNPC {
 		Map<String, Object> map = new HashMap<String, Object>(4);
 		
 		map.put("name", name);
-		map.put("type", getEntity().getType());
-		map.put("location", new LocationState(getEntity().getLocation()));
+		map.put("type", spawnSpec.getType().name());
+		map.put("location", new LocationState(spawnSpec.getLocation()));
 		
-		EquipmentConfiguration econ;
-		
-		if (getEntity() instanceof LivingEntity) {
-			econ = new EquipmentConfiguration(
-					((LivingEntity) getEntity()).getEquipment()
-					);
-		} else {
-			econ = new EquipmentConfiguration();
-		}
-		
-		map.put("equipment", econ);
+		map.put("equipment", spawnSpec.getEquipment());
 		
 		map.put("message", chat);
 		
@@ -161,19 +151,7 @@ public class LevelupNPC extends SimpleNPC {
 		npc.name = (String) map.get("name");
 		
 
-		loc.getChunk();
-		npc.setEntity(loc.getWorld().spawnEntity(loc, type));
-		npc.getEntity().setCustomName((String) map.get("name"));
-
-		if (npc.getEntity() instanceof LivingEntity) {
-			EntityEquipment equipment = ((LivingEntity) npc.getEntity()).getEquipment();
-			equipment.setHelmet(econ.getHead());
-			equipment.setChestplate(econ.getChest());
-			equipment.setLeggings(econ.getLegs());
-			equipment.setBoots(econ.getBoots());
-			equipment.setItemInHand(econ.getHeld());
-			
-		}
+		npc.setSpawnSpec(new SpawnSpec(type, loc, (String) map.get("name"), econ));
 		
 		npc.chat = (BioptionMessage) map.get("message");
 		
@@ -4,25 +4,21 @@ import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.World;
+import org.bukkit.Location;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageEvent;
-import org.bukkit.event.player.PlayerInteractAtEntityEvent;
-import org.bukkit.event.player.PlayerInteractEntityEvent;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.NPC.Utils.SpawnSpec;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Quest;
 import com.SkyIsland.QuestManager.Quest.History.HistoryEvent;
 import com.SkyIsland.QuestManager.Scheduling.Tickable;
 
-public abstract class NPC implements ConfigurationSerializable, Listener, Tickable {
+public abstract class NPC implements ConfigurationSerializable, Tickable {
 	
 	/**
 	 * Cache value for saving lookup times for entities
@@ -41,15 +37,22 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 	 */
 	protected String questName;
 	
+	/**
+	 * How to create our entity, if we create it ourselves. NPCs with a spec only have an entity
+	 * while the chunk they live in is loaded.
+	 */
+	protected SpawnSpec spawnSpec;
+	
 	protected NPC() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		;
 	}
 	
 	/**
 	 * Returns the entity this NPC is attached to.<br />
 	 * This method attempts to save cycles by caching the last known entity to
-	 * represent our UUID'd creature. If the cache is no longer valid, an entire
-	 * sweep of worlds and entities is performed to lookup the entity.
+	 * represent our UUID'd creature. If the cache is no longer valid, the entity is
+	 * looked up in the plugin's {@link com.SkyIsland.QuestManager.EntityHandleCache}. No chunks are loaded, so
+	 * an NPC whose chunk isn't loaded has no entity.
 	 * @return The entity attached to our UUID, or NULL if none is found
 	 */
 	public Entity getEntity() {
@@ -58,26 +61,46 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 			return entity;
 		}
 		
-		//try and load last chunk the entity was in
-		if (entity != null) {
-			entity.getLocation().getChunk().load();
-			
-		} else {
-			System.out.println("entity is null: " + name);
+		Entity e = QuestManagerPlugin.questManagerPlugin.getEntityCache().getEntity(id, getHomeLocation());
+		if (e != null) {
+			entity = e;
 		}
 		
-		//cache has expired (new entity ID, etc) so grab entity
-		for (World w : Bukkit.getWorlds())
-		for (Entity e : w.getEntities()) {
-			if (e.getUniqueId().equals(id)) {
-				entity = e;
-				return e;
-			}
+		return e;
+	}
+	
+	/**
+	 * Like {@link #getEntity()}, but loads the chunk the entity was last seen in if it isn't loaded.<br />
+	 * Only use this when the entity has to be dealt with, like when removing it.
+	 * @return The entity attached to our UUID, or NULL if none is found
+	 */
+	public Entity loadEntity() {
+		Entity e = QuestManagerPlugin.questManagerPlugin.getEntityCache().loadEntity(id,
+				entity == null ? null : entity.getLocation());
+		if (e != null) {
+			entity = e;
+		}
+		
+		return e;
+	}
+	
+	/**
+	 * Returns where this NPC lives. Our entity is looked for around here the first time it's
+	 * asked for.<br />
+	 * By default, this is where our {@link SpawnSpec} spawns us, or the last place our entity
+	 * was seen if we don't have one.
+	 * @return The home location, or null if it isn't known
+	 */
+	public Location getHomeLocation() {
+		if (spawnSpec != null) {
+			return spawnSpec.getLocation();
 		}
 		
-		//unable to find entity!
-		return null;
+		if (entity == null) {
+			return null;
+		}
 		
+		return entity.getLocation();
 	}
 	
 	/**
@@ -85,11 +108,15 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 	 * @param entity
 	 */
 	public void setEntity(Entity entity) {
+		UUID oldID = this.id;
 		this.entity = entity;
 		this.id = entity.getUniqueId();
+		QuestManagerPlugin.questManagerPlugin.getEntityCache().track(entity);
 		if (entity instanceof LivingEntity) {
 			((LivingEntity) entity).setRemoveWhenFarAway(false);
 		}
+		
+		updateRegistry(oldID);
 	}
 	
 	/**
@@ -97,7 +124,23 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 	 * @param id
 	 */
 	public void setID(UUID id) {
+		UUID oldID = this.id;
 		this.id = id;
+		
+		updateRegistry(oldID);
+	}
+	
+	/**
+	 * Lets the {@link NPCRegistry} know our entity ID has changed
+	 */
+	private void updateRegistry(UUID oldID) {
+		if (oldID != null && oldID.equals(id)) {
+			return;
+		}
+		
+		if (QuestManagerPlugin.questManagerPlugin.getManager() != null) {
+			QuestManagerPlugin.questManagerPlugin.getManager().getNPCRegistry().updateID(this, oldID);
+		}
 	}
 	
 	public UUID getID() {
@@ -117,29 +160,11 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 	}
 	
 	
-	@EventHandler(priority = EventPriority.HIGH)
-	public void onPlayerInteract(PlayerInteractAtEntityEvent e) {
-		if (!e.isCancelled())
-		if (e.getRightClicked().getUniqueId().equals(id)) {
-			e.setCancelled(true);
-			this.interact(e.getPlayer());
-		}
-	}
-	
-	@EventHandler(priority = EventPriority.HIGH)
-	public void onPlayerInteract(PlayerInteractEntityEvent e){
-		if (!e.isCancelled())
-			if (e.getRightClicked().getUniqueId().equals(id)) {
-				e.setCancelled(true);
-			}
-	}
-	
-	@EventHandler
+	/**
+	 * Called by the {@link NPCRegistry} when our entity is damaged
+	 * @param e
+	 */
 	public void onEntityHurt(EntityDamageEvent e) {
-		if (!e.getEntity().getUniqueId().equals(id)) {
-			return;
-		}
-			
 		//grab the damage. if it's gonna kill us, just take no damage? 
 		
 		e.setDamage(0);
@@ -155,10 +180,74 @@ public abstract class NPC implements ConfigurationSerializable, Listener, Tickab
 //		}
 	}
 	
+	/**
+	 * Creates our entity from our {@link SpawnSpec}, unless we already have a live one.<br />
+	 * Called by the {@link NPCRegistry} when the chunk we live in loads. NPCs without a spec
+	 * are left alone.
+	 * @return Our entity, or null if there isn't one
+	 */
+	public Entity materialize() {
+		Entity e = getEntity();
+		if (e != null || spawnSpec == null) {
+			return e;
+		}
+		
+		e = spawnSpec.spawn();
+		if (e != null) {
+			setEntity(e);
+		}
+		
+		return e;
+	}
+	
+	/**
+	 * Removes our entity if we can create it again from our {@link SpawnSpec}.<br />
+	 * Called by the {@link NPCRegistry} when the chunk we live in or the chunk our entity has
+	 * wandered into unloads, so the entity isn't saved with either.
+	 */
+	public void despawn() {
+		if (spawnSpec == null) {
+			return;
+		}
+		
+		Entity e = getEntity();
+		if (e != null) {
+			e.remove();
+		}
+	}
+	
+	/**
+	 * Called on the main thread when the {@link NPCRegistry} takes this NPC on. NPCs are
+	 * deserialized off of the main thread, so anything touching the server or the schedulers
+	 * should be started here instead of in a constructor.
+	 */
+	protected void onRegister() {
+		;
+	}
+	
+	/**
+	 * Called when the {@link NPCRegistry} lets go of this NPC, to stop whatever was started in
+	 * {@link #onRegister()}
+	 */
+	protected void onUnregister() {
+		;
+	}
+	
+	public SpawnSpec getSpawnSpec() {
+		return spawnSpec;
+	}
+	
+	public void setSpawnSpec(SpawnSpec spawnSpec) {
+		this.spawnSpec = spawnSpec;
+	}
+	
 	public void removeEntity(boolean now) {
-		final Entity e = getEntity();
+		//spec'd NPCs are despawned with their chunk, so there's nothing to load
+		final Entity e = (spawnSpec == null ? loadEntity() : getEntity());
 		
-		e.getLocation().getChunk().load();
+		if (e == null) {
+			return;
+		}
 		
 		if (now) {
 			e.remove();
@@ -0,0 +1,294 @@
+package com.SkyIsland.QuestManager.NPC;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.player.PlayerInteractAtEntityEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.util.ChunkKey;
+
+/**
+ * Keeps track of the NPCs the quest manager is responsible for.<br />
+ * NPCs are indexed by the UUID of the entity they're attached to, so interaction and damage events
+ * can be handed straight to the NPC involved instead of every NPC checking every event. NPCs are also
+ * indexed by name for {@link #getNPC(String)}, and NPCs with a
+ * {@link com.SkyIsland.QuestManager.NPC.Utils.SpawnSpec spawn spec} by the chunk they spawn in,
+ * so their entities come and go with it.<br />
+ * NPCs let the registry know when their entity changes through {@link #updateID(NPC, UUID)}.
+ * @author Skyler
+ *
+ */
+public class NPCRegistry implements Listener {
+
+	private Set<NPC> npcs;
+
+	private Map<UUID, NPC> idMap;
+
+	private Map<String, NPC> nameMap;
+
+	private Map<ChunkKey, Set<NPC>> spawnable;
+
+	public NPCRegistry() {
+		this.npcs = new LinkedHashSet<NPC>();
+		this.idMap = new HashMap<UUID, NPC>();
+		this.nameMap = new HashMap<String, NPC>();
+		this.spawnable = new HashMap<ChunkKey, Set<NPC>>();
+	}
+
+	/**
+	 * Adds the NPC to the registry. Registered NPCs receive interaction and damage events
+	 * for their entity, and are kept safe from chunk cleanup.
+	 * @param npc
+	 */
+	public void register(NPC npc) {
+		if (npc == null || !npcs.add(npc)) {
+			return;
+		}
+
+		if (npc.getID() != null) {
+			idMap.put(npc.getID(), npc);
+		}
+
+		if (npc.getName() != null && !nameMap.containsKey(npc.getName())) {
+			nameMap.put(npc.getName(), npc);
+		}
+
+		npc.onRegister();
+
+		//NPCs with a spawn spec get their entity when their chunk loads
+		if (npc.getSpawnSpec() != null) {
+			ChunkKey key = ChunkKey.of(npc.getSpawnSpec().getLocation());
+			if (key != null) {
+				Set<NPC> set = spawnable.get(key);
+				if (set == null) {
+					set = new HashSet<NPC>();
+					spawnable.put(key, set);
+				}
+				set.add(npc);
+			}
+
+			if (npc.getSpawnSpec().isChunkLoaded()) {
+				npc.materialize();
+			}
+		}
+	}
+
+	/**
+	 * Removes the NPC from the registry
+	 * @param npc
+	 */
+	public void unregister(NPC npc) {
+		if (npc == null || !npcs.remove(npc)) {
+			return;
+		}
+
+		npc.onUnregister();
+		QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(npc.getID());
+
+		if (npc.getSpawnSpec() != null) {
+			ChunkKey key = ChunkKey.of(npc.getSpawnSpec().getLocation());
+			Set<NPC> set = spawnable.get(key);
+			if (set != null) {
+				set.remove(npc);
+				if (set.isEmpty()) {
+					spawnable.remove(key);
+				}
+			}
+		}
+
+		if (npc.getID() != null && idMap.get(npc.getID()) == npc) {
+			idMap.remove(npc.getID());
+		}
+
+		if (npc.getName() != null && nameMap.get(npc.getName()) == npc) {
+			nameMap.remove(npc.getName());
+
+			//fall back to another npc with the same name, if there is one
+			for (NPC other : npcs) {
+				if (npc.getName().equals(other.getName())) {
+					nameMap.put(other.getName(), other);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves a registered NPC from its old entity ID to its current one.<br />
+	 * Unregistered NPCs are ignored.
+	 * @param npc
+	 * @param oldID The ID the NPC had before the change. Can be null
+	 */
+	public void updateID(NPC npc, UUID oldID) {
+		if (!npcs.contains(npc)) {
+			return;
+		}
+
+		if (oldID != null && idMap.get(oldID) == npc) {
+			idMap.remove(oldID);
+			QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(oldID);
+		}
+
+		if (npc.getID() != null) {
+			idMap.put(npc.getID(), npc);
+		}
+	}
+
+	/**
+	 * Removes all NPCs from the registry
+	 */
+	public void clear() {
+		for (NPC npc : npcs) {
+			npc.onUnregister();
+			QuestManagerPlugin.questManagerPlugin.getEntityCache().forget(npc.getID());
+		}
+
+		npcs.clear();
+		idMap.clear();
+		nameMap.clear();
+		spawnable.clear();
+	}
+
+	/**
+	 * Looks up the registered NPC attached to the entity with the given ID
+	 * @param id
+	 * @return The NPC, or null if no registered NPC uses that entity
+	 */
+	public NPC getNPC(UUID id) {
+		if (id == null) {
+			return null;
+		}
+
+		return idMap.get(id);
+	}
+
+	/**
+	 * Looks up a registered NPC by its name.<br />
+	 * If there are multiple NPCs by the same name, the first one registered is returned.
+	 * @param name
+	 * @return The NPC, or null if there isn't one by that name
+	 */
+	public NPC getNPC(String name) {
+		if (name == null) {
+			return null;
+		}
+
+		return nameMap.get(name);
+	}
+
+	/**
+	 * Returns whether the entity with the given ID belongs to a registered NPC
+	 * @param id
+	 * @return
+	 */
+	public boolean isNPC(UUID id) {
+		return getNPC(id) != null;
+	}
+
+	/**
+	 * Returns an unmodifiable view of all registered NPCs
+	 * @return
+	 */
+	public Collection<NPC> getNPCs() {
+		return Collections.unmodifiableCollection(npcs);
+	}
+
+	public boolean isEmpty() {
+		return npcs.isEmpty();
+	}
+
+	/**
+	 * Spawns the entities of NPCs that live in the chunk
+	 * @param e
+	 */
+	@EventHandler
+	public void onChunkLoad(ChunkLoadEvent e) {
+		Set<NPC> set = spawnable.get(ChunkKey.of(e.getChunk()));
+		if (set == null) {
+			return;
+		}
+
+		for (NPC npc : set) {
+			npc.materialize();
+		}
+	}
+
+	/**
+	 * Despawns the entities of NPCs that live in the chunk, along with those of NPCs that have
+	 * wandered into it from elsewhere, so none of them are saved with it. Otherwise an NPC whose
+	 * entity was saved away from home would be spawned again when its home loads.
+	 * @param e
+	 */
+	@EventHandler(priority = EventPriority.HIGHEST)
+	public void onChunkUnload(ChunkUnloadEvent e) {
+		if (e.isCancelled()) {
+			return;
+		}
+
+		Set<NPC> set = spawnable.get(ChunkKey.of(e.getChunk()));
+		if (set != null) {
+			for (NPC npc : set) {
+				npc.despawn();
+			}
+		}
+
+		if (idMap.isEmpty()) {
+			return;
+		}
+
+		for (Entity entity : e.getChunk().getEntities()) {
+			NPC npc = getNPC(entity.getUniqueId());
+			if (npc != null) {
+				npc.despawn();
+			}
+		}
+	}
+
+	@EventHandler(priority = EventPriority.HIGH)
+	public void onPlayerInteract(PlayerInteractAtEntityEvent e) {
+		if (e.isCancelled()) {
+			return;
+		}
+
+		NPC npc = getNPC(e.getRightClicked().getUniqueId());
+		if (npc != null) {
+			e.setCancelled(true);
+			npc.interact(e.getPlayer());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.HIGH)
+	public void onPlayerInteract(PlayerInteractEntityEvent e) {
+		if (e.isCancelled()) {
+			return;
+		}
+
+		if (isNPC(e.getRightClicked().getUniqueId())) {
+			e.setCancelled(true);
+		}
+	}
+
+	@EventHandler
+	public void onEntityHurt(EntityDamageEvent e) {
+		NPC npc = getNPC(e.getEntity().getUniqueId());
+		if (npc != null) {
+			npc.onEntityHurt(e);
+		}
+	}
+
+}
@@ -3,7 +3,6 @@ package com.SkyIsland.QuestManager.NPC;
 import java.util.Map;
 
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.entity.EntityDamageEvent;
 
 /**
@@ -30,7 +29,6 @@ public class QuestMonsterNPC extends NPC {
 	}
 	
 	@Override
-	@EventHandler
 	public void onEntityHurt(EntityDamageEvent e) {
 		
 	}
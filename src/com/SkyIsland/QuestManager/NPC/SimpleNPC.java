@@ -3,11 +3,14 @@ package com.SkyIsland.QuestManager.NPC;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 
-import com.SkyIsland.QuestManager.Scheduling.DispersedScheduler;
+import com.SkyIsland.QuestManager.Scheduling.Registration;
+import com.SkyIsland.QuestManager.Scheduling.TickBudgetScheduler;
+import com.SkyIsland.QuestManager.Scheduling.TickBudgetScheduler.Priority;
 
 /**
  * Describes NPCs with simple movement pattern: they occasionally attempt to
- * move back to their original spot
+ * move back to their original spot.<br />
+ * They're only checked on while they're {@link NPCRegistry registered}.
  * @author Skyler
  *
  */
@@ -21,11 +24,32 @@ public abstract class SimpleNPC extends NPC {
 	 */
 	private static final double range = 20.0;
 	
+	/**
+	 * How often NPCs are checked on, in server ticks
+	 */
+	private static final long leashPeriod = 200;
+	
+	private Registration leash;
+	
 	protected SimpleNPC(Location startingLoc) {
 		super();
 		this.startingLoc = startingLoc;
-		
-		DispersedScheduler.getScheduler().register(this);
+	}
+	
+	/**
+	 * Starts checking on our entity
+	 */
+	@Override
+	protected void onRegister() {
+		leash = TickBudgetScheduler.getScheduler().register(this, Priority.LOW, leashPeriod);
+	}
+	
+	@Override
+	protected void onUnregister() {
+		if (leash != null) {
+			leash.release();
+			leash = null;
+		}
 	}
 	
 	/**
@@ -69,6 +93,18 @@ public abstract class SimpleNPC extends NPC {
 		this.startingLoc = startingLoc;
 	}
 	
+	/**
+	 * Simple NPCs live at their starting location, if they have one
+	 */
+	@Override
+	public Location getHomeLocation() {
+		if (startingLoc != null) {
+			return startingLoc;
+		}
+		
+		return super.getHomeLocation();
+	}
+	
 	
 	
 }
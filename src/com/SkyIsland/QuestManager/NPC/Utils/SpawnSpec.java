@@ -0,0 +1,93 @@
+package com.SkyIsland.QuestManager.NPC.Utils;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.inventory.EntityEquipment;
+
+import com.SkyIsland.QuestManager.Configuration.EquipmentConfiguration;
+
+/**
+ * Everything needed to create an NPC's entity: what it is, where it stands, what it's called
+ * and what it's wearing.<br />
+ * NPCs keep one of these instead of a live entity while their chunk isn't loaded, and use it to
+ * spawn a fresh entity when it is.
+ * @author Skyler
+ *
+ */
+public class SpawnSpec {
+
+	private EntityType type;
+
+	private Location location;
+
+	private String name;
+
+	private EquipmentConfiguration equipment;
+
+	public SpawnSpec(EntityType type, Location location, String name, EquipmentConfiguration equipment) {
+		this.type = type;
+		this.location = location;
+		this.name = name;
+		this.equipment = (equipment == null ? new EquipmentConfiguration() : equipment);
+	}
+
+	/**
+	 * Spawns a new entity as described by this spec.<br />
+	 * This loads the chunk at the spec's location if it isn't already loaded; callers
+	 * should usually make sure it is first.
+	 * @return The new entity, or null if the location has no world
+	 */
+	public Entity spawn() {
+		if (location == null || location.getWorld() == null) {
+			return null;
+		}
+
+		Entity entity = location.getWorld().spawnEntity(location, type);
+
+		if (name != null) {
+			entity.setCustomName(name);
+		}
+
+		if (entity instanceof LivingEntity) {
+			EntityEquipment equips = ((LivingEntity) entity).getEquipment();
+			equips.setHelmet(equipment.getHead());
+			equips.setChestplate(equipment.getChest());
+			equips.setLeggings(equipment.getLegs());
+			equips.setBoots(equipment.getBoots());
+			equips.setItemInHand(equipment.getHeld());
+		}
+
+		return entity;
+	}
+
+	/**
+	 * Whether or not the chunk this spec spawns into is currently loaded. Doesn't load it.
+	 * @return
+	 */
+	public boolean isChunkLoaded() {
+		if (location == null || location.getWorld() == null) {
+			return false;
+		}
+
+		return location.getWorld().isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+	}
+
+	public EntityType getType() {
+		return type;
+	}
+
+	public Location getLocation() {
+		return location;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public EquipmentConfiguration getEquipment() {
+		return equipment;
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.SkyIsland.QuestManager.Player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerEditBookEvent;
+import org.bukkit.event.player.PlayerExpChangeEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+
+import com.SkyIsland.QuestManager.PlayerManager;
+import com.onarandombox.MultiversePortals.event.MVPortalEvent;
+
+/**
+ * Single listener that routes player events to the one {@link QuestPlayer} they concern.<br />
+ * QuestPlayers are looked up by UUID from the owning {@link PlayerManager}, instead of every
+ * loaded player listening to (and discarding) every event on the server.<br />
+ * Players that have no loaded QuestPlayer are ignored, same as before.
+ * @author Skyler
+ *
+ */
+public class PlayerEventRouter implements Listener {
+
+	private PlayerManager manager;
+
+	private Map<Class<? extends Event>, AtomicLong> dispatchCounts;
+
+	public PlayerEventRouter(PlayerManager manager) {
+		this.manager = manager;
+		this.dispatchCounts = new HashMap<Class<? extends Event>, AtomicLong>();
+	}
+
+	/**
+	 * Returns how many times each event type has been handed to a QuestPlayer.<br />
+	 * Events that didn't concern a loaded player are not counted.
+	 * @return
+	 */
+	public Map<Class<? extends Event>, AtomicLong> getDispatchCounts() {
+		return Collections.unmodifiableMap(dispatchCounts);
+	}
+
+	/**
+	 * Looks up the quest player with the given id and records a dispatch for the event type if
+	 * one is found.
+	 * @param id
+	 * @param type
+	 * @return The loaded QuestPlayer, or null if there isn't one
+	 */
+	private QuestPlayer route(UUID id, Class<? extends Event> type) {
+		QuestPlayer qp = manager.getLoadedPlayer(id);
+		if (qp == null) {
+			return null;
+		}
+
+		AtomicLong count = dispatchCounts.get(type);
+		if (count == null) {
+			count = new AtomicLong();
+			dispatchCounts.put(type, count);
+		}
+		count.incrementAndGet();
+
+		return qp;
+	}
+
+	@EventHandler
+	public void onPortal(MVPortalEvent e) {
+		QuestPlayer qp = route(e.getTeleportee().getUniqueId(), MVPortalEvent.class);
+		if (qp != null) {
+			qp.onPortal(e);
+		}
+	}
+
+	@EventHandler
+	public void onExp(PlayerExpChangeEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerExpChangeEvent.class);
+		if (qp != null) {
+			qp.onExp(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerInteract(PlayerInteractEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerInteractEvent.class);
+		if (qp != null) {
+			qp.onPlayerInteract(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerDeath(PlayerDeathEvent e) {
+		QuestPlayer qp = route(e.getEntity().getUniqueId(), PlayerDeathEvent.class);
+		if (qp != null) {
+			qp.onPlayerDeath(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerRespawn(PlayerRespawnEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerRespawnEvent.class);
+		if (qp != null) {
+			qp.onPlayerRespawn(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerQuit(PlayerQuitEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerQuitEvent.class);
+		if (qp != null) {
+			qp.onPlayerQuit(e);
+		}
+		
+		manager.playerQuit(e.getPlayer());
+	}
+
+	@EventHandler
+	public void onPlayerInteractWithPlayer(PlayerInteractEntityEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerInteractEntityEvent.class);
+		if (qp != null) {
+			qp.onPlayerInteractWithPlayer(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerRuinJournal(PlayerEditBookEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerEditBookEvent.class);
+		if (qp != null) {
+			qp.onPlayerRuinJournal(e);
+		}
+	}
+
+	@EventHandler
+	public void onEntityDeath(EntityDeathEvent e) {
+		Player killer = e.getEntity().getKiller();
+		if (killer == null) {
+			return;
+		}
+
+		QuestPlayer qp = route(killer.getUniqueId(), EntityDeathEvent.class);
+		if (qp != null) {
+			qp.onEntityDeathEvent(e);
+		}
+	}
+
+	@EventHandler
+	public void onFoodEat(PlayerItemConsumeEvent e) {
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerItemConsumeEvent.class);
+		if (qp != null) {
+			qp.onFoodEat(e);
+		}
+	}
+
+	/**
+	 * Reads the player's save file while they're logging in, so it's ready by the time they join.<br />
+	 * This runs on the login thread; it's left to the manager to hand the player over on the main thread.
+	 * @param e
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerPreLogin(AsyncPlayerPreLoginEvent e) {
+		if (e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+			return;
+		}
+
+		manager.preload(e.getUniqueId());
+	}
+
+	@EventHandler
+	public void onPlayerJoin(PlayerJoinEvent e) {
+		manager.playerJoined(e.getPlayer());
+		
+		QuestPlayer qp = route(e.getPlayer().getUniqueId(), PlayerJoinEvent.class);
+		if (qp != null) {
+			qp.onPlayerJoin(e);
+		}
+	}
+
+}
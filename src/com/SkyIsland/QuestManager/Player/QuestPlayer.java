@@ -23,8 +23,6 @@ import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerEditBookEvent;
@@ -40,6 +38,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.Configuration.PluginConfiguration;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
 import com.SkyIsland.QuestManager.Effects.ChargeEffect;
 import com.SkyIsland.QuestManager.Fanciful.FancyMessage;
@@ -78,11 +77,13 @@ import de.inventivegames.util.title.TitleManager;
 
 /**
  * Player wrapper to store questing information and make saving player quest status
- * easier
+ * easier<br />
+ * QuestPlayers do not listen for events themselves. Player events are routed to the
+ * matching QuestPlayer's handler methods by the {@link PlayerEventRouter}.
  * @author Skyler
  *
  */
-public class QuestPlayer implements Participant, Listener, MagicUser {
+public class QuestPlayer implements Participant, MagicUser {
 	
 	public static boolean meetsRequirement(QuestPlayer player, String requirement) {
 		if (requirement.contains("|")) {
@@ -113,6 +114,16 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	
 	private UUID playerID;
 	
+	/**
+	 * The player while they're online, kept up to date by the {@link com.SkyIsland.QuestManager.PlayerManager}
+	 */
+	private Player onlinePlayer;
+	
+	/**
+	 * Cached lookup of our offline player, used while we're offline
+	 */
+	private OfflinePlayer offlinePlayer;
+	
 	private History history;
 	
 	private List<Quest> currentQuests;
@@ -154,6 +165,11 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	
 	private CompassTrackable compassTarget;
 	
+	/**
+	 * Whether anything that gets saved has changed since this player was last saved
+	 */
+	private boolean dirty;
+	
 	/**
 	 * Registers this class as configuration serializable with all defined 
 	 * {@link aliases aliases}
@@ -230,7 +246,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 //	}
 	
 	private QuestPlayer() {
-		System.out.println("creation");
 		this.fame = 0;
 		this.alphaFame = 0;
 		this.money = 0;
@@ -244,7 +259,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		this.journalNotes = new LinkedList<String>();
 		this.spells = new LinkedList<>();
 		this.storedSpells = new HashMap<>();
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
 	}
 	
 	/**
@@ -256,14 +270,15 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	public QuestPlayer(OfflinePlayer player) {
 		this();
 		this.playerID = player.getUniqueId();
+		this.offlinePlayer = player;
+		this.onlinePlayer = (player.isOnline() ? player.getPlayer() : null);
 		this.currentQuests = new LinkedList<Quest>();
 		this.completedQuests = new LinkedList<String>();
 		this.history = new History();
 		
 		if (player.isOnline()) {
 			Player p = player.getPlayer();
-			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-					.contains(p.getWorld().getName())) {
+			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(p.getWorld())) {
 				questPortal = p.getWorld().getSpawnLocation();
 			}
 		}
@@ -360,6 +375,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	
 	public void addQuest(Quest quest) {
 		currentQuests.add(quest);
+		markDirty();
 		history.addHistoryEvent(new HistoryEvent("Accepted the quest " + ChatColor.DARK_PURPLE + quest.getName()));
 		if (focusQuest == null) {
 			setFocusQuest(quest.getName());
@@ -380,6 +396,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 			Quest q = it.next();
 			if (q.equals(quest)) {
 				it.remove();
+				markDirty();
 				if (focusQuest.equals(quest.getName())) {
 					if (currentQuests.isEmpty()) {
 						focusQuest = null;
@@ -395,10 +412,31 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		return false;
 	}
 	
+	/**
+	 * Lets go of a quest that's {@link Quest#hibernate() hibernating}. Unlike
+	 * {@link #removeQuest(Quest)}, the player is still on the quest; their focus and history
+	 * are left alone.
+	 * @param quest
+	 */
+	public void suspendQuest(Quest quest) {
+		currentQuests.remove(quest);
+	}
+
+	/**
+	 * Takes back a quest that's waking up from {@link #suspendQuest(Quest) hibernating}
+	 * @param quest
+	 */
+	public void resumeQuest(Quest quest) {
+		if (!currentQuests.contains(quest)) {
+			currentQuests.add(quest);
+		}
+	}
+
 	public void completeQuest(Quest quest) {
 		if (!completedQuests.contains(quest.getName())) {
 			completedQuests.add(quest.getName());			
 		}
+		markDirty();
 		removeQuest(quest);
 		
 		history.addHistoryEvent(
@@ -432,10 +470,12 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		if (fame > 0) {
 			this.alphaFame += fame;
 		}
+		markDirty();
 	}
 	
 	public void setFame(int fame) {
 		this.fame = fame;
+		markDirty();
 	}
 	
 	public Party getParty() {
@@ -488,9 +528,10 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	 */
 	public void setMoney(int money) {
 		this.money = money;
+		markDirty();
 		if (getPlayer().isOnline())
 		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-					.getWorlds().contains(getPlayer().getPlayer().getWorld().getName())) {
+					.isQuestWorld(getPlayer().getPlayer().getWorld())) {
 			getPlayer().getPlayer().setLevel(this.money);
 		}
 	}
@@ -501,9 +542,10 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	 */
 	public void addMoney(int money) {
 		this.money += money;
+		markDirty();
 		if (getPlayer().isOnline())
 			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-						.getWorlds().contains(getPlayer().getPlayer().getWorld().getName())) {
+						.isQuestWorld(getPlayer().getPlayer().getWorld())) {
 				getPlayer().getPlayer().setLevel(this.money);
 			}
 	}
@@ -513,6 +555,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		maxHp += hpIncrease;
 		maxMp += mpIncrease;
 		mp = maxMp;
+		markDirty();
 		if (getPlayer().isOnline()) {
 			Player p = getPlayer().getPlayer();
 			p.setMaxHealth(maxHp);
@@ -532,6 +575,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 
 	public void setTitle(String title) {
 		this.title = title;
+		markDirty();
 	}
 	
 	public void addTitle(String title) {
@@ -539,6 +583,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 			return;
 		}
 		this.unlockedTitles.add(title);
+		markDirty();
 		
 		if (!getPlayer().isOnline()) {
 			return;
@@ -570,6 +615,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 			return;
 		}
 		this.spells.add(spellName);
+		markDirty();
 		
 		if (!getPlayer().isOnline()) {
 			return;
@@ -675,10 +721,12 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 				(String) map.get("id")));
 		QuestPlayer qp = new QuestPlayer(player);
 		
-		if (map.get("portalloc") == null) {
-			qp.questPortal = null;
-		} else {
+		if (map.get("portalloc") instanceof LocationState) {
 			qp.questPortal = ((LocationState) map.get("portalloc")).getLocation();
+		} else if (map.get("portalloc") instanceof Location) {
+			qp.questPortal = (Location) map.get("portalloc");
+		} else {
+			qp.questPortal = null;
 		}
 		
 		qp.fame = (int) map.get("fame");
@@ -754,6 +802,28 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	public String getIDString() {
 		return getPlayer().getUniqueId().toString();
 	}
+	
+	/**
+	 * Marks this player as needing to be saved at the next checkpoint.<br />
+	 * Anything that changes saved information about the player should call this.
+	 */
+	public void markDirty() {
+		this.dirty = true;
+	}
+	
+	/**
+	 * @return Whether the player has changed since it was last saved
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+	
+	/**
+	 * Marks this player as saved
+	 */
+	public void markClean() {
+		this.dirty = false;
+	}
 
 	/**
 	 * @return the questPortal
@@ -767,9 +837,14 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	 */
 	public void setQuestPortal(Location questPortal) {
 		this.questPortal = questPortal;
+		markDirty();
 	}
 	
-	@EventHandler
+	/**
+	 * Handles this player going through a Multiverse portal.<br />
+	 * Called by the {@link PlayerEventRouter} only for events where this player is the teleportee.
+	 * @param e
+	 */
 	public void onPortal(MVPortalEvent e) {
 		
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getUsePortals()) {
@@ -780,41 +855,39 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 			return;
 		}
 			
-		if (e.getTeleportee().equals(getPlayer())) {
-			List<String> qworlds = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-					.getWorlds();
-			if (qworlds.contains(e.getFrom().getWorld().getName())) {
-				
-				//check that we aren't going TO antoher quest world
-				if (qworlds.contains(e.getDestination().getLocation(getPlayer().getPlayer()).getWorld().getName())) {
-					//we are! Don't interfere here
-					return;
-				}
-				
-				//we're leaving a quest world, so save the portal!
-				this.questPortal = e.getFrom();
-				
-				//player quit
-				onPlayerQuit();
+		PluginConfiguration pc = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration();
+		if (pc.isQuestWorld(e.getFrom().getWorld())) {
+			
+			//check that we aren't going TO antoher quest world
+			if (pc.isQuestWorld(e.getDestination().getLocation(getPlayer().getPlayer()).getWorld())) {
+				//we are! Don't interfere here
 				return;
 			}
-			if (qworlds.contains(e.getDestination().getLocation(getPlayer().getPlayer()).getWorld().getName())) {
-				//Before we warp to our old location, we need to make sure we HAVE one
-				if (this.questPortal == null) {
-					//this is our first time coming in, so just let the portal take us
-					//and save where it plops us out at
-					this.questPortal = e.getDestination().getLocation(getPlayer().getPlayer());
-					return;
-				}
-				
-				//we're moving TO a quest world, so actually go to our saved location
-				e.setCancelled(true);
-				getPlayer().getPlayer().teleport(questPortal);
+			
+			//we're leaving a quest world, so save the portal!
+			this.questPortal = e.getFrom();
+			markDirty();
+			
+			//player quit
+			onPlayerQuit();
+			return;
+		}
+		if (qworlds.contains(e.getDestination().getLocation(getPlayer().getPlayer()).getWorld().getName())) {
+			//Before we warp to our old location, we need to make sure we HAVE one
+			if (this.questPortal == null) {
+				//this is our first time coming in, so just let the portal take us
+				//and save where it plops us out at
+				this.questPortal = e.getDestination().getLocation(getPlayer().getPlayer());
+				markDirty();
+				return;
 			}
+			
+			//we're moving TO a quest world, so actually go to our saved location
+			e.setCancelled(true);
+			getPlayer().getPlayer().teleport(questPortal);
 		}
 	}
 
-	@EventHandler
 	public void onExp(PlayerExpChangeEvent e) {
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getXPMoney()) {
 			return;
@@ -825,12 +898,8 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 		Player p = getPlayer().getPlayer();
 		
-		if (!p.getUniqueId().equals(e.getPlayer().getUniqueId())) {
-			return;
-		}
-		
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(p.getWorld().getName())) {
+				.isQuestWorld(p.getWorld())) {
 			return;
 		}
 
@@ -846,7 +915,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		e.setAmount(0);
 	}
 	
-	@EventHandler
 	public void onPlayerInteract(PlayerInteractEvent e) {
 		
 		if (!getPlayer().isOnline()) {
@@ -855,10 +923,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 		Player p = getPlayer().getPlayer();
 		
-		if (!p.getUniqueId().equals(e.getPlayer().getUniqueId())) {
-			return;
-		}
-		
 		if (e.getItem() == null) {
 			return;
 		}
@@ -909,7 +973,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 	}
 	
-	@EventHandler
 	public void onPlayerDeath(PlayerDeathEvent e) {
 		if (!getPlayer().isOnline()) {
 			return;
@@ -917,16 +980,8 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 		Player p = getPlayer().getPlayer();
 		
-		if (!p.getUniqueId().equals(e.getEntity().getUniqueId())) {
-			return;
-		}
-		
-		System.out.println("ID's matched for " + p.getName() + " and " + e.getEntity().getName());
-		System.out.println(this.hashCode());
-		
-		
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(p.getWorld().getName())) {
+				.isQuestWorld(p.getWorld())) {
 			return;
 		}
 		
@@ -968,15 +1023,10 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 	}
 	
-	@EventHandler
 	public void onPlayerRespawn(PlayerRespawnEvent e) {
 
-		if (!getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {
-			return;
-		}
-
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(e.getRespawnLocation().getWorld().getName())) {
+				.isQuestWorld(e.getRespawnLocation().getWorld())) {
 			return;
 		}
 		
@@ -1002,11 +1052,8 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 	}
 	
-	@EventHandler
 	public void onPlayerQuit(PlayerQuitEvent e) {
-		if (e.getPlayer().getUniqueId().equals(getPlayer().getUniqueId())) {
-			onPlayerQuit();
-		}
+		onPlayerQuit();
 	}
 	
 	/**
@@ -1025,7 +1072,6 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		}
 	}
 	
-	@EventHandler
 	public void onPlayerInteractWithPlayer(PlayerInteractEntityEvent e) {
 		if (!getPlayer().isOnline()) {
 			return;
@@ -1033,12 +1079,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		
 		Player p = getPlayer().getPlayer();
 		
-		if (!p.getUniqueId().equals(e.getPlayer().getUniqueId())) {
-			return;
-		}
-		
-		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-				.contains(p.getWorld().getName())) {
+		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(p.getWorld())) {
 			return;
 		}
 		
@@ -1053,16 +1094,11 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 	
 	}
 	
-	@EventHandler
 	public void onPlayerRuinJournal(PlayerEditBookEvent e) {
 		if (!getPlayer().isOnline()) {
 			return;
 		}
 		
-		if (!e.getPlayer().equals(getPlayer().getPlayer())) {
-			return;
-		}
-		
 		BookMeta oldMeta = e.getPreviousBookMeta(),
 				newMeta = e.getNewBookMeta();
 		
@@ -1080,6 +1116,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 			}
 			pageNum++;
 			this.journalNotes.clear();
+			markDirty();
 			if (pageNum > newMeta.getPageCount()) {
 				//we went beyond what we have
 			} else {
@@ -1249,8 +1286,39 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		menu.show(getPlayer().getPlayer());
 	}
 	
+	/**
+	 * Returns the player this QuestPlayer wraps.<br />
+	 * While the player is online, this is their {@link Player}. Otherwise, a cached
+	 * OfflinePlayer is returned.
+	 * @return
+	 */
 	public OfflinePlayer getPlayer() {
-		return Bukkit.getOfflinePlayer(playerID);
+		if (onlinePlayer != null) {
+			return onlinePlayer;
+		}
+		
+		if (offlinePlayer == null) {
+			offlinePlayer = Bukkit.getOfflinePlayer(playerID);
+		}
+		
+		return offlinePlayer;
+	}
+	
+	/**
+	 * Returns the player if they're online, without any lookup
+	 * @return The online player, or null if they aren't online
+	 */
+	public Player getOnlinePlayer() {
+		return onlinePlayer;
+	}
+	
+	/**
+	 * Sets the online player this QuestPlayer wraps. Passing null marks the player as offline.<br />
+	 * This is kept up to date by the {@link com.SkyIsland.QuestManager.PlayerManager} as players join and quit.
+	 * @param player
+	 */
+	public void setOnlinePlayer(Player player) {
+		this.onlinePlayer = player;
 	}
 	
 	public Quest getFocusQuest() {
@@ -1275,6 +1343,7 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		for (Quest q : currentQuests) {
 			if (q.getName().equals(questName)) {
 				focusQuest = questName;
+				markDirty();
 				break;
 			}
 		}
@@ -1425,7 +1494,11 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 
 	@Override
 	public void addMP(int amount) {
+		int old = mp;
 		mp = Math.max(Math.min(maxMp, mp + amount), 0);
+		if (mp != old) {
+			markDirty();
+		}
 		
 		if (getPlayer().isOnline()) {
 			Player p = (Player) getPlayer();
@@ -1460,12 +1533,14 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		}
 	}
 	
-	@EventHandler
+	/**
+	 * Handles an entity being killed by this player.<br />
+	 * Called by the {@link PlayerEventRouter} only when this player is the killer.
+	 * @param e
+	 */
 	public void onEntityDeathEvent(EntityDeathEvent e) {
 		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicEnabled()
-		 && QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenKill() != 0)
-		if (e.getEntity().getKiller() != null && 
-				e.getEntity().getKiller().equals(getPlayer())) {
+		 && QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenKill() != 0) {
 			//we killed it; regen mana
 			int amt = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenKill();
 			regenMP(amt);
@@ -1473,56 +1548,49 @@ public class QuestPlayer implements Participant, Listener, MagicUser {
 		}
 	}
 	
-	@EventHandler
 	public void onFoodEat(PlayerItemConsumeEvent e) {
-		if (e.getPlayer().getUniqueId().equals(getPlayer().getUniqueId())) {
-			//do mana regen, if it counts as food
-			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicEnabled()
-					 && QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenFood() != 0)
-			switch (e.getItem().getType()) {
-			case RAW_BEEF:
-			case COOKED_BEEF:
-			case RAW_CHICKEN:
-			case COOKED_CHICKEN:
-			case APPLE:
-			case CARROT_ITEM:
-			case BAKED_POTATO:
-			case POTATO_ITEM:
-			case BREAD:
-			case COOKED_FISH:
-			case COOKED_MUTTON:
-			case COOKED_RABBIT:
-			case COOKIE:
-			case GRILLED_PORK:
-			case MELON:
-			case MUSHROOM_SOUP:
-			case MUTTON:
-			case PORK:
-			case PUMPKIN_PIE:
-			case RABBIT:
-			case RABBIT_STEW:
-			case RAW_FISH:	
-				int amt = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenFood();
-				regenMP(amt);	
-				break;
-			default:
-				break;
-			}
+		//do mana regen, if it counts as food
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicEnabled()
+				 && QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenFood() != 0)
+		switch (e.getItem().getType()) {
+		case RAW_BEEF:
+		case COOKED_BEEF:
+		case RAW_CHICKEN:
+		case COOKED_CHICKEN:
+		case APPLE:
+		case CARROT_ITEM:
+		case BAKED_POTATO:
+		case POTATO_ITEM:
+		case BREAD:
+		case COOKED_FISH:
+		case COOKED_MUTTON:
+		case COOKED_RABBIT:
+		case COOKIE:
+		case GRILLED_PORK:
+		case MELON:
+		case MUSHROOM_SOUP:
+		case MUTTON:
+		case PORK:
+		case PUMPKIN_PIE:
+		case RABBIT:
+		case RABBIT_STEW:
+		case RAW_FISH:	
+			int amt = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMagicRegenFood();
+			regenMP(amt);	
+			break;
+		default:
+			break;
 		}
 	}
 	
-	@EventHandler
 	public void onPlayerJoin(PlayerJoinEvent e) {
-		if (e.getPlayer().getUniqueId().equals(this.playerID)) {
-			refreshPlayer();
-		}
+		refreshPlayer();
 	}
 	
 	public void refreshPlayer() {
 		if (getPlayer().isOnline()) {
 			Player p = getPlayer().getPlayer();
-			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-					.contains(p.getWorld().getName())) {
+			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(p.getWorld())) {
 				
 				//go through with the update
 				p.setMaxHealth(maxHp);
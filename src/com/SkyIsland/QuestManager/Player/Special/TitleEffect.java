@@ -50,8 +50,7 @@ public class TitleEffect implements Alarmable<Integer> {
 	
 	@Override
 	public void alarm(Integer key) {
-		for (QuestPlayer qp : QuestManagerPlugin.questManagerPlugin.getPlayerManager().getPlayers()) {
-			if (qp.getPlayer().isOnline())
+		for (QuestPlayer qp : QuestManagerPlugin.questManagerPlugin.getPlayerManager().getOnlinePlayers()) {
 			if (qp.getTitle() != null)
 			if (qp.getTitle().contains("Slime King")) {
 				TitleEffectType.SLIMEKING.getEffect().run(qp.getPlayer().getPlayer().getLocation());
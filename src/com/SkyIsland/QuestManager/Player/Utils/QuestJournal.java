@@ -34,7 +34,7 @@ public class QuestJournal {
 			return;
 		}
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(qp.getPlayer().getPlayer().getWorld().getName())) {
+				.isQuestWorld(qp.getPlayer().getPlayer().getWorld())) {
 			return;
 		}
 		
@@ -88,7 +88,7 @@ public class QuestJournal {
 			return;
 		}
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(qp.getPlayer().getPlayer().getWorld().getName())) {
+				.isQuestWorld(qp.getPlayer().getPlayer().getWorld())) {
 			return;
 		}
 		
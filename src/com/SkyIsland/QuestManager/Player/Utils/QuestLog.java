@@ -36,7 +36,7 @@ public class QuestLog {
 			return;
 		}
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(qp.getPlayer().getPlayer().getWorld().getName())) {
+				.isQuestWorld(qp.getPlayer().getPlayer().getWorld())) {
 			return;
 		}
 		
@@ -90,7 +90,7 @@ public class QuestLog {
 			return;
 		}
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-				.getWorlds().contains(qp.getPlayer().getPlayer().getWorld().getName())) {
+				.isQuestWorld(qp.getPlayer().getPlayer().getWorld())) {
 			return;
 		}
 		
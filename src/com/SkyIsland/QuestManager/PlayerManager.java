@@ -3,76 +3,264 @@ package com.SkyIsland.QuestManager;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
 
 import com.SkyIsland.QuestManager.Configuration.PluginConfiguration;
 import com.SkyIsland.QuestManager.Configuration.Utils.GUID;
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.PlayerEventRouter;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Special.TitleEffect;
-import com.SkyIsland.QuestManager.Scheduling.IntervalScheduler;
+import com.SkyIsland.QuestManager.Quest.Quest;
+import com.SkyIsland.QuestManager.Scheduling.TickBudgetScheduler;
 import com.SkyIsland.QuestManager.Scheduling.Tickable;
+import com.SkyIsland.QuestManager.Storage.FilePlayerStore;
+import com.SkyIsland.QuestManager.Storage.PlayerStore;
 
 /**
- * Stores a database of QuestPlayers for lookup and loading
+ * Stores a database of QuestPlayers for lookup and loading.<br />
+ * Players and parties are kept in a {@link PlayerStore}, which saves each player on its own. Players
+ * keep track of whether they've changed since they were last saved, and only those that have are
+ * saved at each {@link #checkpoint() checkpoint}.<br />
+ * Players aren't all loaded up front. A player's save is read off of the main thread as they log in
+ * (see {@link #preload(UUID)}), or on demand when they're looked up. Players that have been offline
+ * for longer than the configured idle time are saved and dropped from memory, unless they're in a
+ * party or a running quest.
  * @author Skyler
  *
  */
 public class PlayerManager implements Tickable {
 	
+	/**
+	 * Periodically saves players that have changed
+	 */
+	private class CheckpointTask extends BukkitRunnable {
+		
+		@Override
+		public void run() {
+			checkpoint();
+		}
+		
+	}
+	
+	/**
+	 * Drops players that have been offline for too long
+	 */
+	private class EvictionTask extends BukkitRunnable {
+		
+		@Override
+		public void run() {
+			evictIdlePlayers();
+		}
+		
+	}
+	
+	/**
+	 * How often, in ticks, idle players are looked for
+	 */
+	private static final long evictionPeriod = 20 * 60;
+	
 	private Map<UUID, QuestPlayer> players;
 	
+	/**
+	 * Players read during login, waiting for their join to be picked up on the main thread
+	 */
+	private Map<UUID, QuestPlayer> preloaded;
+	
+	/**
+	 * When each loaded, offline player was last looked up or logged off
+	 */
+	private Map<UUID, Long> idleSince;
+	
+	private Map<UUID, QuestPlayer> onlinePlayers;
+	
 	private Map<GUID, Party> parties;
 	
 	private TitleEffect titleEffect;
 	
+	private PlayerEventRouter eventRouter;
+	
+	private PlayerStore store;
+	
+	private boolean partiesDirty;
+	
 	/**
-	 * Creates and loads player manager information from the provided configuration file.
-	 * @param config
+	 * Creates a player manager, loading parties and anyone already online from the store.<br />
+	 * If the old single-file player database is passed and exists, any players and parties in it
+	 * are moved over into the store, and it's renamed so it isn't read again.
+	 * @param store Where players and parties are kept
+	 * @param legacyFile The old player database. Can be null
 	 */
-	public PlayerManager(YamlConfiguration config) {
+	public PlayerManager(PlayerStore store, File legacyFile) {
 		
 		players = new HashMap<UUID, QuestPlayer>();
+		onlinePlayers = new LinkedHashMap<UUID, QuestPlayer>();
 		parties = new HashMap<GUID, Party>();
+		preloaded = new ConcurrentHashMap<UUID, QuestPlayer>();
+		idleSince = new HashMap<UUID, Long>();
 		
-		QuestManagerPlugin.questManagerPlugin.getLogger().info("Loading player database...");
+		this.store = store;
+		this.partiesDirty = false;
 		
-		ConfigurationSection pSex = config.getConfigurationSection("players");
+		QuestManagerPlugin.questManagerPlugin.getLogger().info("Loading player database...");
 		
-		if (!pSex.getKeys(false).isEmpty()) {
-		QuestPlayer player;
-			for (String key : pSex.getKeys(false)) {
-				player = (QuestPlayer) pSex.get(key);
-				players.put(UUID.fromString(player.getIDString()), player);
+		try {
+			for (Party party : store.loadParties()) {
+				parties.put(party.getID(), party);
 			}
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Unable to load parties!");
 		}
-			
-		ConfigurationSection gSex = config.getConfigurationSection("parties");
 		
-		if (!gSex.getKeys(false).isEmpty())
-		for (String key : gSex.getKeys(false)) {
-			parties.put(
-					GUID.valueOf(key), (Party) gSex.get(key));
+		if (legacyFile != null && legacyFile.exists()) {
+			migrate(legacyFile);
 		}
 		
 		//check if we need to do day/night regen
 		PluginConfiguration pc = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration();
 		if (pc.getMagicEnabled())
 		if (pc.getMagicRegenDay() != 0 || pc.getMagicRegenNight() != 0) {
-			IntervalScheduler.getScheduler().register(this);
+			TickBudgetScheduler.getScheduler().register(this);
+		}
+		
+		//pick up anyone already online (like after a reload)
+		for (Player p : Bukkit.getOnlinePlayers()) {
+			playerJoined(p);
 		}
 		
 		this.titleEffect = new TitleEffect();
 		
+		this.eventRouter = new PlayerEventRouter(this);
+		Bukkit.getPluginManager().registerEvents(eventRouter, QuestManagerPlugin.questManagerPlugin);
+		
+		int interval = pc.getCheckpointInterval();
+		if (interval > 0) {
+			new CheckpointTask().runTaskTimer(QuestManagerPlugin.questManagerPlugin,
+					interval * 20L, interval * 20L);
+		}
+		
+		if (pc.getPlayerIdleTime() > 0) {
+			new EvictionTask().runTaskTimer(QuestManagerPlugin.questManagerPlugin,
+					evictionPeriod, evictionPeriod);
+		}
+		
+	}
+	
+	/**
+	 * Moves players and parties from the old single-file database into the store.
+	 * Players and parties that already have been saved the new way are left alone.
+	 * @param legacyFile
+	 */
+	private void migrate(File legacyFile) {
+		YamlConfiguration config = new YamlConfiguration();
+		try {
+			config.load(legacyFile);
+		} catch (IOException | InvalidConfigurationException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to read old player database: " + legacyFile.getAbsolutePath());
+			return;
+		}
+		
+		int count = 0;
+		ConfigurationSection pSex = config.getConfigurationSection("players");
+		if (pSex != null)
+		for (String key : pSex.getKeys(false)) {
+			Object o = pSex.get(key);
+			if (!(o instanceof QuestPlayer)) {
+				continue;
+			}
+			
+			QuestPlayer player = (QuestPlayer) o;
+			UUID id = UUID.fromString(player.getIDString());
+			if (!players.containsKey(id) && !store.hasPlayer(id)) {
+				player.markDirty();
+				players.put(id, player);
+				count++;
+			}
+		}
+		
+		if (!store.hasParties()) {
+			for (Party party : FilePlayerStore.readParties(config)) {
+				parties.put(party.getID(), party);
+				partiesDirty = true;
+			}
+		}
+		
+		checkpoint();
+		
+		//only keep the ones that are online; the rest are loaded when they're needed
+		players.keySet().retainAll(onlinePlayers.keySet());
+		
+		File moved = new File(legacyFile.getPath() + ".migrated");
+		if (!legacyFile.renameTo(moved)) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to rename old player database. Please remove " + legacyFile.getAbsolutePath());
+		}
+		
+		QuestManagerPlugin.questManagerPlugin.getLogger().info(
+				"Moved " + count + " player(s) from the old player database into the player store");
+	}
+	
+	/**
+	 * Reads the player with the given ID from the store, if they've been saved.<br />
+	 * This is called on the login thread, and so only touches the store and the preload map. Whatever
+	 * is read is picked up on the main thread when the player joins or is looked up.
+	 * @param id
+	 */
+	public void preload(UUID id) {
+		if (preloaded.containsKey(id)) {
+			return;
+		}
+		
+		QuestPlayer player = readPlayer(id);
+		if (player != null) {
+			preloaded.put(id, player);
+		}
+	}
+	
+	/**
+	 * Finds the player with the given ID in memory, among preloaded players or in the store, in that order.
+	 * Players found outside of memory are added to it.
+	 * @param id
+	 * @return The player, or null if they've never been saved
+	 */
+	private QuestPlayer findPlayer(UUID id) {
+		QuestPlayer player = players.get(id);
+		if (player != null) {
+			preloaded.remove(id);
+			return player;
+		}
+		
+		player = preloaded.remove(id);
+		if (player == null) {
+			player = readPlayer(id);
+		}
+		
+		if (player != null) {
+			players.put(id, player);
+		}
+		
+		return player;
 	}
 	
 	/**
@@ -94,16 +282,120 @@ public class PlayerManager implements Tickable {
 	 * @return
 	 */
 	public QuestPlayer getPlayer(UUID id) {
-		if (players.containsKey(id)) {
-			return players.get(id);
+		QuestPlayer player = findPlayer(id);
+		Player online = Bukkit.getPlayer(id);
+		
+		if (player == null) {
+			//initialize a player!
+			player = new QuestPlayer(online == null ? Bukkit.getOfflinePlayer(id) : online);
+			player.markDirty();
+			players.put(id, player);
+		}
+		
+		if (online != null) {
+			if (!onlinePlayers.containsKey(id)) {
+				player.setOnlinePlayer(online);
+				onlinePlayers.put(id, player);
+			}
+		} else {
+			idleSince.put(id, System.currentTimeMillis());
 		}
 		
-		//initialize a player!
-		QuestPlayer player = new QuestPlayer(Bukkit.getOfflinePlayer(id));
-		players.put(id, player);
 		return player;
 	}
 	
+	/**
+	 * Marks the player as online, if we have a record for them.<br />
+	 * Called when the player joins.
+	 * @param player
+	 */
+	public void playerJoined(Player player) {
+		idleSince.remove(player.getUniqueId());
+		QuestPlayer qp = findPlayer(player.getUniqueId());
+		if (qp == null) {
+			return;
+		}
+		
+		qp.setOnlinePlayer(player);
+		onlinePlayers.put(player.getUniqueId(), qp);
+	}
+	
+	/**
+	 * Marks the player as offline. Called once the player has quit.
+	 * @param player
+	 */
+	public void playerQuit(Player player) {
+		QuestPlayer qp = onlinePlayers.remove(player.getUniqueId());
+		if (qp != null) {
+			qp.setOnlinePlayer(null);
+			idleSince.put(player.getUniqueId(), System.currentTimeMillis());
+		}
+	}
+	
+	/**
+	 * Saves and drops players that have been offline for longer than the configured idle time.<br />
+	 * Players in a party or taking part in a running quest are kept, since those hold on to them.
+	 * Login preloads for players that never joined are thrown out as well.
+	 * @return How many players were dropped
+	 */
+	public int evictIdlePlayers() {
+		long cutoff = System.currentTimeMillis() - (QuestManagerPlugin.questManagerPlugin
+				.getPluginConfiguration().getPlayerIdleTime() * 1000L);
+		
+		Set<QuestPlayer> busy = new HashSet<QuestPlayer>();
+		for (Quest quest : QuestManagerPlugin.questManagerPlugin.getManager().getRunningQuests()) {
+			if (quest.getParticipants() != null) {
+				busy.addAll(quest.getParticipants().getParticipants());
+			}
+		}
+		
+		int count = 0;
+		Iterator<Map.Entry<UUID, Long>> it = idleSince.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<UUID, Long> entry = it.next();
+			if (entry.getValue() > cutoff) {
+				continue;
+			}
+			
+			QuestPlayer qp = players.get(entry.getKey());
+			if (qp == null || onlinePlayers.containsKey(entry.getKey())) {
+				it.remove();
+				continue;
+			}
+			
+			if (qp.getParty() != null || busy.contains(qp)) {
+				continue;
+			}
+			
+			if (qp.isDirty() && !savePlayer(qp)) {
+				continue;
+			}
+			
+			players.remove(entry.getKey());
+			it.remove();
+			count++;
+		}
+		
+		Iterator<UUID> pit = preloaded.keySet().iterator();
+		while (pit.hasNext()) {
+			if (Bukkit.getPlayer(pit.next()) == null) {
+				pit.remove();
+			}
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Returns the QuestPlayer already loaded for the passed UUID.<br />
+	 * Unlike {@link #getPlayer(UUID)}, this method never creates a new record.
+	 * @param id
+	 * @return The loaded player, or null if there is none
+	 */
+	public QuestPlayer getLoadedPlayer(UUID id) {
+		return players.get(id);
+	}
+	
 	/**
 	 * Returns the party paired with the given ID.
 	 * <br />if the party doesn't exist, null is returned instead
@@ -120,10 +412,12 @@ public class PlayerManager implements Tickable {
 	
 	public void addParty(Party party) {
 		parties.put(party.getID(), party);
+		partiesDirty = true;
 	}
 	
 	public void removeParty(Party party) {
 		parties.remove(party.getID());
+		partiesDirty = true;
 	}
 	
 	public Participant getParticipant(String idString) {
@@ -140,42 +434,102 @@ public class PlayerManager implements Tickable {
 		return parties.values();
 	}
 	
+	/**
+	 * Returns the players currently held in memory. This includes everyone online, but not
+	 * offline players that haven't been looked up recently.
+	 * @return
+	 */
 	public Collection<QuestPlayer> getPlayers() {
 		return players.values();
 	}
 	
-	public void save(File saveFile) {
+	/**
+	 * Returns the QuestPlayers of everyone currently online.<br />
+	 * This is a live, unmodifiable view; it doesn't need to be looked up each time.
+	 * @return
+	 */
+	public Collection<QuestPlayer> getOnlinePlayers() {
+		return Collections.unmodifiableCollection(onlinePlayers.values());
+	}
+	
+	/**
+	 * Saves every player that has changed since it was last saved.<br />
+	 * Parties are few, and change members without telling the manager, so they're saved
+	 * whenever there are any (or whenever one has been added or removed).
+	 * @return How many players were saved
+	 */
+	public int checkpoint() {
+		int count = 0;
+		for (QuestPlayer qp : players.values()) {
+			if (qp.isDirty() && savePlayer(qp)) {
+				count++;
+			}
+		}
+		
+		if (partiesDirty || !parties.isEmpty()) {
+			saveParties();
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Saves everything that needs saving. Called when the plugin is disabled.<br />
+	 * Saves are only queued here; they're written by the {@link SaveQueue}.
+	 */
+	public void save() {
 		
 		QuestManagerPlugin.questManagerPlugin.getLogger().info(
 				"Saving player database...");
 		
-		YamlConfiguration config = new YamlConfiguration();
-		ConfigurationSection playSex = config.createSection("players");
-		
-		QuestPlayer qp;
-		if (!players.isEmpty()) {
-			for (UUID key : players.keySet()) {
-				qp = getPlayer(key);
-				String name = qp.getPlayer().getName();
-				playSex.set(name == null ? key.toString() : name + key.toString().substring(0, 5), getPlayer(key));
-			}
-		}
+		int count = checkpoint();
 		
-		ConfigurationSection gSex = config.createSection("parties");
-		if (!parties.isEmpty()) {
-			for (GUID key : parties.keySet()) {
-				if (key == null) {
-					continue;
-				}
-				gSex.set(key.toString(), getParty(key));
-			}
+		QuestManagerPlugin.questManagerPlugin.getLogger().info(
+				"Queued " + count + " changed player(s) of " + players.size() + " to be saved");
+	}
+	
+	/**
+	 * Reads the player with the given ID from the store
+	 * @param id
+	 * @return The player, or null if they haven't been saved or couldn't be read
+	 */
+	private QuestPlayer readPlayer(UUID id) {
+		try {
+			return store.loadPlayer(id);
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to load player " + id);
+			return null;
+		}
+	}
+	
+	/**
+	 * Snapshots the player and queues it to be saved
+	 * @param qp
+	 * @return Whether the player could be snapshotted
+	 */
+	private boolean savePlayer(QuestPlayer qp) {
+		try {
+			store.savePlayer(qp);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			return false;
 		}
 		
+		qp.markClean();
+		return true;
+	}
+	
+	private void saveParties() {
 		try {
-			config.save(saveFile);
-		} catch (IOException e) {
+			store.saveParties(parties.values());
+		} catch (RuntimeException e) {
 			e.printStackTrace();
+			return;
 		}
+		
+		partiesDirty = false;
 	}
 
 	@Override
@@ -183,10 +537,10 @@ public class PlayerManager implements Tickable {
 		PluginConfiguration pc = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration();
 		int day = pc.getMagicRegenDay();
 		int night = pc.getMagicRegenNight();
-		for (QuestPlayer qp : players.values()) {
+		for (QuestPlayer qp : onlinePlayers.values()) {
 			OfflinePlayer p = qp.getPlayer();
-			if (qp.getPlayer().isOnline() && QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-					.getWorlds().contains(p.getPlayer().getWorld().getName())) {
+			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
+					.isQuestWorld(p.getPlayer().getWorld())) {
 				//potential for regen
 				long time = p.getPlayer().getWorld().getTime();
 				Location ploc = p.getPlayer().getLocation();
@@ -210,4 +564,8 @@ public class PlayerManager implements Tickable {
 		return titleEffect;
 	}
 	
+	public PlayerEventRouter getEventRouter() {
+		return eventRouter;
+	}
+	
 }
@@ -0,0 +1,645 @@
+package com.SkyIsland.QuestManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.Configuration.State.GoalState;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Quest.Quest;
+import com.SkyIsland.QuestManager.Quest.History.History;
+import com.SkyIsland.QuestManager.Storage.QuestStateStore;
+
+/**
+ * Append-only journal of quest progress, so a crash doesn't lose everything since quests
+ * were last {@link Quest#stop() stopped}.<br />
+ * Quests record when they start, when their current goal's state changes, when they end and when
+ * they hibernate. Records are built on the main thread and collected in memory, then appended to
+ * the journal file and flushed to disk together every so often (a group commit) on the journal's
+ * own thread.<br />
+ * Every so often the journal is compacted: each running quest's latest state is saved to the
+ * {@link QuestStateStore} (where {@link QuestStateLoader} restores them from), the states of
+ * quests that have ended are removed, and the journal is started over with just the running
+ * quests in it. The journal is only started over once those saves have been written.<br />
+ * If the server goes down without stopping its quests, the journal is left behind, and is folded
+ * into the store by {@link #recover()} the next time the manager starts. Quest history isn't
+ * journaled, so recovered quests start their history over.<br />
+ * Only quests that would save state when stopped (those not run by a party) are journaled.
+ * @author Skyler
+ *
+ */
+public class ProgressJournal {
+
+	/**
+	 * The latest known state of a journaled quest
+	 */
+	private static class Entry {
+
+		private String questName;
+
+		private String participantID;
+
+		private int goalIndex;
+
+		private String goalState;
+
+		/**
+		 * The goal state as it was taken from the quest, if it was recorded while running
+		 */
+		private GoalState goal;
+
+		private Entry(String questName, String participantID) {
+			this.questName = questName;
+			this.participantID = participantID;
+			this.goalIndex = 0;
+			this.goalState = null;
+			this.goal = null;
+		}
+
+	}
+
+	/**
+	 * A single journal record. Records don't change once they're made.
+	 */
+	private static class Record {
+
+		private static final byte BEGIN = 1;
+
+		private static final byte PROGRESS = 2;
+
+		private static final byte END = 3;
+
+		private static final byte HIBERNATE = 4;
+
+		private final byte type;
+
+		private final String key;
+
+		private final String questName;
+
+		private final String participantID;
+
+		private final int goalIndex;
+
+		private final String goalState;
+
+		/**
+		 * The goal state the yaml was made from. Only records made while running have it; it isn't
+		 * written to the journal.
+		 */
+		private final GoalState goal;
+
+		private Record(byte type, String key, String questName, String participantID,
+				int goalIndex, String goalState, GoalState goal) {
+			this.type = type;
+			this.key = key;
+			this.questName = questName;
+			this.participantID = participantID;
+			this.goalIndex = goalIndex;
+			this.goalState = goalState;
+			this.goal = goal;
+		}
+
+		private static Record begin(String key, String questName, String participantID) {
+			return new Record(BEGIN, key, questName, participantID, 0, null, null);
+		}
+
+		private static Record progress(String key, int goalIndex, String goalState, GoalState goal) {
+			return new Record(PROGRESS, key, null, null, goalIndex, goalState, goal);
+		}
+
+		private static Record end(String key) {
+			return new Record(END, key, null, null, 0, null, null);
+		}
+
+		private static Record hibernate(String key) {
+			return new Record(HIBERNATE, key, null, null, 0, null, null);
+		}
+
+		/**
+		 * Writes this record as its length, its contents and a checksum of its contents
+		 * @param out
+		 * @throws IOException
+		 */
+		private void write(DataOutputStream out) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream body = new DataOutputStream(bytes);
+
+			body.writeByte(type);
+			body.writeUTF(key);
+			if (type == BEGIN) {
+				body.writeUTF(questName);
+				body.writeUTF(participantID);
+			} else if (type == PROGRESS) {
+				body.writeInt(goalIndex);
+				body.writeUTF(goalState);
+			}
+			body.flush();
+
+			byte[] data = bytes.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(data);
+
+			out.writeInt(data.length);
+			out.write(data);
+			out.writeInt((int) crc.getValue());
+		}
+
+		/**
+		 * Reads the next record
+		 * @param in
+		 * @return The record, or null if the journal ends here or the record is damaged
+		 * @throws IOException
+		 */
+		private static Record read(DataInputStream in) throws IOException {
+			byte[] data;
+			int checksum;
+			try {
+				int length = in.readInt();
+				if (length <= 0 || length > maxRecordSize) {
+					return null;
+				}
+
+				data = new byte[length];
+				in.readFully(data);
+				checksum = in.readInt();
+			} catch (EOFException e) {
+				//the last record was cut off part way through
+				return null;
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			if ((int) crc.getValue() != checksum) {
+				return null;
+			}
+
+			DataInputStream body = new DataInputStream(new ByteArrayInputStream(data));
+			byte type = body.readByte();
+			String key = body.readUTF();
+			switch (type) {
+			case BEGIN:
+				return begin(key, body.readUTF(), body.readUTF());
+			case PROGRESS:
+				return progress(key, body.readInt(), body.readUTF(), null);
+			case END:
+				return end(key);
+			case HIBERNATE:
+				return hibernate(key);
+			default:
+				return null;
+			}
+		}
+
+	}
+
+	/**
+	 * Records can't be any bigger than this, in bytes
+	 */
+	private static final int maxRecordSize = 1 << 20;
+
+	/**
+	 * How long to wait for the journal to finish up when it's closed, in seconds
+	 */
+	private static final long closeTimeout = 30;
+
+	private File journalFile;
+
+	private QuestStateStore store;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Records made on the main thread waiting to be committed
+	 */
+	private List<Record> buffer;
+
+	/**
+	 * Running quests, as of the last commit. Only touched on the journal thread.
+	 */
+	private Map<String, Entry> live;
+
+	/**
+	 * Quests that have ended since the last compaction. Only touched on the journal thread.
+	 */
+	private Set<String> ended;
+
+	private DataOutputStream out;
+
+	private FileOutputStream fileOut;
+
+	private volatile boolean open;
+
+	/**
+	 * Creates a journal in the given file. Nothing is recorded until it's {@link #start(long, long) started}.
+	 * @param journalFile
+	 * @param store Where quest states are saved
+	 */
+	public ProgressJournal(File journalFile, QuestStateStore store) {
+		this.journalFile = journalFile;
+		this.store = store;
+		this.buffer = new ArrayList<Record>();
+		this.live = new LinkedHashMap<String, Entry>();
+		this.ended = new HashSet<String>();
+		this.open = false;
+	}
+
+	/**
+	 * Folds a journal left behind by a crash into saved quest states, then removes it.<br />
+	 * Should be called before saved states are loaded.
+	 * @return How many quests were recovered
+	 */
+	public int recover() {
+		if (!journalFile.exists()) {
+			return 0;
+		}
+
+		int records = 0;
+		try (InputStream stream = new FileInputStream(journalFile)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+			Record record;
+			while ((record = Record.read(in)) != null) {
+				apply(record);
+				records++;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to read all of the progress journal; recovering what was read");
+		}
+
+		int count = fold();
+		QuestManagerPlugin.questManagerPlugin.getSaveQueue().flush();
+
+		if (!journalFile.delete()) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to remove progress journal: " + journalFile.getAbsolutePath());
+		}
+
+		live.clear();
+		QuestManagerPlugin.questManagerPlugin.getLogger().info(
+				"Recovered " + count + " quest(s) from " + records + " progress journal record(s)");
+		return count;
+	}
+
+	/**
+	 * Starts accepting records, committing them every commitInterval milliseconds and compacting
+	 * every compactInterval seconds.
+	 * @param commitInterval
+	 * @param compactInterval Zero or less never compacts while running
+	 */
+	public void start(long commitInterval, long compactInterval) {
+		try {
+			openJournal(true);
+		} catch (IOException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to open progress journal: " + journalFile.getAbsolutePath());
+			return;
+		}
+
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "QuestManager Journal Thread");
+			}
+		});
+
+		executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				commit();
+			}
+		}, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+
+		if (compactInterval > 0) {
+			executor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					compact();
+				}
+			}, compactInterval, compactInterval, TimeUnit.SECONDS);
+		}
+
+		open = true;
+	}
+
+	/**
+	 * Stops the journal. Whatever's been recorded is committed, state files of quests that have
+	 * ended are removed, and the journal file is deleted. This is meant to be called right before
+	 * running quests are {@link Quest#stop() stopped} and save their own state.
+	 */
+	public void close() {
+		if (!open) {
+			return;
+		}
+
+		open = false;
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(closeTimeout, TimeUnit.SECONDS)) {
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Progress journal didn't finish in time; leaving it to be recovered");
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		//the journal thread is done, so it's safe to finish up here
+		commit();
+		removeEnded();
+
+		try {
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		journalFile.delete();
+	}
+
+	/**
+	 * Records that the quest has started, along with its current state
+	 * @param quest
+	 */
+	public void begin(Quest quest) {
+		if (!shouldRecord(quest)) {
+			return;
+		}
+
+		String key = getKey(quest);
+		add(Record.begin(key, quest.getName(), quest.getParticipants().getIDString()));
+		progress(quest);
+	}
+
+	/**
+	 * Records the quest's current goal and the state of its requirements
+	 * @param quest
+	 */
+	public void progress(Quest quest) {
+		if (!shouldRecord(quest)) {
+			return;
+		}
+
+		QuestState state = quest.getState();
+		String goalState = state.getGoalState() == null ? ""
+				: state.getGoalState().asConfig().saveToString();
+		add(Record.progress(getKey(quest), state.getGoalIndex(), goalState, state.getGoalState()));
+	}
+
+	/**
+	 * Records that the quest is over, and shouldn't be restored
+	 * @param quest
+	 */
+	public void end(Quest quest) {
+		if (!shouldRecord(quest)) {
+			return;
+		}
+
+		add(Record.end(getKey(quest)));
+	}
+
+	/**
+	 * Records that the quest has been unloaded with its state saved, so it's left alone until it
+	 * {@link #begin(Quest) begins} again
+	 * @param quest
+	 */
+	public void hibernate(Quest quest) {
+		if (!shouldRecord(quest)) {
+			return;
+		}
+
+		add(Record.hibernate(getKey(quest)));
+	}
+
+	private boolean shouldRecord(Quest quest) {
+		return open && quest != null && quest.getParticipants() != null
+				&& !(quest.getParticipants() instanceof Party);
+	}
+
+	private void add(Record record) {
+		synchronized (buffer) {
+			buffer.add(record);
+		}
+	}
+
+	/**
+	 * The key a quest is journaled under, which is also the name of its state file
+	 * @param quest
+	 * @return
+	 */
+	public static String getKey(Quest quest) {
+		return quest.getName() + "_" + quest.getID();
+	}
+
+	/**
+	 * Appends everything recorded since the last commit to the journal and flushes it to disk.
+	 * Runs on the journal thread.<br />
+	 * A hibernating quest's state is queued to be saved before it's recorded as hibernating, but
+	 * once the record is committed the journal lets go of the quest. So if there are any, the
+	 * save queue is flushed first, and the quest is never left in neither place.
+	 */
+	private void commit() {
+		List<Record> records;
+		synchronized (buffer) {
+			if (buffer.isEmpty()) {
+				return;
+			}
+
+			records = new ArrayList<Record>(buffer);
+			buffer.clear();
+		}
+
+		for (Record record : records) {
+			if (record.type == Record.HIBERNATE) {
+				QuestManagerPlugin.questManagerPlugin.getSaveQueue().flush();
+				break;
+			}
+		}
+
+		try {
+			for (Record record : records) {
+				try {
+					record.write(out);
+				} catch (UTFDataFormatException e) {
+					QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+							"Quest state for " + record.key + " is too big to journal");
+				}
+			}
+			out.flush();
+			fileOut.getChannel().force(false);
+		} catch (IOException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to write to progress journal!");
+		}
+
+		for (Record record : records) {
+			apply(record);
+		}
+	}
+
+	/**
+	 * Folds the journal into saved states and starts it over with just the running quests.
+	 * Runs on the journal thread.
+	 */
+	private void compact() {
+		commit();
+		fold();
+		QuestManagerPlugin.questManagerPlugin.getSaveQueue().flush();
+
+		try {
+			out.close();
+			openJournal(false);
+			for (Map.Entry<String, Entry> e : live.entrySet()) {
+				Record.begin(e.getKey(), e.getValue().questName, e.getValue().participantID).write(out);
+				if (e.getValue().goalState != null) {
+					Record.progress(e.getKey(), e.getValue().goalIndex, e.getValue().goalState, null).write(out);
+				}
+			}
+			out.flush();
+			fileOut.getChannel().force(false);
+		} catch (IOException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to compact progress journal!");
+		}
+	}
+
+	private void openJournal(boolean append) throws IOException {
+		fileOut = new FileOutputStream(journalFile, append);
+		out = new DataOutputStream(new BufferedOutputStream(fileOut));
+	}
+
+	private void apply(Record record) {
+		switch (record.type) {
+		case Record.BEGIN:
+			live.put(record.key, new Entry(record.questName, record.participantID));
+			ended.remove(record.key);
+			break;
+		case Record.PROGRESS:
+			Entry entry = live.get(record.key);
+			if (entry != null) {
+				entry.goalIndex = record.goalIndex;
+				entry.goalState = record.goalState;
+				entry.goal = record.goal;
+			}
+			break;
+		case Record.END:
+			live.remove(record.key);
+			ended.add(record.key);
+			break;
+		case Record.HIBERNATE:
+			//its saved state is already more complete than anything journaled
+			live.remove(record.key);
+			break;
+		}
+	}
+
+	/**
+	 * Saves the state of each running quest and removes the states of ended ones
+	 * @return How many states were saved
+	 */
+	private int fold() {
+		int count = 0;
+		for (Map.Entry<String, Entry> e : live.entrySet()) {
+			if (e.getValue().goalState == null || e.getValue().goalState.isEmpty()) {
+				continue;
+			}
+
+			try {
+				store.saveState(e.getKey(), toState(e.getValue()));
+				count++;
+			} catch (InvalidConfigurationException | RuntimeException ex) {
+				ex.printStackTrace();
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Unable to save state for quest " + e.getKey());
+			}
+		}
+
+		removeEnded();
+
+		return count;
+	}
+
+	private void removeEnded() {
+		for (String key : ended) {
+			store.removeState(key);
+		}
+		ended.clear();
+	}
+
+	/**
+	 * Turns an entry back into a quest state.<br />
+	 * Entries recorded while running still have the goal state they were made from, and are used
+	 * as is; nothing is parsed, so this is safe on the journal thread. Entries read back from the
+	 * journal only have the yaml, so the entry is rendered in the format
+	 * {@link QuestState#read(YamlConfiguration)} reads, with the goal state nested under its key as
+	 * is, and read back. Parsing can deserialize locations, so that's only done by
+	 * {@link #recover()}, on the main thread.
+	 * @param entry
+	 * @return
+	 * @throws InvalidConfigurationException If the goal state can't be parsed
+	 */
+	private static QuestState toState(Entry entry) throws InvalidConfigurationException {
+		if (entry.goal != null) {
+			QuestState state = new QuestState();
+			state.setName(entry.questName);
+			state.setGoalIndex(entry.goalIndex);
+			state.setGoalState(entry.goal);
+			state.setParticipantID(entry.participantID);
+			state.setHistory(new History());
+			return state;
+		}
+
+		YamlConfiguration config = new YamlConfiguration();
+		config.set("saveTime", (new Date()).getTime());
+		config.set("name", entry.questName);
+		config.set("goalindex", entry.goalIndex);
+		config.set("participants", entry.participantID);
+
+		StringBuilder builder = new StringBuilder(config.saveToString());
+		builder.append("goalstate:\n");
+		for (String line : entry.goalState.split("\n")) {
+			if (!line.isEmpty()) {
+				builder.append("  ").append(line).append("\n");
+			}
+		}
+
+		YamlConfiguration parsed = new YamlConfiguration();
+		parsed.loadFromString(builder.toString());
+
+		QuestState state = new QuestState();
+		state.read(parsed);
+		return state;
+	}
+
+}
@@ -7,8 +7,6 @@ import java.util.NoSuchElementException;
 
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.State.GoalState;
@@ -40,58 +38,15 @@ public class Goal {
 //	}
 	
 	/**
-	 * Creates a goal from the provided goal configuration
+	 * Creates a goal from the provided goal configuration.<br />
+	 * Quest templates read their goals once through {@link GoalSpec}; this reads the configuration
+	 * from scratch each time.
 	 * @param config
 	 * @return
 	 * @throws InvalidConfigurationException 
 	 */
 	public static Goal fromConfig(Quest quest, ConfigurationSection config) throws InvalidConfigurationException {
-		/* goal construction configuration involves:
-		 * Goal name, description
-		 * The requirements that are in it
-		 * 
-		 * The req's are in a list, with each element being a con section with the
-		 * key being the type of req and the value being the config section for setting
-		 * up the req
-		 */
-		
-		if (!config.contains("type") || !config.getString("type").equals("goalcnf")) {
-			throw new InvalidConfigurationException();
-		}
-		
-		String name, description;
-		
-		name = config.getString("name");
-		description = config.getString("description");
-		
-
-		Goal goal = new Goal(quest, name, description);
-		
-		List<ConfigurationSection> reqs = new LinkedList<ConfigurationSection>();
-		for (String requirementKey : config.getConfigurationSection("requirements").getKeys(false)) {
-			reqs.add( config.getConfigurationSection("requirements")
-					.getConfigurationSection(requirementKey));
-		}
-		
-		for (ConfigurationSection req : reqs) {
-			String type = req.getKeys(false).iterator().next();
-			
-			ConfigurationSection conf = req.getConfigurationSection(type);
-			
-			
-			Requirement r = QuestManagerPlugin.questManagerPlugin.getRequirementManager()
-					.instanceRequirement(type, goal, conf);
-			
-			if (r == null) {
-				QuestManagerPlugin.questManagerPlugin.getLogger()
-					.warning("    Invalid requirement type for goal: " + goal.name);
-			}
-			
-			goal.addRequirement(r);
-		}
-		
-		return goal;
-		
+		return GoalSpec.compile(config).instantiate(quest);
 	}
 	
 	public Goal(Quest quest, String name, String description) {
@@ -138,7 +93,7 @@ public class Goal {
 		
 		for (Requirement req : requirements) {
 			if (req instanceof StatekeepingRequirement) {
-				state.addRequirementState(((StatekeepingRequirement) req).getState());
+				state.addRequirementState(req.getCurrentState());
 			}
 		}
 		
@@ -205,17 +160,40 @@ public class Goal {
 		}
 	}
 	
+	/**
+	 * Starts each of this goal's requirements. They stay dormant until a participant is online.
+	 * @see Requirement#start()
+	 */
+	public void start() {
+		for (Requirement req : requirements) {
+			req.start();
+		}
+	}
+	
+	/**
+	 * Puts this goal's requirements to sleep while none of the participants are online
+	 */
+	public void sleep() {
+		for (Requirement req : requirements) {
+			req.sleep();
+		}
+	}
+	
+	/**
+	 * Wakes this goal's dormant requirements back up
+	 */
+	public void wake() {
+		for (Requirement req : requirements) {
+			req.wake();
+		}
+	}
+	
 	/**
 	 * Perform cleanup before exiting/reloading
 	 */
 	public void stop() {
 		for (Requirement req : requirements) {
-			if (req instanceof StatekeepingRequirement) {
-				((StatekeepingRequirement) req).stop();
-			}
-			if (req instanceof Listener) {
-				HandlerList.unregisterAll((Listener) req);
-			}
+			req.deactivate();
 		}
 	}
 	
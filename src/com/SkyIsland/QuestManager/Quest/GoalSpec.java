@@ -0,0 +1,123 @@
+package com.SkyIsland.QuestManager.Quest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
+
+/**
+ * A goal's configuration, read and checked once when its quest template is loaded.<br />
+ * Holds the goal's name and description and a {@link RequirementSpec} for each of its
+ * requirements, so making a goal for a new quest doesn't have to go back to the configuration.
+ * @author Skyler
+ *
+ */
+public final class GoalSpec {
+
+	private final String name;
+
+	private final String description;
+
+	private final List<RequirementSpec> requirements;
+
+	private GoalSpec(String name, String description, List<RequirementSpec> requirements) {
+		this.name = name;
+		this.description = description;
+		this.requirements = Collections.unmodifiableList(requirements);
+	}
+
+	/**
+	 * Reads a goal spec from the provided goal configuration.<br />
+	 * A goal with a requirement that can't be read is rejected as a whole, rather than left to be
+	 * completed without it.
+	 * @param config
+	 * @return
+	 * @throws InvalidConfigurationException If the section isn't a goal configuration, or one of
+	 * its requirements is of an unknown type or is configured wrong
+	 */
+	public static GoalSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+		/* goal construction configuration involves:
+		 * Goal name, description
+		 * The requirements that are in it
+		 *
+		 * The req's are in a list, with each element being a con section with the
+		 * key being the type of req and the value being the config section for setting
+		 * up the req
+		 */
+
+		if (!config.contains("type") || !config.getString("type").equals("goalcnf")) {
+			throw new InvalidConfigurationException();
+		}
+
+		String name = config.getString("name");
+		String description = config.getString("description");
+
+		List<RequirementSpec> specs = new ArrayList<RequirementSpec>();
+		ConfigurationSection reqSection = config.getConfigurationSection("requirements");
+
+		if (reqSection != null)
+		for (String requirementKey : reqSection.getKeys(false)) {
+			ConfigurationSection req = reqSection.getConfigurationSection(requirementKey);
+			String type = req.getKeys(false).iterator().next();
+
+			RequirementSpec spec;
+			try {
+				spec = QuestManagerPlugin.questManagerPlugin.getRequirementManager()
+						.compileRequirement(type, req.getConfigurationSection(type));
+			} catch (InvalidConfigurationException e) {
+				QuestManagerPlugin.questManagerPlugin.getLogger()
+					.warning("    Invalid [" + type + "] requirement for goal: " + name);
+				throw e;
+			}
+
+			if (spec == null) {
+				throw new InvalidConfigurationException("Invalid requirement type [" + type
+						+ "] for goal: " + name);
+			}
+
+			specs.add(spec);
+		}
+
+		return new GoalSpec(name, description, specs);
+	}
+
+	/**
+	 * Creates a new goal for the given quest, with a fresh requirement from each requirement spec
+	 * @param quest
+	 * @return
+	 */
+	public Goal instantiate(Quest quest) {
+		Goal goal = new Goal(quest, name, description);
+
+		for (RequirementSpec spec : requirements) {
+			Requirement r = spec.instantiate(goal);
+			if (r != null) {
+				goal.addRequirement(r);
+			}
+		}
+
+		return goal;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return An unmodifiable list of this goal's requirement specs
+	 */
+	public List<RequirementSpec> getRequirements() {
+		return requirements;
+	}
+
+}
@@ -1,18 +1,12 @@
 package com.SkyIsland.QuestManager.Quest;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.inventory.ItemStack;
 
@@ -29,7 +23,6 @@ import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.History.History;
 import com.SkyIsland.QuestManager.Quest.History.HistoryEvent;
 import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
-import com.SkyIsland.QuestManager.Quest.Requirements.RequirementUpdateEvent;
 import com.SkyIsland.QuestManager.UI.ChatMenu;
 import com.SkyIsland.QuestManager.UI.Menu.SimpleChatMenu;
 
@@ -58,7 +51,7 @@ import com.SkyIsland.QuestManager.UI.Menu.SimpleChatMenu;
  * @author Skyler
  *
  */
-public class Quest implements Listener {
+public class Quest {
 	
 	private static int NEXTID;
 	
@@ -107,6 +100,17 @@ public class Quest implements Listener {
 		NEXTID = 0;
 	}
 	
+	/**
+	 * Makes sure quests made from now on get an ID of at least the one passed, so they don't share
+	 * a state file with one that's already on disk
+	 * @param id
+	 */
+	public static void reserveIDs(int id) {
+		if (id > NEXTID) {
+			NEXTID = id;
+		}
+	}
+	
 	private static int nextID() {
 		return NEXTID++;
 	}
@@ -141,8 +145,6 @@ public class Quest implements Listener {
 		itemRewards = new LinkedList<ItemStack>();
 		
 		this.ID = Quest.nextID();
-		
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
 	}
 	
 	public void removePlayer(QuestPlayer player) {
@@ -160,6 +162,18 @@ public class Quest implements Listener {
 	 * @throws  
 	 */
 	public void loadState(QuestState state) throws InvalidConfigurationException {
+		loadState(state, false);
+	}
+	
+	/**
+	 * Loads quest/objective/requirement state from the provided state.<br />
+	 * Quests that are resuming after {@link #hibernate() hibernating} are handed back to their
+	 * participants as they were, instead of being accepted all over again.
+	 * @param state
+	 * @param resume Whether the quest is waking back up rather than being restored
+	 * @throws InvalidConfigurationException
+	 */
+	public void loadState(QuestState state, boolean resume) throws InvalidConfigurationException {
 		
 		if (!template.getName().equals(state.getName())) {
 			QuestManagerPlugin.questManagerPlugin.getLogger()
@@ -172,7 +186,11 @@ public class Quest implements Listener {
 		this.participant = state.getParticipant();
 		if (this.participant != null) {
 			for (QuestPlayer qp : participant.getParticipants()) {
-				qp.addQuest(this);
+				if (resume) {
+					qp.resumeQuest(this);
+				} else {
+					qp.addQuest(this);
+				}
 			}
 		}
 		
@@ -188,10 +206,7 @@ public class Quest implements Listener {
 			goal = goals.get(goalIndex);
 		}
 		goal.loadState(state.getGoalState());
-		
-		for (Requirement req : goal.getRequirements()) {
-			req.activate();
-		}
+		goal.start();
 		
 		history = state.getHistory();
 		
@@ -331,23 +346,14 @@ public class Quest implements Listener {
 	 */
 	public void stop() {
 		
-		HandlerList.unregisterAll(this);
-		
 		if (!(participant instanceof Party)) {
 			//get config location!
-			File saveLoc = new File(QuestManagerPlugin.questManagerPlugin.getManager()
-					.getSaveLocation(), template.getName() + "_" + ID + ".yml");
+			String key = template.getName() + "_" + ID;
 			
 			QuestState state = getState();
 
-			QuestManagerPlugin.questManagerPlugin.getLogger().info("Saving quest state: " + 
-					saveLoc.getAbsolutePath());
-			try {
-				state.save(saveLoc);
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+			QuestManagerPlugin.questManagerPlugin.getLogger().info("Saving quest state: " + key);
+			QuestManagerPlugin.questManagerPlugin.getManager().getStateStore().saveState(key, state);
 		}
 		
 		if (!goals.isEmpty()) {	
@@ -380,8 +386,6 @@ public class Quest implements Listener {
 	 */
 	public void halt() {
 		
-		HandlerList.unregisterAll(this);
-		
 		if (participant.getParticipants().isEmpty()) {
 			return;
 		}
@@ -413,6 +417,41 @@ public class Quest implements Listener {
 		return template;
 	}
 	
+	/**
+	 * Puts the quest to sleep while nobody taking part in it is online.<br />
+	 * Its current goal's requirements stop listening and ticking, and its participants let go of
+	 * it, without it counting as leaving the quest. The caller is expected to have saved the quest's
+	 * {@link #getState() state} first, so it can be {@link #loadState(QuestState, boolean) resumed}.
+	 */
+	public void hibernate() {
+		if (!goals.isEmpty()) {
+			getCurrentGoal().stop();
+		}
+		
+		if (participant != null)
+		for (QuestPlayer qp : participant.getParticipants()) {
+			qp.suspendQuest(this);
+		}
+	}
+	
+	/**
+	 * Puts the current goal's requirements to sleep while none of the participants are online
+	 */
+	public void sleep() {
+		if (!goals.isEmpty()) {
+			getCurrentGoal().sleep();
+		}
+	}
+	
+	/**
+	 * Wakes the current goal's requirements back up once a participant is online again
+	 */
+	public void wake() {
+		if (!goals.isEmpty()) {
+			getCurrentGoal().wake();
+		}
+	}
+	
 	/**
 	 * Returns the name of the quest, including text formatters and colors.
 	 * @return The name of the quest
@@ -619,24 +658,29 @@ public class Quest implements Listener {
 		this.moneyReward = moneyReward;
 	}
 
-	@EventHandler
-	public void onRequirementUpdate(RequirementUpdateEvent e) {
-		if (e.getRequirement() == null || e.getRequirement().getGoal().getQuest().equals(this)) {
-			if (keepState && ready) {
-				return;
-			}
-			
-			
-			update();
+	/**
+	 * Called by one of this quest's requirements when its state changes.<br />
+	 * Re-evaluates the current goal and refreshes the quest books of everyone involved.
+	 * @param requirement The requirement that changed. Null forces an update
+	 */
+	public void onRequirementUpdate(Requirement requirement) {
+		if (keepState && ready) {
+			return;
+		}
+		
+		update();
+		
+		QuestManagerPlugin.questManagerPlugin.getManager().recordProgress(this);
 
-			for (QuestPlayer p : participant.getParticipants()) {
-				p.updateQuestBook(false);
-			}
+		for (QuestPlayer p : participant.getParticipants()) {
+			p.updateQuestBook(false);
 		}
-		System.out.println();
 	}
 	
-	@EventHandler
+	/**
+	 * Called by the {@link com.SkyIsland.QuestManager.QuestManager QuestManager} when a party disbands
+	 * @param e
+	 */
 	public void onPartyDisband(PartyDisbandEvent e) {
 		if (e.getParty().getIDString().equals(participant.getIDString())) {
 			if (template.getRequireParty()) {
@@ -657,7 +701,11 @@ public class Quest implements Listener {
 		}
 	}
 	
-	@EventHandler
+	/**
+	 * Called by the {@link com.SkyIsland.QuestManager.QuestManager QuestManager} when one of this
+	 * quest's participants dies
+	 * @param e
+	 */
 	public void onPlayerDeath(PlayerDeathEvent e) {
 		if (participant == null) {
 			return;
@@ -748,10 +796,7 @@ public class Quest implements Listener {
 			
 		}
 		
-		Goal goal = goals.get(goalIndex);
-		for (Requirement req : goal.getRequirements()) {
-			req.activate();
-		}
+		goals.get(goalIndex).start();
 		
 		tellParticipants("You've completed your current objective for the quest " + ChatColor.GOLD + this.getName() + ChatColor.RESET);
 	}
@@ -1,16 +1,12 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerMoveEvent;
 
-import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
 import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
@@ -19,6 +15,7 @@ import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement that a participant must arrive at a location (or be within some radius of it)<br />
@@ -27,7 +24,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
  * @author Skyler
  * @see {@link PositionRequirement}
  */
-public class ArriveRequirement extends Requirement implements Listener, StatekeepingRequirement, CompassTrackable {
+public class ArriveRequirement extends Requirement implements StatekeepingRequirement, CompassTrackable {
 	
 	public static class ArriveFactory extends RequirementFactory<ArriveRequirement> {
 
@@ -42,6 +39,46 @@ public class ArriveRequirement extends Requirement implements Listener, Statekee
 			return req;
 		}
 		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new ArriveSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * An arrive requirement's configuration, read and checked ahead of time
+	 */
+	public static class ArriveSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final double targetRange;
+		
+		private final Location destination;
+		
+		public ArriveSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			// same of Position Requirements's loading
+			//  type: "arrr"
+			//  range: [double]
+			//  destination: [location]
+				
+			if (!config.contains("type") || !config.getString("type").equals("arrr")) {
+				throw new InvalidConfigurationException();
+			}
+			
+			this.description = config.getString("description", "Arrive at the location");
+			this.targetRange = config.getDouble("range", 1.0);
+			this.destination = ((LocationState) config.get("destination")).getLocation();
+		}
+		
+		@Override
+		public ArriveRequirement instantiate(Goal goal) {
+			ArriveRequirement req = new ArriveRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 		
 	
@@ -75,7 +112,7 @@ public class ArriveRequirement extends Requirement implements Listener, Statekee
 	
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerMoveEvent.class);
 	}
 
 	/**
@@ -99,18 +136,23 @@ public class ArriveRequirement extends Requirement implements Listener, Statekee
 		return targetRange;
 	}
 	
-	@EventHandler
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerMoveEvent) {
+			onPlayerMove((PlayerMoveEvent) e);
+		}
+	}
+	
+	/**
+	 * Called when one of our participants moves
+	 * @param e
+	 */
 	public void onPlayerMove(PlayerMoveEvent e) {
 		if (participants == null) {
 			return;
 		}
 		
-		for (QuestPlayer qp : participants.getParticipants()) {
-			if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {	
-				update();
-				return;
-			}
-		}
+		update();
 	}
 	
 	/**
@@ -131,7 +173,7 @@ public class ArriveRequirement extends Requirement implements Listener, Statekee
 				updateQuest();
 				
 				//unregister listener, cause we'll never switch to unsatisfied
-				HandlerList.unregisterAll(this);
+				stopListening();
 				return;
 			}
 		}
@@ -140,21 +182,14 @@ public class ArriveRequirement extends Requirement implements Listener, Statekee
 	}
 
 	@Override
-	public void fromConfig(ConfigurationSection config)
-			throws InvalidConfigurationException {
-		// same of Position Requirements's loading
-		//  type: "arrr"
-		//  range: [double]
-		//  destination: [location]
-			
-		if (!config.contains("type") || !config.getString("type").equals("arrr")) {
-			throw new InvalidConfigurationException();
-		}
-		
-		this.desc = config.getString("description", "Arrive at the location");
-		this.targetRange = config.getDouble("range", 1.0);
-		this.destination = ((LocationState) config.get("destination")).getLocation();
-		
+	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
+		apply(new ArriveSpec(config));
+	}
+	
+	private void apply(ArriveSpec spec) {
+		this.desc = spec.description;
+		this.targetRange = spec.targetRange;
+		this.destination = (spec.destination == null ? null : spec.destination.clone());
 	}
 
 	@Override
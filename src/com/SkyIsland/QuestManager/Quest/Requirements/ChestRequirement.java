@@ -1,13 +1,11 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.Inventory;
 
@@ -15,17 +13,17 @@ import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
 import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Configuration.Utils.Chest;
-import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement that a participant must interact (right click or left click or both) a certain block.
  * @author Skyler
  *
  */
-public class ChestRequirement extends Requirement implements Listener, StatekeepingRequirement, CompassTrackable {
+public class ChestRequirement extends Requirement implements StatekeepingRequirement, CompassTrackable {
 	
 	public static class ChestRequirementFactory extends RequirementFactory<ChestRequirement> {
 		
@@ -38,6 +36,48 @@ public class ChestRequirement extends Requirement implements Listener, Statekeep
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new ChestSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A chest requirement's configuration, read and checked ahead of time
+	 */
+	public static class ChestSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final Chest chest;
+		
+		public ChestSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			/*
+			 * type: chestr
+			 * chest: [chest]
+			 */
+			
+			if (!config.contains("type") || !config.getString("type").equals("chestr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'chestr' but got " + config.get("type", "null"));
+			}
+			
+			if (!config.contains("chest")) {
+				throw new InvalidConfigurationException("\nChest configuration did not contain chest information!");
+			}
+			
+			this.chest = (Chest) config.get("chest");
+			this.description = config.getString("description", "Search the chest");
+		}
+		
+		@Override
+		public ChestRequirement instantiate(Goal goal) {
+			ChestRequirement req = new ChestRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private Chest chest;
@@ -61,7 +101,7 @@ public class ChestRequirement extends Requirement implements Listener, Statekeep
 	@Override
 	public void activate() {
 		chest.getLocation().getBlock().setType(chest.getMaterial());
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerInteractEvent.class);
 	}
 
 	public void setChest(Chest chest) {
@@ -69,11 +109,17 @@ public class ChestRequirement extends Requirement implements Listener, Statekeep
 		this.chest = chest;
 	}
 
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerInteractEvent) {
+			onInteract((PlayerInteractEvent) e);
+		}
+	}
+
 	/**
-	 * Catches a player's interaction and sees if it's with our 'chest'
+	 * Catches one of our participants' interactions and sees if it's with our 'chest'
 	 * @param e
 	 */
-	@EventHandler
 	public void onInteract(PlayerInteractEvent e) {
 		
 		if (e.getClickedBlock() == null) {
@@ -82,27 +128,20 @@ public class ChestRequirement extends Requirement implements Listener, Statekeep
 		
 		sync();
 		
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-				.contains(e.getPlayer().getPlayer().getWorld().getName())) {
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().isOnline() && qp.getPlayer().getPlayer().getUniqueId()
-						.equals(e.getPlayer().getUniqueId())) {
-					//one of our participants
-					//actually check interaction now
-					if (e.getClickedBlock().getLocation().equals(chest.getLocation().getBlock().getLocation())) {
-						
-						//actually give them an/the inventory
-						if (inv == null) {
-							inv = chest.getInventory(e.getPlayer());
-						}
-						e.setCancelled(true);
-						e.getPlayer().openInventory(inv);
-						
-						if (!state) {
-							state = true;
-							updateQuest();
-						}
-					}
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(e.getPlayer().getPlayer().getWorld())) {
+			//actually check interaction now
+			if (e.getClickedBlock().getLocation().equals(chest.getLocation().getBlock().getLocation())) {
+				
+				//actually give them an/the inventory
+				if (inv == null) {
+					inv = chest.getInventory(e.getPlayer());
+				}
+				e.setCancelled(true);
+				e.getPlayer().openInventory(inv);
+				
+				if (!state) {
+					state = true;
+					updateQuest();
 				}
 			}
 		}
@@ -145,22 +184,13 @@ public class ChestRequirement extends Requirement implements Listener, Statekeep
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		/*
-		 * type: chestr
-		 * chest: [chest]
-		 */
-		
-		if (!config.contains("type") || !config.getString("type").equals("chestr")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'chestr' but got " + config.get("type", "null"));
-		}
-		
-		if (!config.contains("chest")) {
-			throw new InvalidConfigurationException("\nChest configuration did not contain chest information!");
-		}
-		
-		this.chest = (Chest) config.get("chest");
+		apply(new ChestSpec(config));
+	}
+	
+	private void apply(ChestSpec spec) {
+		this.chest = spec.chest;
 		this.inv = null;
-		this.desc = config.getString("description", "Search the chest");
+		this.desc = spec.description;
 	}
 	
 	public void stop() {
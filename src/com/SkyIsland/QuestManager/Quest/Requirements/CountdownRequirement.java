@@ -12,15 +12,20 @@ import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
-import com.SkyIsland.QuestManager.Scheduling.IntervalScheduler;
-import com.SkyIsland.QuestManager.Scheduling.Tickable;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
+import com.SkyIsland.QuestManager.Scheduling.Alarm;
+import com.SkyIsland.QuestManager.Scheduling.Alarmable;
 
 /**
- * Requires a certain amount of time to pass before satisfied
+ * Requires a certain amount of time to pass before satisfied.<br />
+ * Instead of checking the clock every tick, an active countdown sets an {@link Alarm} for when it
+ * ends. The alarm counts server ticks, so it goes off late when the server falls behind; long
+ * countdowns wait at most {@link #maxWait} seconds at a time and check the clock in between, so
+ * they can't drift by more than the server falls behind over that last stretch.
  * @author Skyler
  *
  */
-public class CountdownRequirement extends Requirement implements Tickable, StatekeepingRequirement {
+public class CountdownRequirement extends Requirement implements Alarmable<Integer>, StatekeepingRequirement {
 	
 	public static class CountdownFactory extends RequirementFactory<CountdownRequirement> {
 		
@@ -34,12 +39,54 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new CountdownSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A countdown requirement's configuration, read and checked ahead of time
+	 */
+	public static class CountdownSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final int delay;
+		
+		public CountdownSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//our config is 
+			//  type: "countdownr"
+			//  delay: <long> second offset
+			
+			if (!config.contains("type") || !config.getString("type").equals("countdownr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'countdownr' but got " + config.getString("type", "null"));
+			}
+			
+			this.description = config.getString("description", "Wait for a period");
+			this.delay = config.getInt("delay", 10);
+		}
+		
+		@Override
+		public CountdownRequirement instantiate(Goal goal) {
+			CountdownRequirement req = new CountdownRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private Date targetTime;
 	
 	private int delay;
 	
+	/**
+	 * The longest a countdown waits before checking the clock again, in seconds
+	 */
+	private static final double maxWait = 60.0;
+	
 	private CountdownRequirement(Goal goal) {
 		super(goal);
 	}
@@ -54,18 +101,35 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 	
 	@Override
 	public void activate() {
-		Calendar cal = Calendar.getInstance();
-		cal.clear();
-		cal.setTime(new Date());
-		cal.add(Calendar.SECOND, delay);
-		this.targetTime = cal.getTime();
-		IntervalScheduler.getScheduler().register(this);
+		if (state) {
+			return;
+		}
+		
+		//restored countdowns pick up where they left off
+		boolean starting = (targetTime == null);
+		long left = getTargetTime().getTime() - System.currentTimeMillis();
+		if (starting) {
+			stateChanged();
+		}
+		
+		//even countdowns that are already up wait a tick, so the goal is finished starting
+		Alarm.getScheduler().schedule(this, 0, Math.min(maxWait, Math.max(0.05, left / 1000.0)));
 	}
 	
 	/**
+	 * Returns when the countdown ends. Countdowns start the first time this is asked, which
+	 * is when they're activated unless they've been dormant since they started.
 	 * @return the targetTime
 	 */
 	public Date getTargetTime() {
+		if (targetTime == null) {
+			Calendar cal = Calendar.getInstance();
+			cal.clear();
+			cal.setTime(new Date());
+			cal.add(Calendar.SECOND, delay);
+			this.targetTime = cal.getTime();
+		}
+		
 		return targetTime;
 	}
 
@@ -74,6 +138,7 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 	 */
 	public void setTargetTime(Date targetTime) {
 		this.targetTime = targetTime;
+		stateChanged();
 	}
 
 	/**
@@ -91,9 +156,7 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 			return;
 		}
 		
-		Date current = new Date();
-		
-		if (current.after(targetTime)) {
+		if (System.currentTimeMillis() > getTargetTime().getTime()) {
 			state = true;
 			updateQuest();
 		}
@@ -102,30 +165,33 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		//we'll need start and end times
-		//our config is 
-		//  type: "countdownr"
-		//  delay: <long> second offset
-		
-		if (!config.contains("type") || !config.getString("type").equals("countdownr")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'countdownr' but got " + config.getString("type", "null"));
-		}
-
-		desc = config.getString("description", "Wait for a period");
-		delay = config.getInt("delay", 10);
-		
+		apply(new CountdownSpec(config));
+	}
+	
+	private void apply(CountdownSpec spec) {
+		this.desc = spec.description;
+		this.delay = spec.delay;
 	}
 
+	/**
+	 * Called by the {@link Alarm} when the countdown should be up, or when it's time to check the
+	 * clock on a long one
+	 */
 	@Override
-	public void tick() {
+	public void alarm(Integer reference) {
 		update();
+		
+		//not up by the clock yet; wait out what's left
+		if (!state) {
+			activate();
+		}
 	}
 
 	@Override
 	public RequirementState getState() {
 		YamlConfiguration config = new YamlConfiguration();
 		
-		config.set("targetTime", targetTime.getTime());
+		config.set("targetTime", getTargetTime().getTime());
 		
 		RequirementState data = new RequirementState(config);
 		
@@ -159,7 +225,7 @@ public class CountdownRequirement extends Requirement implements Tickable, State
 		String ret = this.desc;
 		if (!state) {
 			ret += " (";
-			long left = targetTime.getTime() - date.getTime();
+			long left = getTargetTime().getTime() - date.getTime();
 			boolean mins = true;
 			long value = left / 60000; //get minutes
 			if (value == 0) {
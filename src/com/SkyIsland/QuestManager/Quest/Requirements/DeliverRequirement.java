@@ -5,9 +5,7 @@ import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
 import org.bukkit.inventory.Inventory;
@@ -20,13 +18,14 @@ import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement specification that checks for an itemstack and removes it when it's there
  * @author Skyler
  *
  */
-public class DeliverRequirement extends Requirement implements Listener,  StatekeepingRequirement {
+public class DeliverRequirement extends Requirement implements StatekeepingRequirement {
 	
 	public static class DeliverFactory extends RequirementFactory<DeliverRequirement> {
 		
@@ -40,6 +39,61 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new DeliverSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A deliver requirement's configuration, read and checked ahead of time
+	 */
+	public static class DeliverSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final Material itemType;
+		
+		private final int itemCount;
+		
+		private final String itemName;
+		
+		public DeliverSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//our config is 
+			//  type: "delr"
+			//  itemYype: (Material. ENUM CONSTANT NAME)
+			//  count: [int]
+			//  name: [string]
+			
+			if (!config.contains("type") || !config.getString("type").equals("delr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'delr' but got " + config.getString("type", "null"));
+			}
+			
+			try {
+				this.itemType = Material.valueOf(
+						config.getString("itemType", "AIR"));
+			} catch (IllegalArgumentException e) {
+				throw new InvalidConfigurationException("\n  ---Unknown item type: " + config.getString("itemType"));
+			}
+			
+			this.itemCount = config.getInt("count", 1);
+			
+			String name = config.getString("name", "");
+			this.itemName = (name.trim().isEmpty() ? null : name);
+			
+			this.description = config.getString("description", "Collect " + itemCount + " " +
+					itemName == null ? itemType.toString() : itemName);
+		}
+		
+		@Override
+		public DeliverRequirement instantiate(Goal goal) {
+			DeliverRequirement req = new DeliverRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private Material itemType;
@@ -80,7 +134,8 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 	
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerPickupItemEvent.class);
+		listen(PlayerDropItemEvent.class);
 	}
 
 	/**
@@ -97,7 +152,19 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 		return itemCount;
 	}
 	
-	@EventHandler
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerPickupItemEvent) {
+			onInventoryChange((PlayerPickupItemEvent) e);
+		} else if (e instanceof PlayerDropItemEvent) {
+			onInventoryChange((PlayerDropItemEvent) e);
+		}
+	}
+	
+	/**
+	 * Called when one of our participants picks up an item
+	 * @param e
+	 */
 	public void onInventoryChange(PlayerPickupItemEvent e) {
 		if (this.participants == null) {
 			return;
@@ -106,38 +173,14 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 			return;
 		}
 		if (!e.isCancelled() && e.getItem().getItemStack().getType() == itemType) {
-			
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {
-//					//adjust for that stupid 'hasn't happened yet' error
-//					int count = e.getItem().getItemStack().getAmount();
-//					e.getPlayer().getInventory().addItem(e.getItem().getItemStack());
-//					update();
-//					
-//					int pos = e.getPlayer().getInventory().first(itemType);
-//					ItemStack item = e.getPlayer().getInventory().getItem(pos);
-//					item.setAmount(item.getAmount() - count);
-//					if (e.getItem().getItemStack().hasItemMeta()) {
-//						item.setItemMeta(e.getItem().getItemStack().getItemMeta());
-//					}
-//					e.getPlayer().getInventory().setItem(pos, item);
-//					
-//					return;
-					final Requirement req = this;
-					Bukkit.getScheduler().runTaskLater(QuestManagerPlugin.questManagerPlugin, 
-							new Runnable() {
-								public void run() {
-									req.update();
-							}
-					}
-							, 1);
-				}
-			}
-			
+			scheduleUpdate();
 		}
 	}
 	
-	@EventHandler
+	/**
+	 * Called when one of our participants drops an item
+	 * @param e
+	 */
 	public void onInventoryChange(PlayerDropItemEvent e) {
 		if (this.participants == null) {
 			return;
@@ -146,65 +189,22 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 			return;
 		}
 		if (!e.isCancelled() && e.getItemDrop().getItemStack().getType() == itemType) {
-			
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {
-//					//adjust for that stupid 'hasn't happened yet' error
-//					int count = e.getItemDrop().getItemStack().getAmount();
-//					e.getPlayer().getInventory().addItem(e.getItemDrop().getItemStack());
-//					update();
-//					
-////					int pos = e.getPlayer().getInventory().first(itemType);
-////					ItemStack item = e.getPlayer().getInventory().getItem(pos);
-////					item.setAmount(item.getAmount() - count);
-////					if (e.getItemDrop().getItemStack().hasItemMeta()) {
-////						item.setItemMeta(e.getItemDrop().getItemStack().getItemMeta());
-////					}
-////					e.getPlayer().getInventory().setItem(pos, item);
-//					
-//					if (itemName == null) {
-//						//do not need to match a name, so remove a count of itemtype
-//						e.getPlayer().getInventory().remove(
-//								new ItemStack(itemType, count));
-//					} else {
-//						//gotta go through and find ones that match the name
-//						int left = count;
-//						for (ItemStack item : e.getPlayer().getInventory().all(itemType).values()) {
-//							if (item.hasItemMeta() && itemName.equals(item.getItemMeta().getDisplayName())) {
-//								//deduct from this item stack as much as we can, up to 'left'
-//								//but if there's more than 'left' left, just remove it
-//								int amt = item.getAmount();
-//								if (amt <= left) {
-//									//gonna remove entire stack
-//									item.setType(Material.AIR);
-//									item.setAmount(0);
-//									item.setItemMeta(null);
-//								} else {
-//									item.setAmount(amt - left);
-//								}
-//								
-//								left-=amt;
-//								
-//								if (left <= 0) {
-//									break;
-//								}
-//							}
-//						}
-//					
-//					return;
-//					}
-					final Requirement req = this;
-					Bukkit.getScheduler().runTaskLater(QuestManagerPlugin.questManagerPlugin, 
-							new Runnable() {
-								public void run() {
-									req.update();
-							}
-					}
-							, 1);
+			scheduleUpdate();
+		}
+	}
+	
+	/**
+	 * Updates a tick from now, once the inventory change has actually happened
+	 */
+	private void scheduleUpdate() {
+		final Requirement req = this;
+		Bukkit.getScheduler().runTaskLater(QuestManagerPlugin.questManagerPlugin, 
+				new Runnable() {
+					public void run() {
+						req.update();
 				}
-			
-			}
 		}
+				, 1);
 	}
 	
 	/**
@@ -271,7 +271,7 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 							}
 						}
 					
-					HandlerList.unregisterAll(this);
+					stopListening();
 					updateQuest();
 				}
 				return;
@@ -283,29 +283,14 @@ public class DeliverRequirement extends Requirement implements Listener,  Statek
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		//we need to load information about what we need to possess and how much
-		//our config is 
-		//  type: "delr"
-		//  itemYype: (Material. ENUM CONSTANT NAME)
-		//  count: [int]
-		//  name: [string]
-		
-		if (!config.contains("type") || !config.getString("type").equals("delr")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'delr' but got " + config.getString("type", "null"));
-		}
-		
-		this.itemType = Material.valueOf(
-				config.getString("itemType", "AIR"));
-		
-		this.itemCount = config.getInt("count", 1);
-		
-		this.itemName = config.getString("name", "");
-		if (itemName.trim().isEmpty()) {
-			itemName = null;
-		}
-		
-		this.desc = config.getString("description", "Collect " + itemCount + " " +
-				itemName == null ? itemType.toString() : itemName);
+		apply(new DeliverSpec(config));
+	}
+	
+	private void apply(DeliverSpec spec) {
+		this.itemType = spec.itemType;
+		this.itemCount = spec.itemCount;
+		this.itemName = spec.itemName;
+		this.desc = spec.description;
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package com.SkyIsland.QuestManager.Quest.Requirements.Factory;
 
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
@@ -9,4 +10,24 @@ public abstract class RequirementFactory<T extends Requirement> {
 	
 	public abstract T fromConfig(Goal goal, ConfigurationSection conf);
 	
+	/**
+	 * Reads and checks the configuration a single time, returning a spec that can create
+	 * any number of requirements from it.<br />
+	 * Factories that don't override this get a spec that calls {@link #fromConfig(Goal, ConfigurationSection)}
+	 * each time a requirement is made.
+	 * @param conf
+	 * @return
+	 * @throws InvalidConfigurationException If the configuration isn't valid for this type of requirement
+	 */
+	public RequirementSpec compile(final ConfigurationSection conf) throws InvalidConfigurationException {
+		return new RequirementSpec() {
+
+			@Override
+			public Requirement instantiate(Goal goal) {
+				return fromConfig(goal, conf);
+			}
+			
+		};
+	}
+	
 }
@@ -0,0 +1,22 @@
+package com.SkyIsland.QuestManager.Quest.Requirements.Factory;
+
+import com.SkyIsland.QuestManager.Quest.Goal;
+import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
+
+/**
+ * A requirement's configuration, already read and checked by its {@link RequirementFactory}.<br />
+ * Specs are made once per quest template and used to make a fresh requirement each time the
+ * quest is started, without going back to the configuration.
+ * @author Skyler
+ *
+ */
+public interface RequirementSpec {
+	
+	/**
+	 * Creates a new requirement for the given goal from this spec
+	 * @param goal
+	 * @return The new requirement
+	 */
+	public Requirement instantiate(Goal goal);
+	
+}
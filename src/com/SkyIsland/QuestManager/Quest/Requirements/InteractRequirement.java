@@ -1,14 +1,11 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.block.BlockFace;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
 
@@ -16,17 +13,17 @@ import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
 import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
-import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement that a participant must interact (right click or left click or both) a certain block.
  * @author Skyler
  *
  */
-public class InteractRequirement extends Requirement implements Listener, StatekeepingRequirement, CompassTrackable {
+public class InteractRequirement extends Requirement implements StatekeepingRequirement, CompassTrackable {
 	
 	public static class InteractFactory extends RequirementFactory<InteractRequirement> {
 		
@@ -39,6 +36,64 @@ public class InteractRequirement extends Requirement implements Listener, Statek
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new InteractSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * An interact requirement's configuration, read and checked ahead of time
+	 */
+	public static class InteractSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final Location location;
+		
+		private final BlockFace face;
+		
+		private final Action action;
+		
+		public InteractSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			/*
+			 * type: intr
+			 * location: [loc]
+			 * [face]: [face enum name]
+			 * [action]: {LEFT/RIGHT}
+			 */
+			
+			if (!config.contains("type") || !config.getString("type").equals("intr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'intr' but got " + config.get("type", "null"));
+			}
+			
+			this.location = ((LocationState) config.get("location")).getLocation();
+			
+			if (config.contains("face")) {
+				this.face = BlockFace.valueOf(config.getString("face"));
+			} else {
+				this.face = null;
+			}
+			
+			if (config.contains("action")) {
+				this.action = getAction(config.getString("action"));
+			} else {
+				this.action = null;
+			}
+			
+			this.description = config.getString("description", config.getString("action", "Right")
+					+ " click the area");
+		}
+		
+		@Override
+		public InteractRequirement instantiate(Goal goal) {
+			InteractRequirement req = new InteractRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private Location location;
@@ -74,7 +129,7 @@ public class InteractRequirement extends Requirement implements Listener, Statek
 
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerInteractEvent.class);
 	}
 	
 	public BlockFace getFace() {
@@ -97,33 +152,33 @@ public class InteractRequirement extends Requirement implements Listener, Statek
 		this.location = location;
 	}
 
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerInteractEvent) {
+			onInteract((PlayerInteractEvent) e);
+		}
+	}
+
 	/**
-	 * Catches a player's interaction and sees if it's the one we've been waiting for
+	 * Catches one of our participants' interactions and sees if it's the one we've been
+	 * waiting for
 	 * @param e
 	 */
-	@EventHandler
 	public void onInteract(PlayerInteractEvent e) {
 		
 		if (state) {
-			HandlerList.unregisterAll(this);
+			stopListening();
 			return;
 		}
 
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-				.contains(e.getPlayer().getPlayer().getWorld().getName())) {
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().isOnline() && qp.getPlayer().getPlayer().getUniqueId()
-						.equals(e.getPlayer().getUniqueId())) {
-					//one of our participants
-					//actually check interaction now
-					if (face == null || face == e.getBlockFace()) 
-					if (actionsMatch(e.getAction()))
-					if (e.getClickedBlock() != null && e.getClickedBlock().getLocation().equals(location.getBlock().getLocation())){
-						state = true;
-						HandlerList.unregisterAll(this);
-						updateQuest();
-					}
-				}
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(e.getPlayer().getPlayer().getWorld())) {
+			//actually check interaction now
+			if (face == null || face == e.getBlockFace()) 
+			if (actionsMatch(e.getAction()))
+			if (e.getClickedBlock() != null && e.getClickedBlock().getLocation().equals(location.getBlock().getLocation())){
+				state = true;
+				stopListening();
+				updateQuest();
 			}
 		}
 		
@@ -165,29 +220,14 @@ public class InteractRequirement extends Requirement implements Listener, Statek
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		/*
-		 * type: intr
-		 * location: [loc]
-		 * [face]: [face enum name]
-		 * [action]: {LEFT/RIGHT}
-		 */
-		
-		if (!config.contains("type") || !config.getString("type").equals("intr")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'intr' but got " + config.get("type", "null"));
-		}
-		
-		this.location = ((LocationState) config.get("location")).getLocation();
-		
-		if (config.contains("face")) {
-			this.face = BlockFace.valueOf(config.getString("face"));
-		}
-		
-		if (config.contains("action")) {
-			this.action = getAction(config.getString("action"));
-		}
-		
-		this.desc = config.getString("description", config.getString("action", "Right")
-				+ " click the area");
+		apply(new InteractSpec(config));
+	}
+	
+	private void apply(InteractSpec spec) {
+		this.location = (spec.location == null ? null : spec.location.clone());
+		this.face = spec.face;
+		this.action = spec.action;
+		this.desc = spec.description;
 	}
 	
 	public void stop() {
@@ -219,7 +259,7 @@ public class InteractRequirement extends Requirement implements Listener, Statek
 		}
 	}
 	
-	private Action getAction(String configActionName) {
+	private static Action getAction(String configActionName) {
 		if (configActionName != null && configActionName.equalsIgnoreCase("LEFT")) {
 			return Action.LEFT_CLICK_BLOCK;
 		} else {
@@ -1,20 +1,18 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerMoveEvent;
 
-import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement that a participant must be at the provided location.<br />
@@ -24,7 +22,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
  * @author Skyler
  * @see {@link ArriveRequirement}
  */
-public class PositionRequirement extends Requirement implements Listener, CompassTrackable {
+public class PositionRequirement extends Requirement implements CompassTrackable {
 	
 	public static class PositionFactory extends RequirementFactory<PositionRequirement> {
 		
@@ -37,6 +35,47 @@ public class PositionRequirement extends Requirement implements Listener, Compas
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new PositionSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A position requirement's configuration, read and checked ahead of time
+	 */
+	public static class PositionSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final double targetRange;
+		
+		private final Location destination;
+		
+		public PositionSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//we need location information and range information
+			//  type: "posr"
+			//  range: [double]
+			//  destination: [location]
+			
+			if (!config.contains("type") || !config.getString("type").equals("posr")) {
+				throw new InvalidConfigurationException();
+			}
+			
+			this.description = config.getString("description", "Be in the target area");
+			this.targetRange = config.getDouble("range", 1.0);
+			this.destination = ((LocationState) config.get("destination")).getLocation();
+		}
+		
+		@Override
+		public PositionRequirement instantiate(Goal goal) {
+			PositionRequirement req = new PositionRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	
@@ -65,7 +104,7 @@ public class PositionRequirement extends Requirement implements Listener, Compas
 	
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerMoveEvent.class);
 	}
 
 	/**
@@ -89,19 +128,23 @@ public class PositionRequirement extends Requirement implements Listener, Compas
 		return targetRange;
 	}
 	
-	@EventHandler
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerMoveEvent) {
+			onPlayerMove((PlayerMoveEvent) e);
+		}
+	}
+	
+	/**
+	 * Called when one of our participants moves
+	 * @param e
+	 */
 	public void onPlayerMove(PlayerMoveEvent e) {
 		if (participants == null) {
 			return;
 		}
 		
-		for (QuestPlayer qp : participants.getParticipants()) {
-			if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {	
-				update();
-				//updateQuest();
-				return;
-			}
-		}
+		update();
 	}
 	
 	/**
@@ -126,20 +169,14 @@ public class PositionRequirement extends Requirement implements Listener, Compas
 	}
 
 	@Override
-	public void fromConfig(ConfigurationSection config)
-			throws InvalidConfigurationException {
-		//we need location information and range information
-		//  type: "posr"
-		//  range: [double]
-		//  destination: [location]
-		
-		if (!config.contains("type") || !config.getString("type").equals("posr")) {
-			throw new InvalidConfigurationException();
-		}
-		
-		this.desc = config.getString("description", "Be in the target area");
-		this.targetRange = config.getDouble("range", 1.0);
-		this.destination = ((LocationState) config.get("destination")).getLocation();
+	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
+		apply(new PositionSpec(config));
+	}
+	
+	private void apply(PositionSpec spec) {
+		this.desc = spec.description;
+		this.targetRange = spec.targetRange;
+		this.destination = (spec.destination == null ? null : spec.destination.clone());
 	}
 	
 	@Override
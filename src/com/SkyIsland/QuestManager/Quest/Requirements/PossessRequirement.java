@@ -1,21 +1,19 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
-import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement specification that requires the user to have some quantity of a specific item
@@ -23,7 +21,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
  * @author Skyler
  *
  */
-public class PossessRequirement extends Requirement implements Listener {
+public class PossessRequirement extends Requirement {
 	
 	public static class PossessFactory extends RequirementFactory<PossessRequirement> {
 		
@@ -37,6 +35,61 @@ public class PossessRequirement extends Requirement implements Listener {
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new PossessSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A possess requirement's configuration, read and checked ahead of time
+	 */
+	public static class PossessSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final Material itemType;
+		
+		private final int itemCount;
+		
+		private final String itemName;
+		
+		public PossessSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//our config is 
+			//  type: "pr"
+			//  itemYype: (Material. ENUM CONSTANT NAME)
+			//  count: [int]
+			//  name: [string]
+			
+			if (!config.contains("type") || !config.getString("type").equals("pr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'pr' but got " + config.getString("type", "null"));
+			}
+			
+			try {
+				this.itemType = Material.valueOf(
+						config.getString("itemType", "AIR"));
+			} catch (IllegalArgumentException e) {
+				throw new InvalidConfigurationException("\n  ---Unknown item type: " + config.getString("itemType"));
+			}
+			
+			this.itemCount = config.getInt("count", 1);
+			
+			String name = config.getString("name", "");
+			this.itemName = (name.trim().isEmpty() ? null : name);
+			
+			this.description = config.getString("description", "Collect " + itemCount + " " +
+					itemName == null ? itemType.toString() : itemName);
+		}
+		
+		@Override
+		public PossessRequirement instantiate(Goal goal) {
+			PossessRequirement req = new PossessRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private Material itemType;
@@ -73,7 +126,8 @@ public class PossessRequirement extends Requirement implements Listener {
 	
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerPickupItemEvent.class);
+		listen(PlayerDropItemEvent.class);
 	}
 
 	/**
@@ -90,61 +144,60 @@ public class PossessRequirement extends Requirement implements Listener {
 		return itemCount;
 	}
 	
-	@EventHandler
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerPickupItemEvent) {
+			onInventoryChange((PlayerPickupItemEvent) e);
+		} else if (e instanceof PlayerDropItemEvent) {
+			onInventoryChange((PlayerDropItemEvent) e);
+		}
+	}
+	
+	/**
+	 * Called when one of our participants picks up an item
+	 * @param e
+	 */
 	public void onInventoryChange(PlayerPickupItemEvent e) {
 		if (this.participants == null) {
 			return;
 		}
 		if (!e.isCancelled() && e.getItem().getItemStack().getType() == itemType) {
+			//adjust for that stupid 'hasn't happened yet' error
+			int count = e.getItem().getItemStack().getAmount();
+			e.getPlayer().getInventory().addItem(e.getItem().getItemStack());
+			update();
 			
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {
-					//adjust for that stupid 'hasn't happened yet' error
-					int count = e.getItem().getItemStack().getAmount();
-					e.getPlayer().getInventory().addItem(e.getItem().getItemStack());
-					update();
-					
-					int pos = e.getPlayer().getInventory().first(itemType);
-					ItemStack item = e.getPlayer().getInventory().getItem(pos);
-					item.setAmount(item.getAmount() - count);
-					if (e.getItem().getItemStack().hasItemMeta()) {
-						item.setItemMeta(e.getItem().getItemStack().getItemMeta());
-					}
-					e.getPlayer().getInventory().setItem(pos, item);
-					
-					return;
-				}
+			int pos = e.getPlayer().getInventory().first(itemType);
+			ItemStack item = e.getPlayer().getInventory().getItem(pos);
+			item.setAmount(item.getAmount() - count);
+			if (e.getItem().getItemStack().hasItemMeta()) {
+				item.setItemMeta(e.getItem().getItemStack().getItemMeta());
 			}
-			
+			e.getPlayer().getInventory().setItem(pos, item);
 		}
 	}
 	
-	@EventHandler
+	/**
+	 * Called when one of our participants drops an item
+	 * @param e
+	 */
 	public void onInventoryChange(PlayerDropItemEvent e) {
 		if (this.participants == null) {
 			return;
 		}
 		if (!e.isCancelled() && e.getItemDrop().getItemStack().getType() == itemType) {
+			//adjust for that stupid 'hasn't happened yet' error
+			int count = e.getItemDrop().getItemStack().getAmount();
+			e.getPlayer().getInventory().addItem(e.getItemDrop().getItemStack());
+			update();
 			
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().getUniqueId().equals(e.getPlayer().getUniqueId())) {
-					//adjust for that stupid 'hasn't happened yet' error
-					int count = e.getItemDrop().getItemStack().getAmount();
-					e.getPlayer().getInventory().addItem(e.getItemDrop().getItemStack());
-					update();
-					
-					int pos = e.getPlayer().getInventory().first(itemType);
-					ItemStack item = e.getPlayer().getInventory().getItem(pos);
-					item.setAmount(item.getAmount() - count);
-					if (e.getItemDrop().getItemStack().hasItemMeta()) {
-						item.setItemMeta(e.getItemDrop().getItemStack().getItemMeta());
-					}
-					e.getPlayer().getInventory().setItem(pos, item);
-					
-					return;
-				}
+			int pos = e.getPlayer().getInventory().first(itemType);
+			ItemStack item = e.getPlayer().getInventory().getItem(pos);
+			item.setAmount(item.getAmount() - count);
+			if (e.getItemDrop().getItemStack().hasItemMeta()) {
+				item.setItemMeta(e.getItemDrop().getItemStack().getItemMeta());
 			}
-			
+			e.getPlayer().getInventory().setItem(pos, item);
 		}
 	}
 	
@@ -188,29 +241,14 @@ public class PossessRequirement extends Requirement implements Listener {
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		//we need to load information about what we need to possess and how much
-		//our config is 
-		//  type: "pr"
-		//  itemYype: (Material. ENUM CONSTANT NAME)
-		//  count: [int]
-		
-		if (!config.contains("type") || !config.getString("type").equals("pr")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'pr' but got " + config.getString("type", "null"));
-		}
-		
-		
-		this.itemType = Material.valueOf(
-				config.getString("itemType", "AIR"));
-		
-		this.itemCount = config.getInt("count", 1);
-
-		this.itemName = config.getString("name", "");
-		if (itemName.trim().isEmpty()) {
-			itemName = null;
-		}
-		this.desc = config.getString("description", "Collect " + itemCount + " " +
-				itemName == null ? itemType.toString() : itemName);
-		
+		apply(new PossessSpec(config));
+	}
+	
+	private void apply(PossessSpec spec) {
+		this.itemType = spec.itemType;
+		this.itemCount = spec.itemCount;
+		this.itemName = spec.itemName;
+		this.desc = spec.description;
 	}
 	
 	@Override
@@ -1,11 +1,26 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
+import java.util.LinkedList;
+import java.util.List;
+
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
 
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
+import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Player.Participant;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Goal;
+import com.SkyIsland.QuestManager.Scheduling.Alarm;
+import com.SkyIsland.QuestManager.Scheduling.Alarmable;
+import com.SkyIsland.QuestManager.Scheduling.Registration;
+import com.SkyIsland.QuestManager.Scheduling.TickBudgetScheduler;
+import com.SkyIsland.QuestManager.Scheduling.Tickable;
 
 /**
  * Represents a specific requirement needed to achieve a goal in a quest.<br />
@@ -17,11 +32,33 @@ import com.SkyIsland.QuestManager.Quest.Goal;
  * </ul>
  * Requirements are <b>required</b> to perform their own event checking and are required to update
  * their containing goal when upon state change. In addition, requirements must 
+ * <p>
+ * Requirements are {@link #start() started} by their goal, but are only {@link #activate() activated}
+ * while at least one of their participants is online. Otherwise they're left {@link Status#DORMANT},
+ * holding no listeners, tickables or entities, until one of them {@link #wake() joins}.
  * @author Skyler
  *
  */
 public abstract class Requirement {
 	
+	/**
+	 * Whether a requirement is running
+	 */
+	public static enum Status {
+		/**
+		 * Not started yet, or stopped
+		 */
+		INACTIVE,
+		/**
+		 * Listening for events and updating
+		 */
+		ACTIVE,
+		/**
+		 * Started, but asleep until one of its participants is online
+		 */
+		DORMANT;
+	}
+	
 	protected String desc;
 	
 	private Goal goal;
@@ -30,6 +67,18 @@ public abstract class Requirement {
 	
 	protected Participant participants;
 	
+	private Status status = Status.INACTIVE;
+	
+	/**
+	 * What a statekeeping requirement's state was when it went dormant
+	 */
+	private RequirementState dormantState;
+	
+	/**
+	 * Everything this requirement has {@link #schedule(Tickable) scheduled} to be ticked
+	 */
+	private List<Registration> registrations = new LinkedList<Registration>();
+	
 
 	/**
 	 * Creates a requirement with an empty string for a description
@@ -80,22 +129,239 @@ public abstract class Requirement {
 	 * @return
 	 */
 	public boolean isCompleted() {
-		update();
+		//dormant requirements have let go of whatever they'd check
+		if (status != Status.DORMANT) {
+			update();
+		}
 		return state;
 	}
 	
 	/**
-	 * Sets this requirement to be active, listening for events and updating based on them
+	 * Sets this requirement to be active, listening for events and updating based on them.<br />
+	 * This is called by {@link #start()} and {@link #wake()}, and shouldn't be called directly.
 	 */
 	public abstract void activate();
 	
+	public Status getStatus() {
+		return status;
+	}
+	
+	/**
+	 * Starts the requirement. If none of its participants are online, it's left dormant instead
+	 * and isn't activated until one of them is.
+	 */
+	public void start() {
+		dormantState = null;
+		
+		if (hasOnlineParticipant()) {
+			status = Status.ACTIVE;
+			activate();
+		} else {
+			status = Status.DORMANT;
+		}
+	}
+	
+	/**
+	 * Puts an active requirement to sleep, remembering its state and letting go of its listeners,
+	 * tickables and entities
+	 */
+	public void sleep() {
+		if (status != Status.ACTIVE) {
+			return;
+		}
+		
+		if (this instanceof StatekeepingRequirement) {
+			dormantState = ((StatekeepingRequirement) this).getState();
+		}
+		
+		release();
+		status = Status.DORMANT;
+	}
+	
+	/**
+	 * Activates a dormant requirement again, picking up from the state it went to sleep with
+	 */
+	public void wake() {
+		if (status != Status.DORMANT) {
+			return;
+		}
+		
+		if (dormantState != null) {
+			try {
+				((StatekeepingRequirement) this).loadState(dormantState);
+			} catch (InvalidConfigurationException e) {
+				e.printStackTrace();
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Unable to restore the state of a requirement in " + goal.getQuest().getName());
+			}
+			dormantState = null;
+		}
+		
+		status = Status.ACTIVE;
+		activate();
+	}
+	
+	/**
+	 * Stops the requirement for good, letting go of everything it was holding
+	 */
+	public void deactivate() {
+		if (status == Status.ACTIVE) {
+			release();
+		}
+		
+		dormantState = null;
+		status = Status.INACTIVE;
+	}
+	
+	/**
+	 * Returns the current state of a {@link StatekeepingRequirement}. If it's dormant, that's the
+	 * state it went to sleep with.
+	 * @return The state, or null if this requirement doesn't keep any
+	 */
+	public RequirementState getCurrentState() {
+		if (!(this instanceof StatekeepingRequirement)) {
+			return null;
+		}
+		
+		if (dormantState != null) {
+			return dormantState;
+		}
+		
+		return ((StatekeepingRequirement) this).getState();
+	}
+	
+	/**
+	 * Lets go of any entities, listeners, tickables and alarms this requirement is holding
+	 */
+	private void release() {
+		if (this instanceof StatekeepingRequirement) {
+			((StatekeepingRequirement) this).stop();
+		}
+		stopListening();
+		if (this instanceof Listener) {
+			HandlerList.unregisterAll((Listener) this);
+		}
+		stopTicking();
+		if (this instanceof Alarmable) {
+			Alarm.getScheduler().unregister((Alarmable<?>) this);
+		}
+	}
+	
+	/**
+	 * @return Whether any of this requirement's participants are online
+	 */
+	protected boolean hasOnlineParticipant() {
+		sync();
+		if (participants == null) {
+			return false;
+		}
+		
+		for (QuestPlayer qp : participants.getParticipants()) {
+			if (qp.getPlayer().isOnline()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Starts delivering events of the passed type to {@link #onEvent(Event)} when they concern
+	 * one of this requirement's participants.
+	 * @param type
+	 * @see RequirementDispatcher
+	 */
+	protected void listen(Class<? extends Event> type) {
+		sync();
+		if (participants == null) {
+			return;
+		}
+		
+		listen(type, participants.getIDString());
+	}
+	
+	/**
+	 * Starts delivering events of the passed type to {@link #onEvent(Event)} when they concern
+	 * the passed key, like the UUID of a specific entity.
+	 * @param type
+	 * @param key
+	 * @see RequirementDispatcher
+	 */
+	protected void listen(Class<? extends Event> type, Object key) {
+		QuestManagerPlugin.questManagerPlugin.getRequirementDispatcher().register(type, key, this);
+	}
+	
+	/**
+	 * Stops delivery of all events this requirement has been {@link #listen(Class) listening} for
+	 */
+	protected void stopListening() {
+		QuestManagerPlugin.questManagerPlugin.getRequirementDispatcher().unregister(this);
+	}
+	
+	/**
+	 * Registers the passed entity with the {@link TickBudgetScheduler}. It's unregistered
+	 * automatically when this requirement is put to sleep or stopped.
+	 * @param tick
+	 * @return The entity's registration
+	 */
+	protected Registration schedule(Tickable tick) {
+		Registration registration = TickBudgetScheduler.getScheduler().register(tick);
+		if (registration != null) {
+			registrations.add(registration);
+		}
+		
+		return registration;
+	}
+	
+	/**
+	 * Stops ticking everything this requirement has {@link #schedule(Tickable) scheduled}
+	 */
+	protected void stopTicking() {
+		for (Registration registration : registrations) {
+			registration.release();
+		}
+		registrations.clear();
+	}
+	
+	/**
+	 * Called by the {@link RequirementDispatcher} with each event this requirement is listening
+	 * for. Requirements that listen for events should override this.
+	 * @param e
+	 */
+	protected void onEvent(Event e) {
+		;
+	}
+	
 	/**
 	 * Notifies the parent goal of a status chain, usually causing a re-evaluation of criteria
-	 * to update the goal's status
+	 * to update the goal's status.<br />
+	 * The owning quest is told directly. A {@link RequirementUpdateEvent} is only fired if the
+	 * plugin configuration asks for requirement events to be exported.
 	 */
 	protected void updateQuest() {
-		RequirementUpdateEvent e = new RequirementUpdateEvent(this);
-		Bukkit.getPluginManager().callEvent(e);
+		if (goal != null && goal.getQuest() != null) {
+			goal.getQuest().onRequirementUpdate(this);
+		}
+		
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getExportRequirementEvents()
+				&& RequirementUpdateEvent.getHandlerList().getRegisteredListeners().length > 0) {
+			RequirementUpdateEvent e = new RequirementUpdateEvent(this);
+			Bukkit.getPluginManager().callEvent(e);
+		}
+	}
+	
+	/**
+	 * Records this requirement's state in the progress journal, without re-evaluating the quest.
+	 * {@link StatekeepingRequirement Statekeeping requirements} should call this whenever the state
+	 * they'd save changes, so a crash doesn't lose it.
+	 */
+	protected void stateChanged() {
+		if (goal == null || goal.getQuest() == null
+				|| QuestManagerPlugin.questManagerPlugin.getManager() == null) {
+			return;
+		}
+		
+		QuestManagerPlugin.questManagerPlugin.getManager().recordProgress(goal.getQuest());
 	}
 	
 	/**
@@ -0,0 +1,348 @@
+package com.SkyIsland.QuestManager.Quest.Requirements;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.entity.AnimalTamer;
+import org.bukkit.entity.Tameable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractAtEntityEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerPickupItemEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Single listener that hands events to only the requirements that care about them.<br />
+ * Requirements register interest in an event type under a key. For player events the key is
+ * the {@link com.SkyIsland.QuestManager.Player.Participant#getIDString() ID string} of the
+ * participant doing the quest; the acting player is resolved to their own ID and their party's ID.
+ * Requirements interested in a specific entity (like a boss) register under that entity's UUID
+ * instead, and requirements interested in a command register under the command's name.<br />
+ * This keeps the cost of an event independent of how many quests are running.
+ * @author Skyler
+ *
+ */
+public class RequirementDispatcher implements Listener {
+
+	/**
+	 * A single (event type, key) pair a requirement has registered under
+	 */
+	private static class Registration {
+
+		private Class<? extends Event> type;
+
+		private Object key;
+
+		private Registration(Class<? extends Event> type, Object key) {
+			this.type = type;
+			this.key = key;
+		}
+
+	}
+
+	private Map<Class<? extends Event>, Map<Object, Set<Requirement>>> index;
+
+	private Map<Requirement, List<Registration>> registrations;
+
+	public RequirementDispatcher() {
+		this.index = new HashMap<Class<? extends Event>, Map<Object, Set<Requirement>>>();
+		this.registrations = new HashMap<Requirement, List<Registration>>();
+	}
+
+	/**
+	 * Registers the requirement to receive events of the given type that concern the given key.
+	 * Registering the same type and key twice has no extra effect.
+	 * @param type
+	 * @param key A participant ID string, an entity UUID, or a command name
+	 * @param requirement
+	 */
+	public void register(Class<? extends Event> type, Object key, Requirement requirement) {
+		if (type == null || key == null || requirement == null) {
+			return;
+		}
+
+		Map<Object, Set<Requirement>> keyMap = index.get(type);
+		if (keyMap == null) {
+			keyMap = new HashMap<Object, Set<Requirement>>();
+			index.put(type, keyMap);
+		}
+
+		Set<Requirement> reqs = keyMap.get(key);
+		if (reqs == null) {
+			reqs = new LinkedHashSet<Requirement>();
+			keyMap.put(key, reqs);
+		}
+
+		if (!reqs.add(requirement)) {
+			return;
+		}
+
+		List<Registration> regs = registrations.get(requirement);
+		if (regs == null) {
+			regs = new LinkedList<Registration>();
+			registrations.put(requirement, regs);
+		}
+		regs.add(new Registration(type, key));
+	}
+
+	/**
+	 * Removes every registration held by the passed requirement
+	 * @param requirement
+	 */
+	public void unregister(Requirement requirement) {
+		List<Registration> regs = registrations.remove(requirement);
+		if (regs == null) {
+			return;
+		}
+
+		for (Registration reg : regs) {
+			Map<Object, Set<Requirement>> keyMap = index.get(reg.type);
+			if (keyMap == null) {
+				continue;
+			}
+
+			Set<Requirement> reqs = keyMap.get(reg.key);
+			if (reqs == null) {
+				continue;
+			}
+
+			reqs.remove(requirement);
+			if (reqs.isEmpty()) {
+				keyMap.remove(reg.key);
+
+				//so events nobody's listening for anymore are skipped again
+				if (keyMap.isEmpty()) {
+					index.remove(reg.type);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns how many requirements currently hold at least one registration
+	 * @return
+	 */
+	public int getRegisteredCount() {
+		return registrations.size();
+	}
+
+	/**
+	 * Collects the requirements registered for the event type under any of the passed keys.<br />
+	 * A copy is returned so requirements are free to unregister while the event is delivered.
+	 */
+	private Collection<Requirement> lookup(Class<? extends Event> type, Collection<?> keys) {
+		Map<Object, Set<Requirement>> keyMap = index.get(type);
+		if (keyMap == null || keys.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Collection<Requirement> found = null;
+		for (Object key : keys) {
+			Set<Requirement> reqs = keyMap.get(key);
+			if (reqs == null || reqs.isEmpty()) {
+				continue;
+			}
+
+			if (found == null) {
+				found = new LinkedHashSet<Requirement>(reqs);
+			} else {
+				found.addAll(reqs);
+			}
+		}
+
+		if (found == null) {
+			return Collections.emptyList();
+		}
+
+		return found;
+	}
+
+	/**
+	 * Returns the keys a requirement could have registered under for the player with the passed
+	 * id: the player's own ID and the ID of their party, if they're in one.
+	 */
+	private Collection<?> getParticipantKeys(UUID id) {
+		if (id == null) {
+			return Collections.emptyList();
+		}
+
+		QuestPlayer qp = QuestManagerPlugin.questManagerPlugin.getPlayerManager()
+				.getLoadedPlayer(id);
+
+		if (qp == null) {
+			return Collections.emptyList();
+		}
+
+		List<String> keys = new ArrayList<String>(2);
+		keys.add(id.toString());
+		if (qp.getParty() != null) {
+			keys.add(qp.getParty().getIDString());
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Returns the name of the command in the passed command line, without any slash or namespace,
+	 * like <i>time</i> for <i>/minecraft:time set day</i>
+	 */
+	private static String getCommandName(String commandLine) {
+		String name = commandLine.trim();
+		if (name.startsWith("/")) {
+			name = name.substring(1);
+		}
+
+		int space = name.indexOf(' ');
+		if (space >= 0) {
+			name = name.substring(0, space);
+		}
+
+		int colon = name.indexOf(':');
+		if (colon >= 0) {
+			name = name.substring(colon + 1);
+		}
+
+		return name.toLowerCase();
+	}
+
+	private void dispatch(Event e, Collection<Requirement> reqs) {
+		for (Requirement req : reqs) {
+			req.onEvent(e);
+		}
+	}
+
+	@EventHandler
+	public void onPlayerMove(PlayerMoveEvent e) {
+		if (!index.containsKey(PlayerMoveEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerMoveEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	@EventHandler
+	public void onItemPickup(PlayerPickupItemEvent e) {
+		if (!index.containsKey(PlayerPickupItemEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerPickupItemEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	@EventHandler
+	public void onItemDrop(PlayerDropItemEvent e) {
+		if (!index.containsKey(PlayerDropItemEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerDropItemEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	@EventHandler
+	public void onInteract(PlayerInteractEvent e) {
+		if (!index.containsKey(PlayerInteractEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerInteractEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	@EventHandler
+	public void onInteractAtEntity(PlayerInteractAtEntityEvent e) {
+		if (!index.containsKey(PlayerInteractAtEntityEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerInteractAtEntityEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	@EventHandler
+	public void onChangeWorld(PlayerChangedWorldEvent e) {
+		if (!index.containsKey(PlayerChangedWorldEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerChangedWorldEvent.class, getParticipantKeys(e.getPlayer().getUniqueId())));
+	}
+
+	/**
+	 * Delivers commands players run to requirements registered under the command's name.<br />
+	 * This is called before the command itself runs.
+	 * @param e
+	 */
+	@EventHandler(ignoreCancelled = true)
+	public void onPlayerCommand(PlayerCommandPreprocessEvent e) {
+		if (!index.containsKey(PlayerCommandPreprocessEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(PlayerCommandPreprocessEvent.class,
+				Collections.singletonList(getCommandName(e.getMessage()))));
+	}
+
+	/**
+	 * Delivers commands run from the console to requirements registered under the command's
+	 * name.<br />
+	 * This is called before the command itself runs.
+	 * @param e
+	 */
+	@EventHandler
+	public void onServerCommand(ServerCommandEvent e) {
+		if (!index.containsKey(ServerCommandEvent.class)) {
+			return;
+		}
+
+		dispatch(e, lookup(ServerCommandEvent.class,
+				Collections.singletonList(getCommandName(e.getCommand()))));
+	}
+
+	/**
+	 * Delivers entity deaths to requirements registered on the entity itself, and to requirements
+	 * registered for whoever is credited with the kill: the killer, or the owner of the tamed
+	 * animal that did the killing.
+	 * @param e
+	 */
+	@EventHandler
+	public void onEntityDeath(EntityDeathEvent e) {
+		if (!index.containsKey(EntityDeathEvent.class)) {
+			return;
+		}
+
+		List<Object> keys = new LinkedList<Object>();
+		keys.add(e.getEntity().getUniqueId());
+
+		if (e.getEntity().getKiller() != null) {
+			keys.addAll(getParticipantKeys(e.getEntity().getKiller().getUniqueId()));
+		} else if (e.getEntity().getLastDamageCause() instanceof EntityDamageByEntityEvent) {
+			EntityDamageByEntityEvent cause = (EntityDamageByEntityEvent) e.getEntity().getLastDamageCause();
+			if (cause.getDamager() instanceof Tameable) {
+				AnimalTamer owner = ((Tameable) cause.getDamager()).getOwner();
+				if (owner != null) {
+					keys.addAll(getParticipantKeys(owner.getUniqueId()));
+				}
+			}
+		}
+
+		dispatch(e, lookup(EntityDeathEvent.class, keys));
+	}
+
+}
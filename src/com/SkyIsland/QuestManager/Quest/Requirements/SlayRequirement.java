@@ -1,24 +1,18 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.EntityType;
-import org.bukkit.entity.Tameable;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDeathEvent;
 
-import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Configuration.State.RequirementState;
 import com.SkyIsland.QuestManager.Configuration.State.StatekeepingRequirement;
 import com.SkyIsland.QuestManager.Player.Participant;
-import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requires the participants to defeat (kill) some number of a type of entity.<br />
@@ -29,7 +23,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
  * @author Skyler
  * @see {@link PositionRequirement}
  */
-public class SlayRequirement extends Requirement implements Listener, StatekeepingRequirement {
+public class SlayRequirement extends Requirement implements StatekeepingRequirement {
 	
 	public static class SlayFactory extends RequirementFactory<SlayRequirement> {
 
@@ -44,6 +38,64 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 			return req;
 		}
 		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new SlaySpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A slay requirement's configuration, read and checked ahead of time
+	 */
+	public static class SlaySpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final EntityType type;
+		
+		private final int count;
+		
+		private final String name;
+		
+		public SlaySpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//  keep data about the entity type and name and count
+			//  type: "slayr"
+			//  entitytype: ENTITY_TYPE.name
+			//  forcedname: ''
+			//  count: [INT]
+				
+			if (!config.contains("type") || !config.getString("type").equals("slayr")) {
+				throw new InvalidConfigurationException();
+			}
+			
+			String type = config.getString("entityType");
+			if (type == null) {
+				type = config.getString("entitytype");
+			}
+			
+			try {
+				this.type = EntityType.valueOf(type);
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new InvalidConfigurationException("\n  ---Unknown entity type: " + type);
+			}
+			
+			this.count = config.getInt("count");
+			
+			String tmp = config.getString("name", "");
+			this.name = (tmp.trim().isEmpty() ? null : tmp);
+			
+			this.description = config.getString("description", "Slay " + count + " " + 
+					this.name == null ? this.type.toString() : this.name);
+		}
+		
+		@Override
+		public SlayRequirement instantiate(Goal goal) {
+			SlayRequirement req = new SlayRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 		
 	/**
@@ -88,7 +140,7 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 	
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(EntityDeathEvent.class);
 	}
 
 	/**
@@ -154,9 +206,21 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 	 */
 	public void setProgress(int progress) {
 		this.progress = progress;
+		stateChanged();
 	}
 
-	@EventHandler
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof EntityDeathEvent) {
+			onEntityDeath((EntityDeathEvent) e);
+		}
+	}
+	
+	/**
+	 * Called when an entity is killed by one of our participants, or by one of their tamed
+	 * animals
+	 * @param e
+	 */
 	public void onEntityDeath(EntityDeathEvent e) {
 		
 		if (participants == null) {
@@ -167,41 +231,13 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 			
 			//if name is null (SHORT CIRCUIT IF SO) or if the name matches
 			if (name == null || (e.getEntity().getCustomName() != null && e.getEntity().getCustomName().equals(name))) {
-				if (e.getEntity().getKiller() != null) {
-					boolean trip = false;
-					for (QuestPlayer quester : participants.getParticipants()) {
-						if (quester.getPlayer().getUniqueId().equals(e.getEntity().getKiller().getUniqueId())) {
-							trip = true;
-							break;
-						}
-					}
-					
-					if (trip)
-					{
-						progress++;
-						update();
-					}
-				} else if (e.getEntity().getLastDamageCause() instanceof EntityDamageByEntityEvent) {
-					EntityDamageByEntityEvent eEvent = (EntityDamageByEntityEvent) e.getEntity().getLastDamageCause();
-					
-					if (eEvent.getDamager() instanceof Tameable) {
-						System.out.println("Tame kill");
-						Tameable tame = (Tameable) eEvent.getDamager();
-						boolean trip = false;
-						for (QuestPlayer quester : participants.getParticipants()) {
-							if (quester.getPlayer().getUniqueId().equals(tame.getOwner().getUniqueId())) {
-								trip = true;
-								break;
-							}
-						}
-						
-						if (trip)
-						{
-							progress++;
-							update();
-						}
-					}
-				} 
+				progress++;
+				update();
+				
+				//finishing records itself through the quest
+				if (!state) {
+					stateChanged();
+				}
 			}
 			
 		}
@@ -221,7 +257,7 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 		if (progress >= count) {
 			state = true;
 			updateQuest();
-			HandlerList.unregisterAll(this);
+			stopListening();
 			return;
 		}
 		
@@ -229,36 +265,15 @@ public class SlayRequirement extends Requirement implements Listener, Statekeepi
 	}
 
 	@Override
-	public void fromConfig(ConfigurationSection config)
-			throws InvalidConfigurationException {
-		//  keep data about the entity type and name and count
-		//  type: "slayr"
-		//  entitytype: ENTITY_TYPE.name
-		//  forcedname: ''
-		//  count: [INT]
-			
-		if (!config.contains("type") || !config.getString("type").equals("slayr")) {
-			throw new InvalidConfigurationException();
-		}
-		
-		String type = config.getString("entityType");
-		if (type == null) {
-			type = config.getString("entitytype");
-		}
-		this.type = EntityType.valueOf(type);
-		this.count = config.getInt("count");
-		
-		String tmp = config.getString("name", "");
-		
-		if (tmp.trim().isEmpty()) {
-			this.name = null;
-		} else {
-			this.name = tmp;
-		}
-		
-		this.desc = config.getString("description", "Slay " + count + " " + 
-				this.name == null ? this.type.toString() : this.name);
-		
+	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
+		apply(new SlaySpec(config));
+	}
+	
+	private void apply(SlaySpec spec) {
+		this.type = spec.type;
+		this.count = spec.count;
+		this.name = spec.name;
+		this.desc = spec.description;
 	}
 
 	@Override
@@ -1,21 +1,19 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.Event;
 import org.bukkit.event.player.PlayerInteractAtEntityEvent;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
 import com.SkyIsland.QuestManager.Fanciful.FancyMessage;
 import com.SkyIsland.QuestManager.NPC.NPC;
-import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 import com.SkyIsland.QuestManager.UI.ChatMenu;
 import com.SkyIsland.QuestManager.UI.Menu.Message.Message;
 
@@ -24,7 +22,7 @@ import com.SkyIsland.QuestManager.UI.Menu.Message.Message;
  * @author Skyler
  *
  */
-public class TalkRequirement extends Requirement implements Listener, CompassTrackable {
+public class TalkRequirement extends Requirement implements CompassTrackable {
 	
 	public static class TalkRequirementFactory extends RequirementFactory<TalkRequirement> {
 		
@@ -37,6 +35,62 @@ public class TalkRequirement extends Requirement implements Listener, CompassTra
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new TalkSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A talk requirement's configuration, read and checked ahead of time.<br />
+	 * The npc is only looked up by name when a requirement is made, as quest npcs may not
+	 * be registered yet when the spec is.
+	 */
+	public static class TalkSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final String npcName;
+		
+		private final Message message;
+		
+		public TalkSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			/*
+			 * type: talk
+			 * npc: [name]
+			 * message: [menu]
+			 */
+			
+			if (!config.contains("type") || !config.getString("type").equals("talk")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'talk' but got " + config.get("type", "null"));
+			}
+			
+			this.npcName = config.getString("npc");
+			if (npcName == null) {
+				throw new InvalidConfigurationException("\n  ---Talk requirement is missing its npc!");
+			}
+			
+			Object o = config.get("message");
+			if (!(o instanceof Message)) {
+				throw new InvalidConfigurationException("\n  ---Talk requirement is missing its message!");
+			}
+			
+			this.message = (Message) o;
+			message.setSourceLabel(new FancyMessage(npcName));
+			
+			this.description = config.getString("description", config.getString("action", "Right")
+					+ " click the area");
+		}
+		
+		@Override
+		public TalkRequirement instantiate(Goal goal) {
+			TalkRequirement req = new TalkRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
 	}
 	
 	private NPC npc;
@@ -56,45 +110,40 @@ public class TalkRequirement extends Requirement implements Listener, CompassTra
 
 	@Override
 	public void activate() {
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(PlayerInteractAtEntityEvent.class);
 	}
 	
 	
 
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof PlayerInteractAtEntityEvent) {
+			onInteract((PlayerInteractAtEntityEvent) e);
+		}
+	}
+
 	/**
-	 * Catches a player's interaction and sees if it's the one we've been waiting for
+	 * Catches one of our participants' interactions and sees if it's the one we've been
+	 * waiting for
 	 * @param e
 	 */
-	@EventHandler
 	public void onInteract(PlayerInteractAtEntityEvent e) {
 		
 		if (state) {
-			HandlerList.unregisterAll(this);
+			stopListening();
 			return;
 		}
 
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-				.contains(e.getPlayer().getPlayer().getWorld().getName())) {
-			for (QuestPlayer qp : participants.getParticipants()) {
-				if (qp.getPlayer().isOnline() && qp.getPlayer().getPlayer().getUniqueId()
-						.equals(e.getPlayer().getUniqueId())) {
-					//one of our participants
-					//actually check interaction now
-					if (e.getRightClicked().equals(npc.getEntity())) {
-						//cancel and interact
-						e.setCancelled(true);
-						this.state = true;
-						HandlerList.unregisterAll(this);
-						updateQuest();
-						
-//						String desc = menu.getMessage().toOldMessageFormat()
-//								.replaceAll(ChatColor.WHITE + "", ChatColor.BLACK + "");
-//						desc = desc.replace("-", "");
-//						updateQuestHistory(qp, desc);
-						
-						menu.show(e.getPlayer(), getGoal().getQuest());
-					}
-				}
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(e.getPlayer().getPlayer().getWorld())) {
+			//actually check interaction now
+			if (npc != null && e.getRightClicked().equals(npc.getEntity())) {
+				//cancel and interact
+				e.setCancelled(true);
+				this.state = true;
+				stopListening();
+				updateQuest();
+				
+				menu.show(e.getPlayer(), getGoal().getQuest());
 			}
 		}
 		
@@ -110,30 +159,19 @@ public class TalkRequirement extends Requirement implements Listener, CompassTra
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		/*
-		 * type: talk
-		 * npc: [name]
-		 * message: [menu]
-		 */
-		
-		if (!config.contains("type") || !config.getString("type").equals("talk")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'talk' but got " + config.get("type", "null"));
-		}
-		if (config.getString("npc") == null) {
-			System.out.println("npc-null");
+		apply(new TalkSpec(config));
+	}
+	
+	private void apply(TalkSpec spec) {
+		npc = QuestManagerPlugin.questManagerPlugin.getManager().getNPC(spec.npcName);
+		if (npc == null) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to find npc for talk requirement: " + spec.npcName);
 		}
-		npc = QuestManagerPlugin.questManagerPlugin.getManager().getNPC(
-			config.getString("npc")
-				);
-		
-		Message message = (Message) config.get("message");
 		
-		message.setSourceLabel(new FancyMessage(npc.getName()));
-
-		menu = ChatMenu.getDefaultMenu(message);
+		menu = ChatMenu.getDefaultMenu(spec.message);
 		
-		this.desc = config.getString("description", config.getString("action", "Right")
-				+ " click the area");
+		this.desc = spec.description;
 	}
 	
 	public void stop() {
@@ -151,7 +189,12 @@ public class TalkRequirement extends Requirement implements Listener, CompassTra
 			return null;
 		}
 		
-		return npc.getEntity().getLocation();
+		Entity e = npc.getEntity();
+		if (e == null) {
+			return null;
+		}
+		
+		return e.getLocation();
 	}
 	
 }
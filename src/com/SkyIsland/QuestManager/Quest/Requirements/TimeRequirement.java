@@ -1,23 +1,35 @@
 package com.SkyIsland.QuestManager.Quest.Requirements;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
 
 import com.SkyIsland.QuestManager.Player.Participant;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
-import com.SkyIsland.QuestManager.Scheduling.IntervalScheduler;
-import com.SkyIsland.QuestManager.Scheduling.Tickable;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
+import com.SkyIsland.QuestManager.Scheduling.Alarm;
+import com.SkyIsland.QuestManager.Scheduling.Alarmable;
 
 /**
  * Requirement that a specific time range be current. This is not a stateful requirement, and can be used
- * to great effect with other requirements (kill 10 things at night, etc)
+ * to great effect with other requirements (kill 10 things at night, etc)<br />
+ * Rather than checking the time over and over, an active requirement works out when the time in its
+ * participants' worlds next enters or leaves the range and sets a single {@link Alarm} for then.
+ * It only works it out again early when a participant changes worlds or someone runs <i>/time</i>.
  * @author Skyler
  *
  */
-public class TimeRequirement extends Requirement implements Tickable {
+public class TimeRequirement extends Requirement implements Alarmable<Integer> {
 	
 	public static class TimeFactory extends RequirementFactory<TimeRequirement> {
 		
@@ -31,8 +43,54 @@ public class TimeRequirement extends Requirement implements Tickable {
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new TimeSpec(config);
+		}
+		
 	}
 	
+	/**
+	 * A time requirement's configuration, read and checked ahead of time
+	 */
+	public static class TimeSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final long startTime;
+		
+		private final long endTime;
+		
+		public TimeSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			//our config is 
+			//  type: "timer"
+			//  startTime: <long>
+			//  endTime: <long>
+			
+			if (!config.contains("type") || !config.getString("type").equals("timer")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'timer' but got " + config.getString("type", "null"));
+			}
+			
+			this.startTime = config.getLong("startTime");
+			this.endTime = config.getLong("endTime");
+			
+			this.description = config.getString("description", "Wait until between " + startTime + " and " + endTime);
+		}
+		
+		@Override
+		public TimeRequirement instantiate(Goal goal) {
+			TimeRequirement req = new TimeRequirement(goal);
+			req.apply(this);
+			return req;
+		}
+		
+	}
+	
+	private static final long ticksPerDay = 24000;
+	
+	private static final double ticksPerSecond = 20.0;
+	
 	private long startTime;
 	
 	private long endTime;
@@ -52,7 +110,12 @@ public class TimeRequirement extends Requirement implements Tickable {
 	
 	@Override
 	public void activate() {
-		IntervalScheduler.getScheduler().register(this);
+		listen(PlayerChangedWorldEvent.class);
+		listen(PlayerCommandPreprocessEvent.class, "time");
+		listen(ServerCommandEvent.class, "time");
+		
+		//check in a tick, once the goal is finished starting
+		Alarm.getScheduler().schedule(this, 0, 1 / ticksPerSecond);
 	}
 	
 	/**
@@ -122,26 +185,72 @@ public class TimeRequirement extends Requirement implements Tickable {
 
 	@Override
 	public void fromConfig(ConfigurationSection config) throws InvalidConfigurationException {
-		//we'll need start and end times
-		//our config is 
-		//  type: "timer"
-		//  startTime: <long>
-		//  endTime: <long>
-		
-		if (!config.contains("type") || !config.getString("type").equals("timer")) {
-			throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'timer' but got " + config.getString("type", "null"));
+		apply(new TimeSpec(config));
+	}
+	
+	private void apply(TimeSpec spec) {
+		this.startTime = spec.startTime;
+		this.endTime = spec.endTime;
+		this.desc = spec.description;
+	}
+
+	/**
+	 * Called by the {@link Alarm} when the time in one of the participants' worlds should have
+	 * just entered or left the range
+	 */
+	@Override
+	public void alarm(Integer reference) {
+		update();
+		scheduleNext();
+	}
+	
+	/**
+	 * Works the next crossing out again when a participant changes worlds or the time is changed
+	 * by a command. Commands are delivered before they run, so this waits a tick first.
+	 */
+	@Override
+	protected void onEvent(Event e) {
+		Alarm.getScheduler().schedule(this, 0, 1 / ticksPerSecond);
+	}
+	
+	/**
+	 * Sets an alarm for the next time the time in any online participant's world enters or leaves
+	 * the range. Nothing is scheduled if it never will.
+	 */
+	private void scheduleNext() {
+		if (startTime > endTime || participants == null) {
+			//the range is empty, so nothing will ever change
+			return;
 		}
 		
-		this.startTime = config.getLong("startTime");
-		this.endTime = config.getLong("endTime");
+		Set<World> worlds = new HashSet<World>();
+		for (QuestPlayer player : participants.getParticipants()) {
+			if (player.getPlayer().isOnline()) {
+				worlds.add(player.getPlayer().getPlayer().getWorld());
+			}
+		}
 		
-		this.desc = config.getString("description", "Wait until between " + startTime + " and " + endTime);
+		long next = -1;
+		for (World world : worlds) {
+			long time = world.getTime();
+			long ticks = Math.min(ticksUntil(time, startTime), ticksUntil(time, endTime + 1));
+			if (next < 0 || ticks < next) {
+				next = ticks;
+			}
+		}
 		
+		if (next > 0) {
+			Alarm.getScheduler().schedule(this, 0, next / ticksPerSecond);
+		}
 	}
-
-	@Override
-	public void tick() {
-		update();
+	
+	/**
+	 * @return How many ticks it'll be from <i>time</i> until the clock next reads <i>target</i>,
+	 * never less than one
+	 */
+	private static long ticksUntil(long time, long target) {
+		long ticks = ((target - time) % ticksPerDay + ticksPerDay) % ticksPerDay;
+		return ticks == 0 ? ticksPerDay : ticks;
 	}
 	
 	@Override
@@ -2,10 +2,8 @@ package com.SkyIsland.QuestManager.Quest.Requirements;
 
 import java.util.UUID;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -16,9 +14,7 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Skeleton;
 import org.bukkit.entity.Skeleton.SkeletonType;
 import org.bukkit.entity.Slime;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.event.Event;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.inventory.EntityEquipment;
 
@@ -32,6 +28,7 @@ import com.SkyIsland.QuestManager.NPC.QuestMonsterNPC;
 import com.SkyIsland.QuestManager.Player.Utils.CompassTrackable;
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Requirement that a given entity must be slain.<br />
@@ -40,7 +37,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
  * @author Skyler
  *
  */
-public class VanquishRequirement extends Requirement implements Listener, StatekeepingRequirement, CompassTrackable {
+public class VanquishRequirement extends Requirement implements StatekeepingRequirement, CompassTrackable {
 	
 	public static class VanquishFactory extends RequirementFactory<VanquishRequirement> {
 		
@@ -53,6 +50,45 @@ public class VanquishRequirement extends Requirement implements Listener, Statek
 			}
 			return req;
 		}
+		
+		@Override
+		public RequirementSpec compile(ConfigurationSection config) throws InvalidConfigurationException {
+			return new VanquishSpec(config);
+		}
+		
+	}
+	
+	/**
+	 * A vanquish requirement's configuration, checked ahead of time.<br />
+	 * The foe itself is only described here; it's spawned when the requirement is activated.
+	 */
+	public static class VanquishSpec implements RequirementSpec {
+		
+		private final String description;
+		
+		private final RequirementState foeState;
+		
+		public VanquishSpec(ConfigurationSection config) throws InvalidConfigurationException {
+			if (!config.contains("type") || !config.getString("type").equals("vr")) {
+				throw new InvalidConfigurationException("\n  ---Invalid type! Expected 'vr' but got " + config.get("type", "null"));
+			}
+			
+			if (!config.isConfigurationSection("foe")) {
+				throw new InvalidConfigurationException("\n  ---Vanquish requirement is missing its foe!");
+			}
+			
+			this.description = config.getString("description", "Vanquish " + config.getString("foe.name", "the monster"));
+			this.foeState = new RequirementState(config);
+		}
+		
+		@Override
+		public VanquishRequirement instantiate(Goal goal) {
+			VanquishRequirement req = new VanquishRequirement(goal);
+			req.desc = description;
+			req.foeStateRecord = foeState;
+			return req;
+		}
+		
 	}
 	
 	private LivingEntity foe;
@@ -80,6 +116,11 @@ public class VanquishRequirement extends Requirement implements Listener, Statek
 
 	@Override
 	public void activate() {
+		if (state) {
+			//already slain; don't bring it back when waking up
+			return;
+		}
+		
 		ConfigurationSection myState = foeStateRecord.getConfig();
 		
 		//get rid of any entities we already have
@@ -147,30 +188,37 @@ public class VanquishRequirement extends Requirement implements Listener, Statek
 		QuestManagerPlugin.questManagerPlugin.getManager().registerNPC(foeNPC);
 		
 		update();
-		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		listen(EntityDeathEvent.class, id);
+		
+		//our foe is a new entity now
+		stateChanged();
 	}
 	
 	/**
 	 * @return the foe
 	 */
 	public LivingEntity getFoe() {
-		for (World w : Bukkit.getWorlds())
-		for (Entity e : w.getEntities()) {
-			if (e.getUniqueId().equals(id)) {
-				foe = (LivingEntity) e;
-				return foe;
-			}
+		Entity e = QuestManagerPlugin.questManagerPlugin.getEntityCache().getEntity(id);
+		if (e instanceof LivingEntity) {
+			foe = (LivingEntity) e;
+			return foe;
 		}
 		
 		return null;
 	}
 	
+	@Override
+	protected void onEvent(Event e) {
+		if (e instanceof EntityDeathEvent) {
+			onVanquish((EntityDeathEvent) e);
+		}
+	}
+	
 	/**
-	 * Catches entity death events and changes state to reflect whether or not this requirement
+	 * Catches the foe's death and changes state to reflect whether or not this requirement
 	 * is satisfied
 	 * @param e
 	 */
-	@EventHandler
 	public void onVanquish(EntityDeathEvent e) {
 		
 		if (!state && foe.isDead()) {
@@ -180,7 +228,7 @@ public class VanquishRequirement extends Requirement implements Listener, Statek
 			QuestManagerPlugin.questManagerPlugin.getManager().unregisterNPC(foeNPC);
 			
 			//unregister listen, as we'll never need to check again
-			HandlerList.unregisterAll(this);
+			stopListening();
 			updateQuest();
 		}
 		
@@ -206,9 +254,15 @@ public class VanquishRequirement extends Requirement implements Listener, Statek
 
 	@Override
 	public RequirementState getState() {
+		if (foe == null) {
+			//never spawned, since nobody's been online
+			return foeStateRecord;
+		}
+		
 		YamlConfiguration myState = new YamlConfiguration();
 		
 		myState.set("type", "vr");
+		myState.set("description", desc);
 		
 		ConfigurationSection foeSection = myState.createSection("foe");
 		foeSection.set("type", foe.getType().name());
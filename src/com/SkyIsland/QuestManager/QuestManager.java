@@ -2,13 +2,14 @@ package com.SkyIsland.QuestManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -18,7 +19,6 @@ import org.bukkit.PortalType;
 import org.bukkit.World;
 import org.bukkit.block.CommandBlock;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
@@ -28,24 +28,33 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityCreatePortalEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityTameEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.inventory.CraftItemEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.inventory.AnvilInventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.scoreboard.Scoreboard;
 
+import com.SkyIsland.QuestManager.Configuration.PluginConfiguration;
+import com.SkyIsland.QuestManager.Configuration.QuestBlueprint;
 import com.SkyIsland.QuestManager.Configuration.QuestConfiguration;
 import com.SkyIsland.QuestManager.Configuration.SessionConflictException;
 import com.SkyIsland.QuestManager.Configuration.State.QuestState;
 import com.SkyIsland.QuestManager.NPC.NPC;
+import com.SkyIsland.QuestManager.NPC.NPCRegistry;
 import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.PartyDisbandEvent;
 import com.SkyIsland.QuestManager.Player.QuestPlayer;
 import com.SkyIsland.QuestManager.Quest.Quest;
+import com.SkyIsland.QuestManager.Quest.Requirements.RequirementUpdateEvent;
+import com.SkyIsland.QuestManager.Storage.QuestStateStore;
 
 public class QuestManager implements Listener {
 	
@@ -53,29 +62,54 @@ public class QuestManager implements Listener {
 	
 	private List<QuestConfiguration> questTemplates;
 	
+	private Map<String, QuestConfiguration> templatesByName;
+	
+	private Map<String, Integer> runningCounts;
+	
+	/**
+	 * The state keys of quests put to sleep until their player comes back, by player
+	 */
+	private Map<UUID, List<String>> hibernating;
+	
 	private File saveDirectory;
 	
+	private QuestStateStore stateStore;
+	
 	private File questDirectory;
 	
 	private Scoreboard scoreboard;
 	
-	private Set<NPC> questNPCs;
+	private NPCRegistry questNPCs;
+	
+	private StrayEntityCleaner strayCleaner;
+	
+	private QuestStateLoader stateLoader;
+	
+	private ProgressJournal journal;
 	
 	private Map<String, CommandBlock> anchors;
 	
+	private static final String journalFileName = "progress.journal";
+	
 	/**
 	 * Constructs a manager with the given directory information and a config file with
 	 * the manager configuration section ready. The config passed is expected to have
-	 * one key (the name of the manager) and the value be a list of strings (name of quests)
+	 * one key (the name of the manager) and the value be a list of strings (name of quests).<br />
+	 * The state of stopped quests is kept in the given store.
 	 */
-	public QuestManager(File questDirectory, File saveDirectory) {
+	public QuestManager(File questDirectory, File saveDirectory, QuestStateStore stateStore) {
 		
 		runningQuests = new LinkedList<Quest>();
 		questTemplates = new LinkedList<QuestConfiguration>();
-		questNPCs = new HashSet<NPC>();
+		templatesByName = new HashMap<String, QuestConfiguration>();
+		runningCounts = new HashMap<String, Integer>();
+		hibernating = new HashMap<UUID, List<String>>();
+		questNPCs = new NPCRegistry();
+		strayCleaner = new StrayEntityCleaner(questNPCs);
 		scoreboard = Bukkit.getScoreboardManager().getNewScoreboard();
 
 		Bukkit.getPluginManager().registerEvents(this, QuestManagerPlugin.questManagerPlugin);
+		Bukkit.getPluginManager().registerEvents(questNPCs, QuestManagerPlugin.questManagerPlugin);
 		
 		//purge villagers, if enabled
 		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getVillagerCleanup()) {
@@ -102,6 +136,7 @@ public class QuestManager implements Listener {
 		Party.maxSize = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getMaxPartySize();
 		
 		this.saveDirectory = saveDirectory;
+		this.stateStore = stateStore;
 		this.questDirectory = questDirectory;
 		
 		
@@ -134,188 +169,328 @@ public class QuestManager implements Listener {
 		
 		int count = 0;
 		
-		//lookup and load templates for each quest name given
-		for (File templateFile : questDirectory.listFiles()) {
-			count += loadTemplateFile(templateFile);			
+		//read and parse every template file in parallel, then register them here on the main thread
+		long start = System.nanoTime();
+		QuestTemplateLoader loader = new QuestTemplateLoader(questDirectory);
+		List<QuestConfiguration> loaded = loader.load();
+		long parsed = System.nanoTime();
+		
+		QuestManagerPlugin.questManagerPlugin.getLogger().info(
+				"Parsed " + loaded.size() + " of " + loader.getFileCount() + " quest template file(s) in "
+				+ ((parsed - start) / 1000000) + "ms using " + loader.getParallelism() + " thread(s)");
+		
+		for (QuestConfiguration questTemplate : loaded) {
+			count += registerTemplate(questTemplate);
 		}
 		
 		QuestManagerPlugin.questManagerPlugin.getLogger().info(
-				"Loaded " + count + " quest template(s)!");
+				"Registered " + count + " quest template(s) and " + questNPCs.getNPCs().size()
+				+ " npc(s) in " + ((System.nanoTime() - parsed) / 1000000) + "ms");
+		
+		//fold progress left over from a crash into saved states before they're loaded
+		PluginConfiguration pc = QuestManagerPlugin.questManagerPlugin.getPluginConfiguration();
+		journal = new ProgressJournal(new File(saveDirectory.getParentFile(), journalFileName), stateStore);
+		journal.recover();
+		reserveStateIDs();
+		
+		if (pc.getJournalCommitInterval() > 0) {
+			journal.start(pc.getJournalCommitInterval(), pc.getJournalCompactInterval());
+		}
 		
 		//check if there is any state information for this manager
-		if (saveDirectory.listFiles().length != 0) {
+		stateLoader = new QuestStateLoader(this, stateStore);
+		if (stateLoader.getStateCount() != 0) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().info("Quest Manager fetching state "
 					+ "information...");	
 			
 			
-			//files are [name]_[id]
-			count = 0;
-			for (File stateFile : saveDirectory.listFiles()) {
-				count += loadStateFile(stateFile);
-			}
-
+			//read states in parallel, then restore quests from them a few at a time
+			start = System.nanoTime();
+			count = stateLoader.parse();
+			
 			QuestManagerPlugin.questManagerPlugin.getLogger().info(
-					"Successfully loaded state information for " + count + " quest(s)!");
+					"Parsed " + count + " of " + stateLoader.getStateCount() + " quest state(s) in "
+					+ ((System.nanoTime() - start) / 1000000) + "ms");
+			
+			stateLoader.start();
 		}
 		
 		QuestManagerPlugin.questManagerPlugin.getLogger().info("Quest Manager Initialized!");
 	}
 	
-	private int loadTemplateFile(File templateFile) {
-		if (templateFile == null || !templateFile.exists()) {
-			return 0;
+	/**
+	 * Makes sure new quests don't get an ID used by a state that's still stored, so they
+	 * never save over (or have their state removed along with) a quest waiting to be restored
+	 */
+	private void reserveStateIDs() {
+		Collection<String> keys;
+		try {
+			keys = stateStore.getKeys();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
 		}
 		
-		if (templateFile.isDirectory()) {
-			int count = 0;
-			
-			for (File f : templateFile.listFiles()) {
-				count += loadTemplateFile(f);
+		int next = 0;
+		for (String key : keys) {
+			int start = key.lastIndexOf("_");
+			if (start < 0) {
+				continue;
 			}
 			
-			return count;
-		}
-		
-		if (!templateFile.getName().endsWith(".yml") && 
-				!templateFile.getName().endsWith(".yaml")) {
-			return 0;
-		}
-		
-		//found the file, let's load it up!
-		YamlConfiguration questConfig = new YamlConfiguration();
-		try {
-			questConfig.load(templateFile);
-		} catch (IOException | InvalidConfigurationException e) {
-			e.printStackTrace();
-			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
-					"Unable to load quest from file: " + templateFile.getAbsolutePath());
-			return 0;
+			try {
+				next = Math.max(next, Integer.parseInt(key.substring(start + 1)) + 1);
+			} catch (NumberFormatException e) {
+				continue;
+			}
 		}
 		
-		QuestConfiguration questTemplate;
-		try {
-			questTemplate = new QuestConfiguration(questConfig);
-		} catch (InvalidConfigurationException e) {
-			e.printStackTrace();
+		Quest.reserveIDs(next);
+	}
+	
+	/**
+	 * Adds a loaded template to this manager and registers its npcs.<br />
+	 * NPC registration can spawn entities, so this has to be called on the main thread.
+	 * @param questTemplate
+	 * @return the number of templates registered
+	 */
+	private int registerTemplate(QuestConfiguration questTemplate) {
+		if (templatesByName.containsKey(questTemplate.getName())) {
 			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
-					"Error when parsing quest configuration file: " 
-					+ templateFile.getAbsolutePath());
-			return 0;
+					"Found more than one quest named [" + questTemplate.getName() + "]! Only the "
+					+ "first will be used when looking quests up by name");
+		} else {
+			templatesByName.put(questTemplate.getName(), questTemplate);
 		}
 		
-		
 		questTemplates.add(questTemplate);
 		
 		//get quest static npcs
 		if (!questTemplate.getAuxNPCs().isEmpty())
 		for (NPC np : questTemplate.getAuxNPCs()) {
-			questNPCs.add(np);
+			questNPCs.register(np);
 		}
 		
 		//now instantiate starting NPC associated ot this quest
 		NPC npc = questTemplate.GetStartingNPCInstance();
 		if (npc != null) {
-			questNPCs.add(npc);
+			questNPCs.register(npc);
 		}
 		
 		return 1;
 	}
 	
 	/**
-	 * Loads state from a file, recursively visiting directories
-	 * @param stateFile
-	 * @return the number of state files loaded
+	 * Registers the quest, providing no frequency information.<br />
+	 * Quests without frequency information are given equal chances of being
+	 * produced when requesting a random quest.
 	 */
-	private int loadStateFile(File stateFile) {
-		if (stateFile == null || !stateFile.exists()) {
-			return 0;
-		}		
+	public void registerQuest(Quest quest) {
+		if (quest == null) {
+			System.out.println("error!");
+		}
+		runningQuests.add(quest);
 		
-		if (stateFile.isDirectory()) {
-			int count = 0;
-			for (File file : stateFile.listFiles()) {
-				count += loadStateFile(file);
+		if (quest != null) {
+			Integer count = runningCounts.get(quest.getName());
+			runningCounts.put(quest.getName(), count == null ? 1 : count + 1);
+			
+			if (journal != null) {
+				journal.begin(quest);
 			}
-			return count;
 		}
-		String questName = stateFile.getName().substring(0, 
-				stateFile.getName().indexOf("_"));
+	}
+	
+	public void removeQuest(Quest quest) {
+		if (quest == null) {
+			System.out.println("error!");
+		}
+		if (runningQuests.remove(quest) && quest != null) {
+			if (journal != null) {
+				journal.end(quest);
+			}
+			
+			countStopped(quest.getName());
+		}
+	}
+	
+	private void countStopped(String questName) {
+		Integer count = runningCounts.get(questName);
+		if (count == null || count <= 1) {
+			runningCounts.remove(questName);
+		} else {
+			runningCounts.put(questName, count - 1);
+		}
+	}
+	
+	/**
+	 * Checks whether the quest can be put to sleep while the player is offline.<br />
+	 * Only quests the player is taking on by themselves are; party quests don't keep a saved
+	 * state, and session quests would let someone else start the session in the meantime.
+	 * @param quest
+	 * @param id
+	 * @return
+	 */
+	private boolean canHibernate(Quest quest, UUID id) {
+		return quest.getParticipants() instanceof QuestPlayer
+				&& quest.getParticipants().getIDString().equals(id.toString())
+				&& !quest.getTemplate().isSession();
+	}
+	
+	/**
+	 * Saves and unloads every quest the player is taking on by themselves, so nothing is kept
+	 * running for them while they're offline. The quests are woken back up by
+	 * {@link #wakeQuests(UUID)} when the player comes back.
+	 * @param id
+	 * @return How many quests were put to sleep
+	 */
+	public int hibernateQuests(UUID id) {
+		QuestPlayer qp = QuestManagerPlugin.questManagerPlugin.getPlayerManager().getLoadedPlayer(id);
+		if (qp == null || qp.getCurrentQuests().isEmpty()) {
+			return 0;
+		}
 		
-		QuestConfiguration template = getQuestTemplate(questName);
-		Quest quest;
-		try {
-			quest = template.instanceQuest(null);
+		int count = 0;
+		for (Quest quest : new ArrayList<Quest>(qp.getCurrentQuests())) {
+			if (!canHibernate(quest, id) || !runningQuests.remove(quest)) {
+				continue;
+			}
 			
-		} catch (InvalidConfigurationException e) {
-			e.printStackTrace();
+			//the journal won't let go of the quest until this save has been written
+			String key = ProgressJournal.getKey(quest);
+			stateStore.saveState(key, quest.getState());
+			quest.hibernate();
+			countStopped(quest.getName());
 			
-			//remove it?
-			if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getKeepOnError()) {
-				stateFile.delete();
-			} else {
-				QuestManagerPlugin.questManagerPlugin.getLogger().info("Ignoring invalid config.");
+			if (journal != null) {
+				journal.hibernate(quest);
 			}
 			
-			return 0;
-		} catch (NullPointerException e) {
-			e.printStackTrace();
-			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Missing quest template for save data: "
-					+ questName);
-			return 0;
-		} catch (SessionConflictException e) {
-			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Unable to restore "
-					+ "quest state due to session conflict!");
+			addHibernatingQuest(id, key);
+			count++;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Notes a quest state that's waiting in the state store for the player to come back
+	 * @param id
+	 * @param key
+	 */
+	public void addHibernatingQuest(UUID id, String key) {
+		List<String> keys = hibernating.get(id);
+		if (keys == null) {
+			keys = new LinkedList<String>();
+			hibernating.put(id, keys);
+		}
+		
+		keys.add(key);
+	}
+	
+	/**
+	 * Brings back every quest that was put to sleep while the player was offline
+	 * @param id
+	 * @return How many quests were woken up
+	 */
+	public int wakeQuests(UUID id) {
+		List<String> keys = hibernating.remove(id);
+		if (keys == null) {
 			return 0;
 		}
 		
-		QuestState state = new QuestState();
-		YamlConfiguration config = new YamlConfiguration();
+		int count = 0;
+		for (String key : keys) {
+			if (wakeQuest(key)) {
+				count++;
+			}
+		}
 		
+		if (count > 0) {
+			QuestManagerPlugin.questManagerPlugin.getPlayerManager().getPlayer(id).updateQuestBook(true);
+		}
 		
+		return count;
+	}
+	
+	/**
+	 * Restores a single hibernating quest from its saved state and starts it back up
+	 * @param key
+	 * @return Whether the quest was restored
+	 */
+	private boolean wakeQuest(String key) {
+		QuestState state;
 		try {
-			config.load(stateFile);
-			state.load(config);
-		} catch (Exception e) {
+			state = stateStore.loadState(key);
+		} catch (IOException | InvalidConfigurationException e) {
 			e.printStackTrace();
-			return 0;
-		} 
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to read the state of hibernating quest " + key);
+			return false;
+		}
+		
+		if (state == null) {
+			return false;
+		}
 		
+		QuestConfiguration template = getQuestTemplate(state.getName());
+		if (template == null) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to wake quest " + key + ": missing quest template [" + state.getName() + "]");
+			return false;
+		}
+		
+		Quest quest;
 		try {
-			quest.loadState(state);
-			//if successfull, remove state info so we don't duplicate
-			
-			registerQuest(quest);
-			
-			stateFile.delete();
+			quest = template.instanceQuest(null);
+			if (quest == null) {
+				return false;
+			}
 			
-		} catch (InvalidConfigurationException e) {
-			// TODO Auto-generated catch block
+			state.resolveParticipant();
+			quest.loadState(state, true);
+		} catch (InvalidConfigurationException | SessionConflictException e) {
 			e.printStackTrace();
-			return 0;
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning("Unable to wake quest " + key);
+			return false;
 		}
 		
+		//it's running under a new ID now
+		registerQuest(quest);
+		stateStore.removeState(key);
 		
-		return 1;
-		
+		return true;
 	}
 	
 	/**
-	 * Registers the quest, providing no frequency information.<br />
-	 * Quests without frequency information are given equal chances of being
-	 * produced when requesting a random quest.
+	 * @return How many quests are asleep waiting for their player to come back
 	 */
-	public void registerQuest(Quest quest) {
-		if (quest == null) {
-			System.out.println("error!");
+	public int getHibernatingCount() {
+		int count = 0;
+		for (List<String> keys : hibernating.values()) {
+			count += keys.size();
 		}
-		runningQuests.add(quest);
+		
+		return count;
 	}
 	
-	public void removeQuest(Quest quest) {
-		if (quest == null) {
-			System.out.println("error!");
+	/**
+	 * Checks whether any quest with the given name is currently running
+	 * @param questName
+	 * @return
+	 */
+	public boolean isQuestRunning(String questName) {
+		return runningCounts.containsKey(questName);
+	}
+	
+	/**
+	 * Records the quest's current progress in the progress journal, if there is one
+	 * @param quest
+	 */
+	public void recordProgress(Quest quest) {
+		if (journal != null) {
+			journal.progress(quest);
 		}
-		runningQuests.remove(quest);
 	}
 	
 	
@@ -326,6 +501,16 @@ public class QuestManager implements Listener {
 	 */
 	public void stopQuests() {
 		
+		//anything not restored yet still has its state file
+		if (stateLoader != null) {
+			stateLoader.stop();
+		}
+		
+		//quests are about to save their full state, so the journal isn't needed anymore
+		if (journal != null) {
+			journal.close();
+		}
+		
 		if (runningQuests != null && !runningQuests.isEmpty()) {
 			
 			QuestManagerPlugin.questManagerPlugin.getLogger().info(
@@ -339,12 +524,12 @@ public class QuestManager implements Listener {
 			QuestManagerPlugin.questManagerPlugin.getLogger().info("done!");
 		}
 		
+		strayCleaner.stop();
+		
 		//remove starting NPCs
 		if (!questNPCs.isEmpty()) {
-			for (NPC npc : questNPCs) {
-				if (npc.getEntity() != null) {
-					npc.removeEntity(true);
-				}
+			for (NPC npc : questNPCs.getNPCs()) {
+				npc.removeEntity(true);
 			}
 		}
 	}
@@ -364,6 +549,13 @@ public class QuestManager implements Listener {
 	public File getSaveLocation() {
 		return saveDirectory;
 	}
+	
+	/**
+	 * @return Where the state of stopped quests is kept
+	 */
+	public QuestStateStore getStateStore() {
+		return stateStore;
+	}
 
 	
 	public Scoreboard getScoreboard() {
@@ -377,17 +569,26 @@ public class QuestManager implements Listener {
 	 * @return the Quest Configuration used as a template, or null if it wasn't found
 	 */
 	public QuestConfiguration getQuestTemplate(String questName) {
-		if (questTemplates.isEmpty()) {
+		if (questName == null) {
 			return null;
 		}
 		
-		for (QuestConfiguration qc : questTemplates) {
-			if (qc.getName().equals(questName)) {
-				return qc;
-			}
+		return templatesByName.get(questName);
+	}
+	
+	/**
+	 * Looks up the blueprint of the quest with the given name
+	 * @param questName
+	 * @return The blueprint, or null if there's no quest by that name
+	 * @see #getQuestTemplate(String)
+	 */
+	public QuestBlueprint getQuestBlueprint(String questName) {
+		QuestConfiguration template = getQuestTemplate(questName);
+		if (template == null) {
+			return null;
 		}
 		
-		return null;
+		return template.getBlueprint();
 	}
 	
 	public List<QuestConfiguration> getQuestTemplates() {
@@ -401,18 +602,25 @@ public class QuestManager implements Listener {
 				continue;
 			}
 			
-			for (final NPC npc : questNPCs) {
-				npc.getEntity().getLocation().getChunk().load();
+			for (final NPC npc : questNPCs.getNPCs()) {
+				final Entity ent = npc.loadEntity();
+				if (ent == null) {
+					continue;
+				}
+				
 				Bukkit.getScheduler().runTaskLater(QuestManagerPlugin.questManagerPlugin, 
 						new Runnable(){
 
 							@Override
 							public void run() {
-								for (Entity e : npc.getEntity().getLocation().getChunk().getEntities()) {
+								for (Entity e : ent.getLocation().getChunk().getEntities()) {
 									if (e.getType().equals(EntityType.VILLAGER)) {
 										e.remove();
 									}
 								}
+								
+								//bring back the npc's own entity, if it knows how
+								npc.materialize();
 							}
 						
 						}, 1
@@ -444,13 +652,13 @@ public class QuestManager implements Listener {
 			System.out.println("processing " + questTemplate.getName());
 			if (!questTemplate.getAuxNPCs().isEmpty())
 				for (NPC np : questTemplate.getAuxNPCs()) {
-					questNPCs.add(np);
+					questNPCs.register(np);
 				}
 				
 				//now instantiate starting NPC associated ot this quest
 				NPC npc = questTemplate.GetStartingNPCInstance();
 				if (npc != null) {
-					questNPCs.add(npc);
+					questNPCs.register(npc);
 				}
 		}
 	}
@@ -483,14 +691,120 @@ public class QuestManager implements Listener {
 	
 	@EventHandler
 	public void onPlayerJoin(PlayerChangedWorldEvent e) {
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(
-				e.getPlayer().getWorld().getName())) {
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(
+				e.getPlayer().getWorld())) {
 			//if they're coming to a quest world, make sure we have a player for them
 			QuestManagerPlugin.questManagerPlugin.getPlayerManager().getPlayer(
 					e.getPlayer().getUniqueId());
 		}
 	}
 	
+	/**
+	 * Puts the player's quests to sleep once everything else has seen them quit. Quests they're
+	 * taking on alone are unloaded, and the rest go dormant if nobody else on them is online.
+	 * @param e
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent e) {
+		UUID id = e.getPlayer().getUniqueId();
+		hibernateQuests(id);
+		
+		QuestPlayer qp = QuestManagerPlugin.questManagerPlugin.getPlayerManager().getLoadedPlayer(id);
+		if (qp == null) {
+			return;
+		}
+		
+		for (Quest quest : qp.getCurrentQuests()) {
+			if (!hasOtherParticipantOnline(quest, id)) {
+				quest.sleep();
+			}
+		}
+	}
+	
+	/**
+	 * Wakes the player's quests back up once they've been marked as online
+	 * @param e
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerJoinServer(PlayerJoinEvent e) {
+		UUID id = e.getPlayer().getUniqueId();
+		wakeQuests(id);
+		
+		QuestPlayer qp = QuestManagerPlugin.questManagerPlugin.getPlayerManager().getLoadedPlayer(id);
+		if (qp == null) {
+			return;
+		}
+		
+		for (Quest quest : new ArrayList<Quest>(qp.getCurrentQuests())) {
+			quest.wake();
+		}
+	}
+	
+	/**
+	 * Checks whether anyone on the quest besides the given player is online
+	 * @param quest
+	 * @param id The player to leave out, usually because they're on their way out
+	 * @return
+	 */
+	private static boolean hasOtherParticipantOnline(Quest quest, UUID id) {
+		if (quest.getParticipants() == null) {
+			return false;
+		}
+		
+		for (QuestPlayer qp : quest.getParticipants().getParticipants()) {
+			if (!qp.getPlayer().getUniqueId().equals(id) && qp.getPlayer().isOnline()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	@EventHandler
+	public void onPlayerDeath(PlayerDeathEvent e) {
+		QuestPlayer qp = QuestManagerPlugin.questManagerPlugin.getPlayerManager().getLoadedPlayer(
+				e.getEntity().getUniqueId());
+		if (qp == null || qp.getCurrentQuests().isEmpty()) {
+			return;
+		}
+		
+		//failing a quest takes it out of the list
+		for (Quest quest : new ArrayList<Quest>(qp.getCurrentQuests())) {
+			quest.onPlayerDeath(e);
+		}
+	}
+	
+	@EventHandler
+	public void onPartyDisband(PartyDisbandEvent e) {
+		List<Quest> quests = new ArrayList<Quest>();
+		for (Quest quest : runningQuests) {
+			if (quest.getParticipants() instanceof Party) {
+				quests.add(quest);
+			}
+		}
+		
+		for (Quest quest : quests) {
+			quest.onPartyDisband(e);
+		}
+	}
+	
+	/**
+	 * Updates every running quest when some other plugin fires a {@link RequirementUpdateEvent}
+	 * without a requirement. Events fired for a requirement are left alone, since its quest
+	 * has already been told directly.
+	 * @param e
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onRequirementUpdate(RequirementUpdateEvent e) {
+		if (e.getRequirement() != null) {
+			return;
+		}
+		
+		for (Quest quest : new ArrayList<Quest>(runningQuests)) {
+			quest.onRequirementUpdate(null);
+		}
+	}
+	
 	@EventHandler
 	public void onCraft(CraftItemEvent e) {
 		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getAllowCrafting()) {
@@ -502,7 +816,7 @@ public class QuestManager implements Listener {
 			Location loc = p.getLocation();
 			
 			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-					.getWorlds().contains(loc.getWorld().getName())) {
+					.isQuestWorld(loc.getWorld())) {
 				e.setCancelled(true);
 			}
 		}
@@ -518,7 +832,7 @@ public class QuestManager implements Listener {
 		String world = e.getEntity().getWorld().getName();
 		
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration()
-					.getWorlds().contains(world)) {
+					.isQuestWorld(world)) {
 			return;
 		}
 		
@@ -566,7 +880,7 @@ public class QuestManager implements Listener {
 		}
 		
 		String worldname = e.getEntity().getWorld().getName();
-		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(worldname)) {
+		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(worldname)) {
 			return;
 		}
 		
@@ -585,8 +899,7 @@ public class QuestManager implements Listener {
 		
 		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getChatTitle()) {
 			//if no, check worlds
-			if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds()
-					.contains(e.getPlayer().getWorld().getName())) {
+			if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(e.getPlayer().getWorld())) {
 				return;
 			}
 		}
@@ -612,8 +925,8 @@ public class QuestManager implements Listener {
 		}
 		
 		Player p = (Player) e.getWhoClicked();
-		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(
-				p.getWorld().getName())) {
+		if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(
+				p.getWorld())) {
 			return;
 		}
 		AnvilInventory inv = (AnvilInventory) e.getInventory();
@@ -651,36 +964,26 @@ public class QuestManager implements Listener {
 	
 	@EventHandler
 	public void onChunkLoad(ChunkLoadEvent e) {
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(e.getWorld().getName())) {
-			boolean trip;
-			if (questNPCs == null || questNPCs.isEmpty() || e.getChunk().getEntities().length == 0) {
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(e.getWorld())) {
+			if (questNPCs == null || questNPCs.isEmpty()) {
 				return;
 			}
+			
 			for (Entity entity : e.getChunk().getEntities()) {
 				if (entity.getCustomName() == null || entity.getCustomName().isEmpty()) {
 					continue;
 				}
 				
-				trip = false;
-				for (NPC npc : questNPCs) {
-					if (npc.getEntity() == null) {
-						return;
-					}
-					if (npc.getEntity().getUniqueId().equals(entity.getUniqueId())) {
-						trip = true;
-						break;
-					}
+				if (questNPCs.isNPC(entity.getUniqueId())) {
+					continue;
 				}
 				
-				
-				if (trip != true) {
-//					if (entity instanceof LivingEntity) {
-//						if (!((LivingEntity) entity).getRemoveWhenFarAway()) {
-//							continue;
-//						}
+//				if (entity instanceof LivingEntity) {
+//					if (!((LivingEntity) entity).getRemoveWhenFarAway()) {
+//						continue;
 //					}
-					entity.remove();
-				}
+//				}
+				strayCleaner.queue(entity);
 			}
 		}
 	}
@@ -756,13 +1059,15 @@ public class QuestManager implements Listener {
 	 * @return An NPC with the given name, or null if it doesn't exist
 	 */
 	public NPC getNPC(String name) {
-		for (NPC npc : questNPCs) {
-			if (npc.getName() != null && npc.getName().equals(name)) {
-				return npc;
-			}
-		}
-		
-		return null;
+		return questNPCs.getNPC(name);
+	}
+	
+	public NPCRegistry getNPCRegistry() {
+		return questNPCs;
+	}
+	
+	public StrayEntityCleaner getStrayCleaner() {
+		return strayCleaner;
 	}
 	
 	public List<Quest> getRunningQuests() {
@@ -772,8 +1077,8 @@ public class QuestManager implements Listener {
 	@EventHandler
 	public void onPortal(EntityCreatePortalEvent e) {
 		if (e.getPortalType() == PortalType.ENDER && e.getEntity().getType() == EntityType.ENDER_DRAGON)
-		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(
-				e.getEntity().getWorld().getName())) {
+		if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(
+				e.getEntity().getWorld())) {
 			e.setCancelled(true);
 			return;
 		}
@@ -785,17 +1090,11 @@ public class QuestManager implements Listener {
 	 * @param questNPC
 	 */
 	public void registerNPC(NPC questNPC) {
-		this.questNPCs.add(questNPC);
+		this.questNPCs.register(questNPC);
 	}
 	
 	public void unregisterNPC(NPC questNPC) {
-		Iterator<NPC> it = questNPCs.iterator();
-		while (it.hasNext()) {
-			if (it.next().getID().equals(questNPC.getID())) {
-				it.remove();
-				return;
-			}
-		}
+		this.questNPCs.unregister(questNPC);
 	}
 	
 }
@@ -2,22 +2,28 @@ package com.SkyIsland.QuestManager;
 
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
-import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import com.SkyIsland.QuestManager.Configuration.PluginConfiguration;
+import com.SkyIsland.QuestManager.Configuration.Binary.BinaryCodec;
+import com.SkyIsland.QuestManager.Configuration.Binary.StorageBenchmark;
+import com.SkyIsland.QuestManager.Configuration.Binary.StorageConverter;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
 import com.SkyIsland.QuestManager.Configuration.Utils.Chest;
 import com.SkyIsland.QuestManager.Configuration.Utils.LocationState;
 import com.SkyIsland.QuestManager.Enemy.DefaultEnemy;
@@ -63,6 +69,7 @@ import com.SkyIsland.QuestManager.Quest.Requirements.DeliverRequirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.InteractRequirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.PositionRequirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.PossessRequirement;
+import com.SkyIsland.QuestManager.Quest.Requirements.RequirementDispatcher;
 import com.SkyIsland.QuestManager.Quest.Requirements.SlayRequirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.TalkRequirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.TimeRequirement;
@@ -70,6 +77,13 @@ import com.SkyIsland.QuestManager.Quest.Requirements.VanquishRequirement;
 import com.SkyIsland.QuestManager.Region.CuboidRegion;
 import com.SkyIsland.QuestManager.Region.RegionManager;
 import com.SkyIsland.QuestManager.Region.SphericalRegion;
+import com.SkyIsland.QuestManager.Scheduling.Alarm;
+import com.SkyIsland.QuestManager.Scheduling.TickBudgetScheduler;
+import com.SkyIsland.QuestManager.Storage.FilePlayerStore;
+import com.SkyIsland.QuestManager.Storage.FileQuestStateStore;
+import com.SkyIsland.QuestManager.Storage.PlayerStore;
+import com.SkyIsland.QuestManager.Storage.QuestStateStore;
+import com.SkyIsland.QuestManager.Storage.SQLiteStore;
 import com.SkyIsland.QuestManager.UI.ChatGuiHandler;
 import com.SkyIsland.QuestManager.UI.InventoryGuiHandler;
 import com.SkyIsland.QuestManager.UI.Menu.Action.PartyInviteAction;
@@ -96,8 +110,14 @@ public class QuestManagerPlugin extends JavaPlugin {
 	
 	private RequirementManager reqManager;
 	
+	private RequirementDispatcher reqDispatcher;
+	
+	private EntityHandleCache entityCache;
+	
 	private PlayerManager playerManager;
 	
+	private SaveQueue saveQueue;
+	
 	private RegionManager regionManager;
 	
 	private SpellManager spellManager;
@@ -110,7 +130,10 @@ public class QuestManagerPlugin extends JavaPlugin {
 	
 	private InventoryGuiHandler inventoryGuiHandler;
 	
-	private PluginConfiguration config;
+	/**
+	 * Immutable snapshot of the plugin's configuration. Replaced as a whole on reload
+	 */
+	private volatile PluginConfiguration config;
 	
 	private File saveDirectory;
 	
@@ -120,10 +143,18 @@ public class QuestManagerPlugin extends JavaPlugin {
 	
 	private File spellDirectory;
 	
+	private File playerDirectory;
+	
+	private PlayerStore playerStore;
+	
+	private QuestStateStore stateStore;
+	
 	private final static String configFileName = "QuestManagerConfig.yml";
 	
 	private final static String playerConfigFileName = "players.yml";
 	
+	private final static String partyFileName = "parties";
+	
 	public static final double version = 1.00;
 	
 	@Override
@@ -156,6 +187,11 @@ public class QuestManagerPlugin extends JavaPlugin {
 		if (!spellDirectory.exists()) {
 			spellDirectory.mkdirs();
 		}
+		
+		playerDirectory = new File(getDataFolder(), config.getPlayerPath());
+		if (!playerDirectory.exists()) {
+			playerDirectory.mkdirs();
+		}
 	
 		//register our own requirements
 		reqManager.registerFactory("ARRIVE", 
@@ -233,42 +269,27 @@ public class QuestManagerPlugin extends JavaPlugin {
 		chatGuiHandler = new ChatGuiHandler(this, config.getMenuVerbose());
 		inventoryGuiHandler = new InventoryGuiHandler();
 		
+		reqDispatcher = new RequirementDispatcher();
+		Bukkit.getPluginManager().registerEvents(reqDispatcher, this);
+		
+		entityCache = new EntityHandleCache();
+		Bukkit.getPluginManager().registerEvents(entityCache, this);
+		
+		
+		saveQueue = new SaveQueue();
+		openStores();
 		
 		//preload Player data
-				File playerFile = new File(getDataFolder(), playerConfigFileName);
-				if (!playerFile.exists()) {
-					try {
-						YamlConfiguration tmp = new YamlConfiguration();
-						tmp.createSection("players");
-						tmp.createSection("parties");
-						tmp.save(playerFile);
-					} catch (IOException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-				}
-
-				//get Player data & manager
-				YamlConfiguration playerConfig = new YamlConfiguration();
-				try {
-					playerConfig.load(playerFile);
-				} catch (FileNotFoundException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				} catch (IOException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				} catch (InvalidConfigurationException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				playerManager = new PlayerManager(playerConfig);
+		playerManager = new PlayerManager(
+				playerStore,
+				new File(getDataFolder(), playerConfigFileName));
 		
 		
 		//parse config & instantiate manager
 		manager = new QuestManager(
 				questDirectory, 
-				saveDirectory);
+				saveDirectory,
+				stateStore);
 		
 		manager.init();
 		
@@ -305,13 +326,50 @@ public class QuestManagerPlugin extends JavaPlugin {
 		}
 		
 		//save user database
-		playerManager.save(new File(getDataFolder(), playerConfigFileName));
+		playerManager.save();
 		stopAllQuests();
 		summonManager.removeSummons();
 		
+		//wait for everything to hit the disk
+		saveQueue.shutdown();
+		playerStore.close();
+		stateStore.close();
+		
+		//our tasks were cancelled above, so start over with fresh schedulers when enabled again
+		TickBudgetScheduler.reset();
+		Alarm.reset();
 		
 	}
 	
+	/**
+	 * Opens the stores players and quest states are kept in, as configured. If the database can't
+	 * be opened, save files are used instead.
+	 */
+	private void openStores() {
+		if (config.getStorage().equalsIgnoreCase("sqlite")) {
+			File databaseFile = new File(getDataFolder(), config.getDatabaseFile());
+			try {
+				SQLiteStore store = new SQLiteStore(databaseFile, saveQueue);
+				playerStore = store;
+				stateStore = store;
+				getLogger().info("Using database " + databaseFile.getPath());
+				return;
+			} catch (IOException e) {
+				e.printStackTrace();
+				getLogger().warning("Unable to open database " + databaseFile.getAbsolutePath()
+						+ "! Falling back to save files");
+			}
+		} else if (!config.getStorage().equalsIgnoreCase("file")) {
+			getLogger().warning("Unknown storage type [" + config.getStorage() + "]! Using save files");
+		}
+		
+		playerStore = new FilePlayerStore(playerDirectory,
+				new File(getDataFolder(), partyFileName + (config.getBinaryStorage()
+						? BinaryCodec.EXTENSION : BinaryCodec.YAML_EXTENSION)),
+				config.getBinaryStorage(), saveQueue);
+		stateStore = new FileQuestStateStore(saveDirectory, config.getBinaryStorage(), saveQueue);
+	}
+	
 	public void onReload() {
 		onDisable();
 		
@@ -378,6 +436,101 @@ public class QuestManagerPlugin extends JavaPlugin {
 				
 			}
 			
+			if (args[0].equals("stats")) {
+				sender.sendMessage(ChatColor.DARK_BLUE + "Player event dispatches:" + ChatColor.RESET);
+				for (Map.Entry<Class<? extends Event>, AtomicLong> entry
+						: playerManager.getEventRouter().getDispatchCounts().entrySet()) {
+					sender.sendMessage("  " + entry.getKey().getSimpleName() + ": " + entry.getValue().get());
+				}
+				sender.sendMessage(ChatColor.DARK_BLUE + "Requirements listening for events: " + ChatColor.RESET
+						+ reqDispatcher.getRegisteredCount());
+				sender.sendMessage(ChatColor.DARK_BLUE + "Entity cache: " + ChatColor.RESET
+						+ entityCache.size() + " of " + entityCache.getWatchedCount() + " watched loaded, "
+						+ entityCache.getHits() + " hits, " + entityCache.getMisses() + " misses, "
+						+ entityCache.getScanCount() + " world scans");
+				sender.sendMessage(ChatColor.DARK_BLUE + "Quests: " + ChatColor.RESET
+						+ manager.getRunningQuests().size() + " running, "
+						+ manager.getHibernatingCount() + " hibernating");
+				TickBudgetScheduler ticks = TickBudgetScheduler.getScheduler();
+				sender.sendMessage(ChatColor.DARK_BLUE + "Scheduled work: " + ChatColor.RESET
+						+ ticks.getRegisteredCount() + " registered, " + ticks.getQueueDepth() + " waiting, "
+						+ String.format("%.1f", ticks.getAverageCost()) + "us each on average, "
+						+ ticks.getOverBudgetCount() + " tick(s) over the " + ticks.getBudget() + "ms budget");
+				sender.sendMessage(ChatColor.DARK_BLUE + "Alarms: " + ChatColor.RESET
+						+ Alarm.getScheduler().getPendingCount() + " pending, "
+						+ Alarm.getScheduler().getFiredCount() + " fired, "
+						+ String.format("%.1f", Alarm.getScheduler().getAverageLateness()) + "ms late on average ("
+						+ String.format("%.1f", Alarm.getScheduler().getMaxLateness()) + "ms at most)");
+				sender.sendMessage(ChatColor.DARK_BLUE + "Stray entities removed: " + ChatColor.RESET
+						+ manager.getStrayCleaner().getRemovedCount() + " ("
+						+ manager.getStrayCleaner().getQueuedCount() + " queued)");
+				return true;
+			}
+			
+			if (args[0].equals("tickables")) {
+				TickBudgetScheduler ticks = TickBudgetScheduler.getScheduler();
+				sender.sendMessage(ChatColor.DARK_BLUE + "Live tickables: " + ChatColor.RESET
+						+ ticks.getRegisteredCount() + " (" + ticks.getCollectedCount()
+						+ " dropped without being released)");
+				for (Map.Entry<String, Integer> entry : ticks.getTickableCounts().entrySet()) {
+					sender.sendMessage("  " + entry.getKey() + ": " + entry.getValue());
+				}
+				return true;
+			}
+			
+			if (args[0].equals("export") || args[0].equals("import")) {
+				boolean toBinary = args[0].equals("import");
+				sender.sendMessage(ChatColor.DARK_BLUE + (toBinary ? "Converting saves to binary..."
+						: "Converting saves to yaml...") + ChatColor.RESET);
+				
+				//get everything onto disk first so nothing's written over the converted files
+				playerManager.checkpoint();
+				saveQueue.flush();
+				
+				StorageConverter converter = new StorageConverter(toBinary);
+				converter.convertPlayers(playerDirectory);
+				converter.convertParties(new File(getDataFolder(), partyFileName + BinaryCodec.YAML_EXTENSION));
+				converter.convertStates(saveDirectory);
+				
+				for (String failure : converter.getFailures()) {
+					getLogger().warning("Unable to convert " + failure);
+				}
+				sender.sendMessage(ChatColor.DARK_BLUE + "Converted " + converter.getConvertedCount()
+						+ " file(s), " + converter.getFailures().size() + " failure(s)" + ChatColor.RESET);
+				if (config.getBinaryStorage() != toBinary) {
+					sender.sendMessage(ChatColor.DARK_GRAY + "Saves will keep being written as "
+							+ (toBinary ? "yaml" : "binary") + " until config.binaryStorage is changed"
+							+ ChatColor.RESET);
+				}
+				return true;
+			}
+			
+			if (args[0].equals("benchmark")) {
+				int rounds = 10;
+				if (args.length > 1) {
+					try {
+						rounds = Math.max(1, Integer.parseInt(args[1]));
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+				
+				List<QuestState> states = new LinkedList<QuestState>();
+				for (Quest quest : manager.getRunningQuests()) {
+					states.add(quest.getState());
+				}
+				
+				try {
+					for (String line : new StorageBenchmark(playerManager.getPlayers(), states).run(rounds)) {
+						sender.sendMessage(line);
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+					sender.sendMessage(ChatColor.RED + "Benchmark failed: " + e.getMessage() + ChatColor.RESET);
+				}
+				return true;
+			}
+			
 		}
 		
 		if (cmd.getName().equals("questlog")) {
@@ -610,6 +763,14 @@ public class QuestManagerPlugin extends JavaPlugin {
 		return this.reqManager;
 	}
 	
+	public RequirementDispatcher getRequirementDispatcher() {
+		return this.reqDispatcher;
+	}
+	
+	public EntityHandleCache getEntityCache() {
+		return this.entityCache;
+	}
+	
 	public PluginConfiguration getPluginConfiguration() {
 		return this.config;
 	}
@@ -618,6 +779,10 @@ public class QuestManagerPlugin extends JavaPlugin {
 		return playerManager;
 	}
 	
+	public SaveQueue getSaveQueue() {
+		return saveQueue;
+	}
+	
 	public ChatGuiHandler getChatGuiHandler() {
 		return chatGuiHandler;
 	}
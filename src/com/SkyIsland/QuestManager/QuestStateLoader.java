@@ -0,0 +1,387 @@
+package com.SkyIsland.QuestManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import com.SkyIsland.QuestManager.Configuration.QuestConfiguration;
+import com.SkyIsland.QuestManager.Configuration.SessionConflictException;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Quest.Quest;
+import com.SkyIsland.QuestManager.Storage.QuestStateStore;
+
+/**
+ * Restores saved quest states at startup.<br />
+ * States are read out of the {@link QuestStateStore} and parsed in parallel on a fork-join pool. The
+ * parsed states are then turned back into running quests on the main thread a few at a time, spending
+ * no more than {@link #budgetNanos} each tick. A state is only removed from the store once its quest
+ * has been restored, so anything left over when the server stops is picked up again next time.<br />
+ * Quests taken on by a player who's offline aren't restored; they're left in the store and
+ * {@link QuestManager#addHibernatingQuest(UUID, String) hibernate} until the player logs in.<br />
+ * States that fail are noted and reported together once everything has been restored, instead of
+ * each printing its own stack trace.
+ * @author Skyler
+ *
+ */
+public class QuestStateLoader {
+
+	/**
+	 * A state's key and the state read out of the store
+	 */
+	private static class ParsedState {
+
+		private String key;
+
+		private String questName;
+
+		private QuestState state;
+
+		private ParsedState(String key, String questName, QuestState state) {
+			this.key = key;
+			this.questName = questName;
+			this.state = state;
+		}
+
+	}
+
+	/**
+	 * Parses a slice of the key list, splitting it in half until it's small enough
+	 */
+	private class ParseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int start;
+
+		private int end;
+
+		private ParseTask(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= threshold) {
+				for (int i = start; i < end; i++) {
+					results[i] = parseState(keys.get(i));
+				}
+				return;
+			}
+
+			int mid = (start + end) >>> 1;
+			invokeAll(new ParseTask(start, mid), new ParseTask(mid, end));
+		}
+
+	}
+
+	/**
+	 * Restores parsed states until it runs out of time for the tick
+	 */
+	private class ApplyTask extends BukkitRunnable {
+
+		@Override
+		public void run() {
+			if (applyBatch()) {
+				this.cancel();
+				task = null;
+			}
+		}
+
+	}
+
+	/**
+	 * How many states a single parse task reads before it's split up
+	 */
+	private static final int threshold = 4;
+
+	/**
+	 * How long to spend restoring quests each tick, in nanoseconds
+	 */
+	private static final long budgetNanos = 5000000;
+
+	private QuestManager manager;
+
+	private QuestStateStore store;
+
+	private List<String> keys;
+
+	private ParsedState[] results;
+
+	private Queue<ParsedState> pending;
+
+	private Queue<String> failures;
+
+	private ApplyTask task;
+
+	private int restoredCount;
+
+	private int hibernatingCount;
+
+	private long applyStart;
+
+	public QuestStateLoader(QuestManager manager, QuestStateStore store) {
+		this.manager = manager;
+		this.store = store;
+		this.keys = new ArrayList<String>();
+		this.pending = new LinkedList<ParsedState>();
+		this.failures = new ConcurrentLinkedQueue<String>();
+		this.task = null;
+		this.restoredCount = 0;
+		this.hibernatingCount = 0;
+
+		try {
+			keys.addAll(store.getKeys());
+		} catch (IOException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to look up saved quest states!");
+		}
+	}
+
+	/**
+	 * Reads and parses every state, blocking until they're all done. Parsed states are
+	 * kept until {@link #start()} is called.
+	 * @return How many states were parsed successfully
+	 */
+	public int parse() {
+		results = new ParsedState[keys.size()];
+
+		if (!keys.isEmpty()) {
+			ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+			try {
+				pool.invoke(new ParseTask(0, keys.size()));
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		for (ParsedState parsed : results) {
+			if (parsed != null) {
+				pending.add(parsed);
+			}
+		}
+
+		results = null;
+		return pending.size();
+	}
+
+	/**
+	 * Starts restoring parsed states on the main thread. The first batch is restored right away.
+	 */
+	public void start() {
+		if (task != null) {
+			return;
+		}
+
+		applyStart = System.nanoTime();
+
+		if (!applyBatch()) {
+			task = new ApplyTask();
+			task.runTaskTimer(QuestManagerPlugin.questManagerPlugin, 1, 1);
+		}
+	}
+
+	/**
+	 * Restores pending states until they run out or the tick's budget is spent
+	 * @return Whether every state has been restored
+	 */
+	private boolean applyBatch() {
+		long start = System.nanoTime();
+		ParsedState parsed;
+
+		while ((parsed = pending.poll()) != null) {
+			if (apply(parsed)) {
+				restoredCount++;
+			}
+
+			if (System.nanoTime() - start >= budgetNanos) {
+				break;
+			}
+		}
+
+		if (pending.isEmpty()) {
+			finish();
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Stops restoring states. States that haven't been restored yet are left in the store.
+	 */
+	public void stop() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+
+		pending.clear();
+	}
+
+	/**
+	 * @return Whether there are still parsed states waiting to be restored
+	 */
+	public boolean isRunning() {
+		return task != null;
+	}
+
+	public int getStateCount() {
+		return keys.size();
+	}
+
+	public int getRestoredCount() {
+		return restoredCount;
+	}
+
+	public int getHibernatingCount() {
+		return hibernatingCount;
+	}
+
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Reads a state out of the store. Safe to call off of the main thread.
+	 * @param key
+	 * @return The parsed state, or null if it couldn't be read
+	 */
+	private ParsedState parseState(String key) {
+		//keys are [name]_[id]
+		int index = key.indexOf("_");
+		if (index < 0) {
+			failures.add(key + ": not a quest state");
+			return null;
+		}
+
+		QuestState state;
+
+		try {
+			state = store.loadState(key);
+		} catch (Exception e) {
+			failures.add(key + ": " + e.toString().trim());
+			return null;
+		}
+
+		if (state == null) {
+			failures.add(key + ": removed before it could be read");
+			return null;
+		}
+
+		return new ParsedState(key, key.substring(0, index), state);
+	}
+
+	/**
+	 * Turns a parsed state back into a running quest. Has to be called on the main thread.
+	 * @param parsed
+	 * @return Whether the quest was restored
+	 */
+	private boolean apply(ParsedState parsed) {
+		QuestConfiguration template = manager.getQuestTemplate(parsed.questName);
+		if (template == null) {
+			failures.add(parsed.key + ": missing quest template [" + parsed.questName + "]");
+			return false;
+		}
+
+		UUID offline = getOfflinePlayer(parsed.state.getParticipantID());
+		if (offline != null && !template.isSession()) {
+			manager.addHibernatingQuest(offline, parsed.key);
+			hibernatingCount++;
+			return false;
+		}
+
+		Quest quest;
+		try {
+			quest = template.instanceQuest(null);
+		} catch (InvalidConfigurationException e) {
+			//remove it?
+			if (!QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getKeepOnError()) {
+				store.removeState(parsed.key);
+				failures.add(parsed.key + ": invalid quest configuration; removed");
+			} else {
+				failures.add(parsed.key + ": invalid quest configuration; ignored");
+			}
+
+			return false;
+		} catch (SessionConflictException e) {
+			failures.add(parsed.key + ": session conflict");
+			return false;
+		}
+
+		if (quest == null) {
+			failures.add(parsed.key + ": quest [" + parsed.questName + "] has no goals");
+			return false;
+		}
+
+		try {
+			parsed.state.resolveParticipant();
+			quest.loadState(parsed.state);
+		} catch (Exception e) {
+			failures.add(parsed.key + ": " + e.toString().trim());
+			return false;
+		}
+
+		//if successfull, remove state info so we don't duplicate
+		manager.registerQuest(quest);
+		store.removeState(parsed.key);
+
+		return true;
+	}
+
+	/**
+	 * Looks up the player a state belongs to, if they're a single player that's offline
+	 * @param participantID
+	 * @return The player's ID, or null if the participant is online or isn't a player
+	 */
+	private static UUID getOfflinePlayer(String participantID) {
+		if (participantID == null) {
+			return null;
+		}
+
+		UUID id;
+		try {
+			id = UUID.fromString(participantID);
+		} catch (IllegalArgumentException e) {
+			//a party
+			return null;
+		}
+
+		return Bukkit.getPlayer(id) == null ? id : null;
+	}
+
+	/**
+	 * Logs how restoration went, including every state that failed
+	 */
+	private void finish() {
+		Logger logger = QuestManagerPlugin.questManagerPlugin.getLogger();
+
+		logger.info("Successfully loaded state information for " + restoredCount + " quest(s) in "
+				+ ((System.nanoTime() - applyStart) / 1000000) + "ms! " + hibernatingCount
+				+ " more will be restored when their player logs in.");
+
+		if (!failures.isEmpty()) {
+			StringBuilder builder = new StringBuilder("Unable to restore " + failures.size()
+					+ " quest state(s):");
+			for (String failure : failures) {
+				builder.append("\n  ").append(failure);
+			}
+
+			logger.warning(builder.toString());
+			failures.clear();
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package com.SkyIsland.QuestManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.Configuration.QuestConfiguration;
+
+/**
+ * Reads quest template files in parallel.<br />
+ * Each file is loaded and turned into a {@link QuestConfiguration} on a fork-join pool, which is
+ * where nearly all of the time spent loading templates goes. The NPCs in each template are
+ * deserialized here too, so NPCs must not touch server state or the schedulers when they're
+ * created; they start doing so when the caller registers them on the main thread
+ * (see {@link com.SkyIsland.QuestManager.NPC.NPC#onRegister() NPC.onRegister}).<br />
+ * The main thread is expected to wait on {@link #load()}, so the read-only world lookups done while
+ * deserializing locations don't race with anything.
+ * @author Skyler
+ *
+ */
+public class QuestTemplateLoader {
+
+	/**
+	 * Parses a slice of the file list, splitting it in half until it's small enough
+	 */
+	private class ParseTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int start;
+
+		private int end;
+
+		private ParseTask(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= threshold) {
+				for (int i = start; i < end; i++) {
+					results[i] = parseTemplateFile(files.get(i));
+				}
+				return;
+			}
+
+			int mid = (start + end) >>> 1;
+			invokeAll(new ParseTask(start, mid), new ParseTask(mid, end));
+		}
+
+	}
+
+	/**
+	 * How many files a single task parses before it's split up
+	 */
+	private static final int threshold = 4;
+
+	private List<File> files;
+
+	private QuestConfiguration[] results;
+
+	private int parallelism;
+
+	/**
+	 * Creates a loader for all template files in the directory, including those in subdirectories
+	 * @param directory
+	 */
+	public QuestTemplateLoader(File directory) {
+		this.files = new ArrayList<File>();
+		this.parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+		collectFiles(directory);
+	}
+
+	private void collectFiles(File file) {
+		if (file == null || !file.exists()) {
+			return;
+		}
+
+		if (file.isDirectory()) {
+			for (File f : file.listFiles()) {
+				collectFiles(f);
+			}
+			return;
+		}
+
+		if (file.getName().endsWith(".yml") || file.getName().endsWith(".yaml")) {
+			files.add(file);
+		}
+	}
+
+	/**
+	 * Parses every template file, blocking until they're all done.
+	 * @return The templates that were loaded successfully, in file order
+	 */
+	public List<QuestConfiguration> load() {
+		results = new QuestConfiguration[files.size()];
+
+		if (!files.isEmpty()) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new ParseTask(0, files.size()));
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		List<QuestConfiguration> templates = new ArrayList<QuestConfiguration>(results.length);
+		for (QuestConfiguration template : results) {
+			if (template != null) {
+				templates.add(template);
+			}
+		}
+
+		results = null;
+		return templates;
+	}
+
+	/**
+	 * @return How many template files were found
+	 */
+	public int getFileCount() {
+		return files.size();
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Loads a single template file. Safe to call off of the main thread.
+	 * @param templateFile
+	 * @return The template, or null if the file couldn't be loaded
+	 */
+	private static QuestConfiguration parseTemplateFile(File templateFile) {
+		YamlConfiguration questConfig = new YamlConfiguration();
+		try {
+			questConfig.load(templateFile);
+		} catch (IOException | InvalidConfigurationException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Unable to load quest from file: " + templateFile.getAbsolutePath());
+			return null;
+		}
+
+		try {
+			return new QuestConfiguration(questConfig);
+		} catch (InvalidConfigurationException e) {
+			e.printStackTrace();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Error when parsing quest configuration file: "
+					+ templateFile.getAbsolutePath());
+			return null;
+		}
+	}
+
+}
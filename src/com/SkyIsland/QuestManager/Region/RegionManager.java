@@ -170,8 +170,8 @@ public final class RegionManager implements Alarmable<EnemyAlarms> {
 	 */
 	private void spawnEnemies() {
 		for (Player player : Bukkit.getOnlinePlayers()) {
-			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().getWorlds().contains(
-					player.getWorld().getName())) {
+			if (QuestManagerPlugin.questManagerPlugin.getPluginConfiguration().isQuestWorld(
+					player.getWorld())) {
 				//is in a quest world
 				for (Region r : regionMap.keySet()) {
 					if (r.isIn(player)) {
@@ -4,10 +4,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 
 import com.SkyIsland.QuestManager.Quest.Goal;
 import com.SkyIsland.QuestManager.Quest.Requirements.Requirement;
 import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementFactory;
+import com.SkyIsland.QuestManager.Quest.Requirements.Factory.RequirementSpec;
 
 /**
  * Keeps track of requirement keys and registered factories
@@ -65,4 +67,23 @@ public class RequirementManager {
 		
 	}
 	
+	/**
+	 * Uses registered factories to read and check the given requirement configuration once, producing
+	 * a spec that can be used to make any number of requirements.
+	 * @param uniqueKey The key to look up, usually from the configuration file being loaded
+	 * @param conf The configuration section describing the requirement
+	 * @return The compiled spec, or <b>null</b> if no factory is registered with the key
+	 * @throws InvalidConfigurationException If the factory found the configuration invalid
+	 */
+	public RequirementSpec compileRequirement(String uniqueKey, ConfigurationSection conf)
+			throws InvalidConfigurationException {
+		if (!factories.containsKey(uniqueKey)) {
+			QuestManagerPlugin.questManagerPlugin.getLogger()
+			.warning("Unable to find registered requirement factory for key: [" + uniqueKey + "]");
+			return null;
+		}
+		
+		return factories.get(uniqueKey).compile(conf);
+	}
+	
 }
@@ -0,0 +1,406 @@
+package com.SkyIsland.QuestManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Writes save files on a single background thread.<br />
+ * Whatever is being saved is rendered to text on the calling (main) thread, so the writer only
+ * ever sees an unchanging snapshot. The file itself is written to a temporary file next to it and
+ * then moved into place, so a crash part way through never leaves a half-written save behind.<br />
+ * Writes are queued in order. If the same file is queued again before it's been written, only
+ * the newest contents are written. The queue is bounded; once it's full, the caller writes the file
+ * itself rather than piling up more work.<br />
+ * Until a file has been written, its contents can be looked up with {@link #getPending(File)}, so
+ * readers never see an older save than what was last queued.<br />
+ * Saves don't have to be files. Anything can be queued under its own key along with a {@link Sink}
+ * that knows how to write it, and is written and coalesced the same way.
+ * @author Skyler
+ *
+ */
+public class SaveQueue {
+
+	/**
+	 * Where queued saves end up. Sinks are only ever called on the save thread, one save at a time.
+	 */
+	public static interface Sink {
+
+		/**
+		 * Writes the contents saved under the key
+		 * @param key
+		 * @param contents
+		 * @throws IOException
+		 */
+		public void write(Object key, byte[] contents) throws IOException;
+
+		/**
+		 * Removes whatever is saved under the key
+		 * @param key
+		 * @throws IOException
+		 */
+		public void delete(Object key) throws IOException;
+
+	}
+
+	/**
+	 * A queued save, and where it goes
+	 */
+	private static class Entry {
+
+		private final Sink sink;
+
+		/**
+		 * What to write, or null to delete
+		 */
+		private final byte[] contents;
+
+		private Entry(Sink sink, byte[] contents) {
+			this.sink = sink;
+			this.contents = contents;
+		}
+
+	}
+
+	/**
+	 * Writes the newest contents queued under a key
+	 */
+	private class WriteTask implements Runnable {
+
+		private Object key;
+
+		private WriteTask(Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public void run() {
+			queued.remove(key);
+
+			synchronized (writeLock) {
+				Entry entry = pending.get(key);
+				if (entry == null) {
+					return;
+				}
+
+				try {
+					if (entry.contents == null) {
+						entry.sink.delete(key);
+					} else {
+						entry.sink.write(key, entry.contents);
+					}
+					written.incrementAndGet();
+				} catch (IOException e) {
+					e.printStackTrace();
+					QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+							"Unable to write save: " + key);
+				}
+
+				pending.remove(key, entry);
+			}
+		}
+
+	}
+
+	/**
+	 * Saves files, keyed by their absolute path
+	 */
+	private static final Sink fileSink = new Sink() {
+
+		@Override
+		public void write(Object key, byte[] contents) throws IOException {
+			writeFile((File) key, contents);
+		}
+
+		@Override
+		public void delete(Object key) throws IOException {
+			Files.deleteIfExists(((File) key).toPath());
+		}
+
+	};
+
+	/**
+	 * How many writes can be waiting before callers start doing them themselves
+	 */
+	private static final int capacity = 256;
+
+	/**
+	 * How long shutdown waits for queued writes, in seconds
+	 */
+	private static final long shutdownTimeout = 60;
+
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * The newest save under each key that hasn't been written yet
+	 */
+	private Map<Object, Entry> pending;
+
+	/**
+	 * Keys that have a write task waiting in the queue
+	 */
+	private Set<Object> queued;
+
+	private Object writeLock;
+
+	private AtomicInteger written;
+
+	public SaveQueue() {
+		this.pending = new ConcurrentHashMap<Object, Entry>();
+		this.queued = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+		this.writeLock = new Object();
+		this.written = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(capacity),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						return new Thread(r, "QuestManager Save Thread");
+					}
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Queues the configuration to be written to the file.<br />
+	 * The configuration is rendered right away, so it can be changed or thrown away once this returns.
+	 * @param file
+	 * @param config
+	 */
+	public void write(File file, YamlConfiguration config) {
+		write(file, config.saveToString());
+	}
+
+	/**
+	 * Queues the text to be written to the file
+	 * @param file
+	 * @param contents
+	 */
+	public void write(File file, String contents) {
+		write(file, contents.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Queues the contents to be written to the file. The array shouldn't be changed afterwards.
+	 * @param file
+	 * @param contents
+	 */
+	public void write(File file, byte[] contents) {
+		queue(file.getAbsoluteFile(), new Entry(fileSink, contents));
+	}
+
+	/**
+	 * Queues the file to be deleted, after anything already queued for it
+	 * @param file
+	 */
+	public void delete(File file) {
+		queue(file.getAbsoluteFile(), new Entry(fileSink, null));
+	}
+
+	/**
+	 * Queues the contents to be written under the key by the sink. The array shouldn't be changed
+	 * afterwards. Keys have to be usable as map keys, and mean the same thing every time they're used.
+	 * @param key
+	 * @param contents
+	 * @param sink
+	 */
+	public void write(Object key, byte[] contents, Sink sink) {
+		queue(key, new Entry(sink, contents));
+	}
+
+	/**
+	 * Queues whatever is saved under the key to be removed by the sink
+	 * @param key
+	 * @param sink
+	 */
+	public void delete(Object key, Sink sink) {
+		queue(key, new Entry(sink, null));
+	}
+
+	private void queue(Object key, Entry entry) {
+		pending.put(key, entry);
+
+		if (executor.isShutdown()) {
+			new WriteTask(key).run();
+			return;
+		}
+
+		if (queued.add(key)) {
+			executor.execute(new WriteTask(key));
+		}
+	}
+
+	/**
+	 * Returns the contents queued for the file that haven't been written yet
+	 * @param file
+	 * @return The contents, or null if what's on disk is up to date
+	 */
+	public String getPending(File file) {
+		byte[] contents = getPendingBytes(file);
+		return contents == null ? null : new String(contents, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the contents queued for the file that haven't been written yet
+	 * @param file
+	 * @return The contents, or null if what's on disk is up to date
+	 */
+	public byte[] getPendingBytes(File file) {
+		return getPendingBytes((Object) file.getAbsoluteFile());
+	}
+
+	/**
+	 * Returns the contents queued under the key that haven't been written yet
+	 * @param key
+	 * @return The contents, or null if nothing is waiting or it's waiting to be deleted
+	 */
+	public byte[] getPendingBytes(Object key) {
+		Entry entry = pending.get(key);
+		return entry == null ? null : entry.contents;
+	}
+
+	/**
+	 * @param file
+	 * @return Whether the file is waiting to be deleted
+	 */
+	public boolean isPendingDelete(File file) {
+		return isPendingDelete((Object) file.getAbsoluteFile());
+	}
+
+	/**
+	 * @param key
+	 * @return Whether the key is waiting to be deleted
+	 */
+	public boolean isPendingDelete(Object key) {
+		Entry entry = pending.get(key);
+		return entry != null && entry.contents == null;
+	}
+
+	/**
+	 * @return A snapshot of every key with a save waiting to be written. Files are keyed by their
+	 * absolute path.
+	 */
+	public Collection<Object> getPendingKeys() {
+		return new ArrayList<Object>(pending.keySet());
+	}
+
+	/**
+	 * Blocks until everything that's been queued so far has been written
+	 */
+	public void flush() {
+		while (!pending.isEmpty() && !executor.isTerminated()) {
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return How many saves are waiting to be written
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * @return How many saves have been written
+	 */
+	public int getWrittenCount() {
+		return written.get();
+	}
+
+	/**
+	 * Stops taking new work and waits for everything queued to be written. Anything queued after
+	 * this is written straight away on the caller's thread.
+	 */
+	public void shutdown() {
+		int count = pending.size();
+		long start = System.nanoTime();
+
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(shutdownTimeout, TimeUnit.SECONDS)) {
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Gave up waiting on " + pending.size() + " save(s) after "
+						+ shutdownTimeout + " seconds!");
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Interrupted while waiting on " + pending.size() + " save(s)");
+			return;
+		}
+
+		QuestManagerPlugin.questManagerPlugin.getLogger().info(
+				"Finished writing " + count + " queued save(s) in "
+				+ ((System.nanoTime() - start) / 1000000) + "ms");
+	}
+
+	/**
+	 * Writes the text as UTF-8 to a temporary file beside the target, then moves it into place
+	 * @param file
+	 * @param contents
+	 * @throws IOException
+	 */
+	static void writeFile(File file, String contents) throws IOException {
+		writeFile(file, contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes the contents to a temporary file beside the target, then moves it into place.<br />
+	 * The temporary file is forced to disk before it's moved, so once this returns the new
+	 * contents survive a crash of the whole machine, not just the server.
+	 * @param file
+	 * @param contents
+	 * @throws IOException
+	 */
+	public static void writeFile(File file, byte[] contents) throws IOException {
+		File dir = file.getParentFile();
+		if (dir != null && !dir.exists()) {
+			dir.mkdirs();
+		}
+
+		Path target = file.toPath();
+		Path temp = new File(dir, file.getName() + ".tmp").toPath();
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(contents);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
@@ -7,40 +7,153 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 import com.SkyIsland.QuestManager.QuestManagerPlugin;
 
+/**
+ * Reminds {@link Alarmable} objects of something after a set amount of time.<br />
+ * Reminders are kept in a hierarchical timing wheel driven by a single task that runs every server
+ * tick. The first level has a slot for each of the next {@link #slotsPerLevel} ticks; each level
+ * after it has slots that span a whole turn of the level below. Reminders are hashed into a slot by
+ * when they're due, and moved down a level each time the wheel comes around to their slot, so
+ * scheduling and cancelling take the same time no matter how many reminders are waiting.<br />
+ * An object can have any number of reminders at once, one for each reference it passes in.
+ * @author Skyler
+ *
+ */
 public class Alarm {
-	
-private static final int ticksPerSecond = 20;
-	
+
+	private static final int ticksPerSecond = 20;
+
+	/**
+	 * How many bits of the tick count each level of the wheel covers
+	 */
+	private static final int slotBits = 6;
+
+	private static final int slotsPerLevel = 1 << slotBits;
+
+	private static final int slotMask = slotsPerLevel - 1;
+
+	private static final int levels = 4;
+
+	/**
+	 * How far ahead the wheel reaches, in ticks. Reminders due after this are parked in the last
+	 * level and moved along until they're in reach.
+	 */
+	private static final long span = 1L << (slotBits * levels);
+
 	private static Alarm scheduler;
-	
-	private Map<Alarmable<? extends Object>, Reminder<? extends Object>> map;
-	
-	private class Reminder<E> extends BukkitRunnable {
-		
-		private E key;
-		
-		private Alarmable<E> owner;
-		
-		private Reminder(Alarmable<E> owner, E key) {
+
+	/**
+	 * A scheduled reminder, which can be used to cancel it
+	 * @param <E> The type of the reference passed back to the owner
+	 */
+	public static final class Timer<E> {
+
+		/**
+		 * The wheel this timer was scheduled on
+		 */
+		private final Alarm alarm;
+
+		private final Alarmable<E> owner;
+
+		private final E key;
+
+		private final long dueTick;
+
+		private final long dueNanos;
+
+		private Timer<?> prev;
+
+		private Timer<?> next;
+
+		/**
+		 * The level and slot this timer is in, or a level of -1 when it's not waiting
+		 */
+		private int level;
+
+		private int slot;
+
+		private Timer(Alarm alarm, Alarmable<E> owner, E key, long dueTick, long dueNanos) {
+			this.alarm = alarm;
 			this.owner = owner;
 			this.key = key;
+			this.dueTick = dueTick;
+			this.dueNanos = dueNanos;
+			this.level = -1;
 		}
 
-		@Override
-		public void run() {
-			scheduler.notify(this);
+		/**
+		 * Cancels the reminder, if it hasn't gone off yet
+		 * @return Whether the reminder was still waiting
+		 */
+		public boolean cancel() {
+			return alarm.cancel(this);
 		}
-		
-		private E getKey() {
-			return key;
+
+		/**
+		 * @return Whether the reminder is still waiting to go off
+		 */
+		public boolean isPending() {
+			return level >= 0;
 		}
-		
-		private Alarmable<E> getOwner() {
+
+		/**
+		 * @return How many seconds until the reminder goes off, or 0 if it's not waiting
+		 */
+		public double getRemainingSeconds() {
+			if (!isPending()) {
+				return 0;
+			}
+
+			return Math.max(0, dueNanos - System.nanoTime()) / 1000000000.0;
+		}
+
+		public Alarmable<E> getOwner() {
 			return owner;
 		}
+
+		public E getKey() {
+			return key;
+		}
+
+		private void fire() {
+			owner.alarm(key);
+		}
+
+	}
+
+	/**
+	 * Advances the wheel once every server tick
+	 */
+	private class Driver extends BukkitRunnable {
+
+		@Override
+		public void run() {
+			advance();
+		}
+
 	}
-	
-	
+
+	/**
+	 * The first timer in each slot of each level
+	 */
+	private Timer<?>[][] wheel;
+
+	private Driver driver;
+
+	/**
+	 * The reminders each object is waiting on, by the reference they were scheduled with
+	 */
+	private Map<Alarmable<?>, Map<Object, Timer<?>>> owners;
+
+	private long currentTick;
+
+	private int pendingCount;
+
+	private long firedCount;
+
+	private long totalLatenessNanos;
+
+	private long maxLatenessNanos;
+
 	/**
 	 * Returns the scheduler that can be used to registered {@link Tickable} objects
 	 * @return
@@ -49,65 +162,310 @@ private static final int ticksPerSecond = 20;
 		if (scheduler == null) {
 			scheduler = new Alarm();
 		}
-		
+
 		return scheduler;
 	}
-	
-	private Alarm() {
-		map = new HashMap<Alarmable<? extends Object>, Reminder<? extends Object>>();
-	}
-	
+
 	/**
-	 * Internal reminder mechanism that allows the scheduler to know 
-	 * @param reminder
+	 * Stops the current scheduler's task and forgets about it, along with every reminder it
+	 * was waiting on. Those reminders are no longer pending, and cancelling them does nothing.
+	 * The next call to {@link #getScheduler()} starts a fresh one.<br />
+	 * This is meant to be called as the plugin is disabled, after anything that might still cancel
+	 * its reminders has stopped.
 	 */
-	private <E> void notify(Reminder<E> reminder) {
-		map.remove(reminder.getOwner());
-		reminder.getOwner().alarm(reminder.getKey());
+	public static void reset() {
+		if (scheduler == null) {
+			return;
+		}
+
+		scheduler.driver.cancel();
+		scheduler.clear();
+		scheduler = null;
 	}
-	
+
+	private Alarm() {
+		wheel = new Timer<?>[levels][slotsPerLevel];
+		owners = new HashMap<Alarmable<?>, Map<Object, Timer<?>>>();
+		currentTick = 0;
+		pendingCount = 0;
+
+		driver = new Driver();
+		driver.runTaskTimer(QuestManagerPlugin.questManagerPlugin, 1, 1);
+	}
+
 	/**
 	 * Schedules the provided tickable object to be reminded in (<i>seconds</i>) seconds via the {@link Tickable#tick(Object)}
 	 * method.<br />
 	 * Note that the object provided as a 'reference' object is passed back to the tickable object, possibly as a way to
-	 * distinguish between alert events.
+	 * distinguish between alert events. Scheduling the same object with the same reference again replaces the
+	 * reminder that was waiting.
 	 * @param tickable The instance to 'tick' when the time is up
 	 * @param reference An object that can be identified and acted upon when the instance if 'ticked'
 	 * @param seconds How many seconds to remind the instance after. <b>Please Note:</b> values that
 	 * are not divisible by .05 will be rounded to the nearest .05 (a server tick).
-	 * @return True if there was already a scheduled event for this tickable instance that was overwritten, false otherwise
+	 * @return The reminder, or null if nothing was scheduled
 	 */
-	public <E> boolean schedule(Alarmable<E> alarmable, E reference, double seconds) {
+	public <E> Timer<E> schedule(Alarmable<E> alarmable, E reference, double seconds) {
 		if (alarmable == null || seconds < .0001) {
+			return null;
+		}
+
+		Map<Object, Timer<?>> timers = owners.get(alarmable);
+		if (timers == null) {
+			timers = new HashMap<Object, Timer<?>>(4);
+			owners.put(alarmable, timers);
+		} else {
+			Timer<?> old = timers.get(reference);
+			if (old != null) {
+				unlink(old);
+			}
+		}
+
+		long ticks = Math.max(1, Math.round(seconds * Alarm.ticksPerSecond));
+		Timer<E> timer = new Timer<E>(this, alarmable, reference, currentTick + ticks,
+				System.nanoTime() + (long) (seconds * 1000000000.0));
+
+		timers.put(reference, timer);
+		insert(timer);
+
+		return timer;
+	}
+
+	/**
+	 * Cancels a single reminder
+	 * @param timer
+	 * @return Whether the reminder was still waiting
+	 */
+	public boolean cancel(Timer<?> timer) {
+		if (timer == null || timer.alarm != this || !timer.isPending()) {
 			return false;
 		}
 
-		boolean exists = map.containsKey(alarmable);
-		
-		Reminder<E> reminder = new Reminder<E>(alarmable, reference);
-		
-		map.put(alarmable, reminder);
-		
-		long ticks = Math.round(seconds * Alarm.ticksPerSecond);
-		
-		reminder.runTaskLater(QuestManagerPlugin.questManagerPlugin, ticks);
-		
-		return exists;
-		
-		
+		unlink(timer);
+		forget(timer);
+		return true;
 	}
-	
+
 	/**
-	 * Attempts to unregister the tickable instance.
+	 * Cancels the reminder the object is waiting on for the given reference
+	 * @param alarmable
+	 * @param reference
+	 * @return Whether there was a reminder waiting
+	 */
+	public <E> boolean cancel(Alarmable<E> alarmable, E reference) {
+		Map<Object, Timer<?>> timers = owners.get(alarmable);
+		if (timers == null) {
+			return false;
+		}
+
+		return cancel(timers.get(reference));
+	}
+
+	/**
+	 * Attempts to unregister the tickable instance, cancelling every reminder it's waiting on.
 	 * @param tickable
 	 * @return Whether or not this was successful, including whther there was something waiting
 	 */
 	public boolean unregister(Alarmable<? extends Object> tickable) {
-		if (map.containsKey(tickable)) {
-			map.get(tickable).cancel();
-			return map.remove(tickable) != null;
+		Map<Object, Timer<?>> timers = owners.remove(tickable);
+		if (timers == null) {
+			return false;
+		}
+
+		for (Timer<?> timer : timers.values()) {
+			unlink(timer);
+		}
+
+		return !timers.isEmpty();
+	}
+
+	/**
+	 * @param alarmable
+	 * @return Whether the object is waiting on any reminders
+	 */
+	public boolean isScheduled(Alarmable<?> alarmable) {
+		return owners.containsKey(alarmable);
+	}
+
+	/**
+	 * @return How many reminders are waiting to go off
+	 */
+	public int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * @return How many reminders have gone off
+	 */
+	public long getFiredCount() {
+		return firedCount;
+	}
+
+	/**
+	 * @return How late reminders have gone off on average, in milliseconds. Reminders go off on
+	 * the first tick after they're due, so this grows when the server falls behind.
+	 */
+	public double getAverageLateness() {
+		if (firedCount == 0) {
+			return 0;
+		}
+
+		return (totalLatenessNanos / (double) firedCount) / 1000000.0;
+	}
+
+	/**
+	 * @return The latest any reminder has gone off, in milliseconds
+	 */
+	public double getMaxLateness() {
+		return maxLatenessNanos / 1000000.0;
+	}
+
+	/**
+	 * Drops every waiting reminder without setting any of them off
+	 */
+	private void clear() {
+		for (Timer<?>[] level : wheel)
+		for (int slot = 0; slot < slotsPerLevel; slot++) {
+			Timer<?> timer = level[slot];
+			level[slot] = null;
+			while (timer != null) {
+				Timer<?> next = timer.next;
+				timer.prev = timer.next = null;
+				timer.level = -1;
+				timer = next;
+			}
+		}
+
+		owners.clear();
+		pendingCount = 0;
+	}
+
+	/**
+	 * Moves the wheel ahead a tick, moving reminders down from the upper levels as their slots
+	 * come around and setting off everything due this tick
+	 */
+	private void advance() {
+		currentTick++;
+
+		//each time a level finishes a turn, the next slot of the level above is spread out below
+		for (int level = 1; level < levels; level++) {
+			if ((currentTick & ((1L << (slotBits * level)) - 1)) != 0) {
+				break;
+			}
+
+			cascade(level, (int) ((currentTick >>> (slotBits * level)) & slotMask));
+		}
+
+		int slot = (int) (currentTick & slotMask);
+		Timer<?> timer = wheel[0][slot];
+		if (timer == null) {
+			return;
+		}
+
+		//take the whole slot first; anything scheduled while these go off lands in a later tick
+		wheel[0][slot] = null;
+		long now = System.nanoTime();
+
+		while (timer != null) {
+			Timer<?> next = timer.next;
+			timer.prev = timer.next = null;
+			timer.level = -1;
+			pendingCount--;
+			forget(timer);
+
+			long lateness = Math.max(0, now - timer.dueNanos);
+			totalLatenessNanos += lateness;
+			maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+			firedCount++;
+
+			try {
+				timer.fire();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Error while setting off a reminder for " + timer.owner.getClass().getSimpleName());
+			}
+
+			timer = next;
+		}
+	}
+
+	private void cascade(int level, int slot) {
+		Timer<?> timer = wheel[level][slot];
+		wheel[level][slot] = null;
+
+		while (timer != null) {
+			Timer<?> next = timer.next;
+			timer.prev = timer.next = null;
+			pendingCount--;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	/**
+	 * Puts the timer in the slot it's due in, on the lowest level that reaches that far
+	 * @param timer
+	 */
+	private void insert(Timer<?> timer) {
+		long due = Math.min(timer.dueTick, currentTick + span - 1);
+		long delta = Math.max(0, due - currentTick);
+
+		int level = 0;
+		while (level < levels - 1 && delta >= (1L << (slotBits * (level + 1)))) {
+			level++;
+		}
+
+		int slot = (int) ((due >>> (slotBits * level)) & slotMask);
+
+		timer.level = level;
+		timer.slot = slot;
+		timer.prev = null;
+		timer.next = wheel[level][slot];
+		if (timer.next != null) {
+			timer.next.prev = timer;
+		}
+		wheel[level][slot] = timer;
+		pendingCount++;
+	}
+
+	/**
+	 * Takes the timer out of its slot
+	 * @param timer
+	 */
+	private void unlink(Timer<?> timer) {
+		if (!timer.isPending()) {
+			return;
+		}
+
+		if (timer.prev != null) {
+			timer.prev.next = timer.next;
+		} else {
+			wheel[timer.level][timer.slot] = timer.next;
+		}
+
+		if (timer.next != null) {
+			timer.next.prev = timer.prev;
+		}
+
+		timer.prev = timer.next = null;
+		timer.level = -1;
+		pendingCount--;
+	}
+
+	/**
+	 * Drops the timer from its owner's reminders, unless it's already been replaced
+	 * @param timer
+	 */
+	private void forget(Timer<?> timer) {
+		Map<Object, Timer<?>> timers = owners.get(timer.owner);
+		if (timers == null || timers.get(timer.key) != timer) {
+			return;
+		}
+
+		timers.remove(timer.key);
+		if (timers.isEmpty()) {
+			owners.remove(timer.owner);
 		}
-		
-		return false;
 	}
 }
@@ -0,0 +1,23 @@
+package com.SkyIsland.QuestManager.Scheduling;
+
+/**
+ * A Tickable entity's registration with a {@link Scheduler}.<br />
+ * Whoever registers an entity is expected to hold on to its registration and release it when the
+ * entity is done, instead of leaving it to be ticked forever.
+ * @author Skyler
+ *
+ */
+public interface Registration {
+	
+	/**
+	 * Stops ticking the registered entity
+	 * @return Whether it was still registered
+	 */
+	public boolean release();
+	
+	/**
+	 * @return Whether the entity is still being ticked
+	 */
+	public boolean isRegistered();
+	
+}
@@ -2,7 +2,9 @@ package com.SkyIsland.QuestManager.Scheduling;
 
 
 /**
- * Keeps track of registered entities and delivers ticks in a regular fashion
+ * Keeps track of registered entities and delivers ticks in a regular fashion.<br />
+ * Schedulers only hold on to their entities weakly; an entity nothing else refers to is dropped
+ * instead of being ticked forever.
  * @author Skyler
  *
  */
@@ -11,6 +13,14 @@ public abstract class Scheduler implements Runnable {
 	/**
 	 * Register a Tickable entity to be ticked 
 	 * @param tick
+	 * @return The entity's registration, used to stop ticking it
 	 */
-	public abstract void register(Tickable tick);
+	public abstract Registration register(Tickable tick);
+	
+	/**
+	 * Stops ticking a registered Tickable entity
+	 * @param tick
+	 * @return Whether the entity was registered
+	 */
+	public abstract boolean unregister(Tickable tick);
 }
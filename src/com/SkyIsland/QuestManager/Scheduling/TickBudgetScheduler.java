@@ -0,0 +1,386 @@
+package com.SkyIsland.QuestManager.Scheduling;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+
+/**
+ * Ticks registered Tickable entities a few at a time, spending no more than a set amount of time
+ * each server tick.<br />
+ * Each entity asks to be ticked every so many server ticks. When its time comes it's put at the
+ * back of the ready queue for its {@link Priority}, and every server tick the queues are worked
+ * through in order, round-robin, until the {@link #budgetNanos budget} is spent. Whatever's left
+ * waits for the next tick. Entities waiting for their time to come are kept by the {@link Alarm},
+ * so only the ones that are ready cost anything.<br />
+ * New registrations are spread out over their first period, so entities registered together
+ * don't all come due on the same tick.<br />
+ * Entities are only held weakly. Registrations should be {@link Registration#release() released}
+ * when they're done with, but an entity that's been forgotten about without being released is
+ * dropped once it's garbage collected.
+ * @author Skyler
+ *
+ */
+public class TickBudgetScheduler extends Scheduler implements Alarmable<TickBudgetScheduler.Entry> {
+
+	/**
+	 * Which entities get ticked first when there isn't time for all of them
+	 */
+	public static enum Priority {
+		HIGH,
+		NORMAL,
+		LOW;
+	}
+
+	/**
+	 * A registered entity and where it is in the scheduler
+	 */
+	final class Entry implements Registration {
+
+		private final WeakReference<Tickable> tickable;
+
+		private final String typeName;
+
+		private final Priority priority;
+
+		private final long period;
+
+		/**
+		 * The neighbors in the ready queue, while it's ready
+		 */
+		private Entry prev;
+
+		private Entry next;
+
+		private boolean ready;
+
+		private boolean registered;
+
+		private Entry(Tickable tickable, Priority priority, long period) {
+			this.tickable = new WeakReference<Tickable>(tickable);
+			this.typeName = tickable.getClass().getName();
+			this.priority = priority;
+			this.period = period;
+			this.registered = true;
+		}
+
+		@Override
+		public boolean release() {
+			if (!registered) {
+				return false;
+			}
+
+			Tickable tick = tickable.get();
+			if (tick != null && entries.get(tick) == this) {
+				entries.remove(tick);
+			}
+
+			drop(this);
+			return true;
+		}
+
+		@Override
+		public boolean isRegistered() {
+			return registered;
+		}
+
+	}
+
+	/**
+	 * How often entities are ticked when they don't say, in server ticks
+	 */
+	public static final long defaultPeriod = 100;
+
+	private static final double ticksPerSecond = 20.0;
+
+	private static TickBudgetScheduler scheduler = null;
+
+	/**
+	 * The first and last ready entity of each priority
+	 */
+	private Entry[] heads;
+
+	private Entry[] tails;
+
+	private Map<Tickable, Entry> entries;
+
+	private BukkitTask task;
+
+	private long budgetNanos;
+
+	private Random random;
+
+	private int readyCount;
+
+	private long tickedCount;
+
+	private long tickedNanos;
+
+	private long overBudgetCount;
+
+	private long collectedCount;
+
+	/**
+	 * Return the current instanced TickBudgetScheduler.<br />
+	 * If a scheduler has yet to be created, it will be created with the configured budget
+	 * from this call.
+	 * @return
+	 */
+	public static TickBudgetScheduler getScheduler() {
+		if (scheduler == null) {
+			scheduler = new TickBudgetScheduler(QuestManagerPlugin.questManagerPlugin
+					.getPluginConfiguration().getTickBudget());
+		}
+
+		return scheduler;
+	}
+
+	/**
+	 * Stops the current scheduler's task and forgets about it, along with everything registered
+	 * with it. The next call to {@link #getScheduler()} starts a fresh one.<br />
+	 * This is meant to be called as the plugin is disabled, before the {@link Alarm} is reset.
+	 */
+	public static void reset() {
+		if (scheduler == null) {
+			return;
+		}
+
+		scheduler.task.cancel();
+		scheduler = null;
+	}
+
+	private TickBudgetScheduler(double budgetMillis) {
+		this.heads = new Entry[Priority.values().length];
+		this.tails = new Entry[Priority.values().length];
+		this.entries = new WeakHashMap<Tickable, Entry>();
+		this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1000000);
+		this.random = new Random();
+
+		task = Bukkit.getScheduler().runTaskTimer(QuestManagerPlugin.questManagerPlugin, this, 1, 1);
+	}
+
+	/**
+	 * Registers the entity to be ticked at normal priority every {@link #defaultPeriod} ticks
+	 */
+	@Override
+	public Registration register(Tickable tick) {
+		return register(tick, Priority.NORMAL, defaultPeriod);
+	}
+
+	/**
+	 * Registers the entity to be ticked every <i>period</i> server ticks, or as soon after as
+	 * the budget allows. Registering an entity again replaces its old registration.
+	 * @param tick
+	 * @param priority
+	 * @param period How often to tick the entity, in server ticks
+	 * @return The entity's registration, or null if there was no entity
+	 */
+	public Registration register(Tickable tick, Priority priority, long period) {
+		if (tick == null) {
+			return null;
+		}
+
+		unregister(tick);
+
+		Entry entry = new Entry(tick, priority, Math.max(1, period));
+		entries.put(tick, entry);
+
+		//spread new entities out over their first period
+		defer(entry, 1 + (long) (random.nextDouble() * entry.period));
+		return entry;
+	}
+
+	@Override
+	public boolean unregister(Tickable tick) {
+		Entry entry = entries.remove(tick);
+		if (entry == null) {
+			return false;
+		}
+
+		drop(entry);
+		return true;
+	}
+
+	/**
+	 * Takes the entry out of whichever queue it's in
+	 * @param entry
+	 */
+	private void drop(Entry entry) {
+		entry.registered = false;
+		if (entry.ready) {
+			unlink(entry);
+		} else {
+			Alarm.getScheduler().cancel(this, entry);
+		}
+	}
+
+	/**
+	 * Called by the {@link Alarm} when an entity's period is up
+	 */
+	@Override
+	public void alarm(Entry entry) {
+		if (entry.registered) {
+			enqueue(entry);
+		}
+	}
+
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		long now = start;
+		boolean first = true;
+
+		for (int i = 0; i < heads.length; i++) {
+			while (heads[i] != null) {
+				//always tick at least one, so nothing waits forever
+				if (!first && now - start >= budgetNanos) {
+					overBudgetCount++;
+					return;
+				}
+				first = false;
+
+				Entry entry = heads[i];
+				unlink(entry);
+
+				Tickable tick = entry.tickable.get();
+				if (tick == null) {
+					//forgotten about without being released
+					entry.registered = false;
+					collectedCount++;
+					continue;
+				}
+
+				try {
+					tick.tick();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+					QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+							"Error while ticking " + tick.getClass().getSimpleName());
+				}
+
+				long after = System.nanoTime();
+				tickedNanos += after - now;
+				tickedCount++;
+				now = after;
+
+				//it may have unregistered itself while ticking
+				if (entry.registered) {
+					defer(entry, entry.period);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return How many entities are registered
+	 */
+	public int getRegisteredCount() {
+		return entries.size();
+	}
+
+	/**
+	 * @return How many entities are due and waiting for time to be ticked
+	 */
+	public int getQueueDepth() {
+		return readyCount;
+	}
+
+	/**
+	 * @return How long a single tick takes on average, in microseconds
+	 */
+	public double getAverageCost() {
+		if (tickedCount == 0) {
+			return 0;
+		}
+
+		return (tickedNanos / (double) tickedCount) / 1000.0;
+	}
+
+	/**
+	 * @return How many entities have been ticked
+	 */
+	public long getTickedCount() {
+		return tickedCount;
+	}
+
+	/**
+	 * @return How many server ticks ran out of budget before everything due was ticked
+	 */
+	public long getOverBudgetCount() {
+		return overBudgetCount;
+	}
+
+	/**
+	 * @return How many entities were dropped after being garbage collected without having been
+	 * released first
+	 */
+	public long getCollectedCount() {
+		return collectedCount;
+	}
+
+	/**
+	 * Counts the registered entities that are still around, by class
+	 * @return The number of entities of each class, by class name
+	 */
+	public SortedMap<String, Integer> getTickableCounts() {
+		SortedMap<String, Integer> counts = new TreeMap<String, Integer>();
+		for (Entry entry : entries.values()) {
+			Integer count = counts.get(entry.typeName);
+			counts.put(entry.typeName, count == null ? 1 : count + 1);
+		}
+
+		return counts;
+	}
+
+	/**
+	 * @return The time each server tick can take, in milliseconds
+	 */
+	public double getBudget() {
+		return budgetNanos / 1000000.0;
+	}
+
+	private void defer(Entry entry, long ticks) {
+		Alarm.getScheduler().schedule(this, entry, ticks / ticksPerSecond);
+	}
+
+	private void enqueue(Entry entry) {
+		int i = entry.priority.ordinal();
+		entry.ready = true;
+		entry.next = null;
+		entry.prev = tails[i];
+		if (tails[i] != null) {
+			tails[i].next = entry;
+		} else {
+			heads[i] = entry;
+		}
+		tails[i] = entry;
+		readyCount++;
+	}
+
+	private void unlink(Entry entry) {
+		int i = entry.priority.ordinal();
+		if (entry.prev != null) {
+			entry.prev.next = entry.next;
+		} else {
+			heads[i] = entry.next;
+		}
+
+		if (entry.next != null) {
+			entry.next.prev = entry.prev;
+		} else {
+			tails[i] = entry.prev;
+		}
+
+		entry.prev = entry.next = null;
+		entry.ready = false;
+		readyCount--;
+	}
+
+}
@@ -0,0 +1,280 @@
+package com.SkyIsland.QuestManager.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.QuestManagerPlugin;
+import com.SkyIsland.QuestManager.SaveQueue;
+import com.SkyIsland.QuestManager.Configuration.Binary.BinaryCodec;
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Keeps each player in its own save file, and every party together in a single file.<br />
+ * Player files are sharded into subdirectories by the first two characters of their UUID. Files
+ * are written by the {@link SaveQueue}, in yaml or the {@link BinaryCodec binary format} depending
+ * on the plugin configuration. Saves in either format are read, whichever is newer; players read
+ * from the other format are marked to be saved again in the current one.
+ * @author Skyler
+ *
+ */
+public class FilePlayerStore implements PlayerStore {
+
+	private File playerDirectory;
+
+	private File partyFile;
+
+	private boolean binary;
+
+	private SaveQueue saveQueue;
+
+	/**
+	 * Creates a store over the given files. Player files that were saved before sharding are moved
+	 * into their shard.
+	 * @param playerDirectory The directory with a save file for each player
+	 * @param partyFile The file parties are saved in
+	 * @param binary Whether to save in the binary format
+	 * @param saveQueue
+	 */
+	public FilePlayerStore(File playerDirectory, File partyFile, boolean binary, SaveQueue saveQueue) {
+		this.playerDirectory = playerDirectory;
+		this.partyFile = partyFile;
+		this.binary = binary;
+		this.saveQueue = saveQueue;
+
+		if (!playerDirectory.exists()) {
+			playerDirectory.mkdirs();
+		}
+
+		shardFlatFiles();
+	}
+
+	@Override
+	public boolean hasPlayer(UUID id) {
+		return findSave(id) != null;
+	}
+
+	@Override
+	public QuestPlayer loadPlayer(UUID id) throws IOException {
+		File file = findSave(id);
+		if (file == null) {
+			return null;
+		}
+
+		QuestPlayer player = loadPlayerFile(file);
+		if (player != null && BinaryCodec.isBinary(file) != binary) {
+			player.markDirty();
+		}
+
+		return player;
+	}
+
+	@Override
+	public void savePlayer(QuestPlayer player) {
+		File file = getPlayerFile(player.getPlayer().getUniqueId());
+
+		if (binary) {
+			saveQueue.write(file, BinaryCodec.encodePlayer(player));
+		} else {
+			YamlConfiguration config = new YamlConfiguration();
+			config.set("player", player);
+			saveQueue.write(file, config);
+		}
+	}
+
+	@Override
+	public boolean hasParties() {
+		return newest(partyFile, BinaryCodec.otherFormat(partyFile)) != null;
+	}
+
+	@Override
+	public Collection<Party> loadParties() throws IOException {
+		File file = newest(partyFile, BinaryCodec.otherFormat(partyFile));
+		if (file == null) {
+			return new ArrayList<Party>();
+		}
+
+		byte[] pending = saveQueue.getPendingBytes(file);
+		if (BinaryCodec.isBinary(file)) {
+			return BinaryCodec.decodeParties(pending != null ? ByteBuffer.wrap(pending)
+					: BinaryCodec.readFile(file));
+		}
+
+		YamlConfiguration config = new YamlConfiguration();
+		try {
+			if (pending != null) {
+				config.loadFromString(saveQueue.getPending(file));
+			} else {
+				config.load(file);
+			}
+		} catch (InvalidConfigurationException e) {
+			throw new IOException(e);
+		}
+
+		return readParties(config);
+	}
+
+	/**
+	 * Reads the parties out of a yaml party file
+	 * @param config
+	 * @return
+	 */
+	public static List<Party> readParties(YamlConfiguration config) {
+		List<Party> parties = new ArrayList<Party>();
+		ConfigurationSection gSex = config.getConfigurationSection("parties");
+
+		if (gSex != null)
+		for (String key : gSex.getKeys(false)) {
+			Object o = gSex.get(key);
+			if (o instanceof Party) {
+				parties.add((Party) o);
+			}
+		}
+
+		return parties;
+	}
+
+	@Override
+	public void saveParties(Collection<Party> parties) {
+		if (binary) {
+			saveQueue.write(partyFile, BinaryCodec.encodeParties(parties));
+			return;
+		}
+
+		YamlConfiguration config = new YamlConfiguration();
+		ConfigurationSection gSex = config.createSection("parties");
+		for (Party party : parties) {
+			gSex.set(party.getID().toString(), party);
+		}
+
+		saveQueue.write(partyFile, config);
+	}
+
+	@Override
+	public void close() {
+		; //files are closed as they're written
+	}
+
+	/**
+	 * Reads a single player's save file. If a save of the file is still waiting to be written,
+	 * that's read instead.
+	 * @param file
+	 * @return The player, or null if the file doesn't hold one
+	 * @throws IOException
+	 */
+	private QuestPlayer loadPlayerFile(File file) throws IOException {
+		QuestPlayer player;
+
+		if (BinaryCodec.isBinary(file)) {
+			byte[] bytes = saveQueue.getPendingBytes(file);
+			player = BinaryCodec.decodePlayer(bytes != null ? ByteBuffer.wrap(bytes)
+					: BinaryCodec.readFile(file));
+		} else {
+			YamlConfiguration config = new YamlConfiguration();
+			String pending = saveQueue.getPending(file);
+			try {
+				if (pending != null) {
+					config.loadFromString(pending);
+				} else {
+					config.load(file);
+				}
+			} catch (InvalidConfigurationException e) {
+				throw new IOException(e);
+			}
+
+			Object o = config.get("player");
+			player = (o instanceof QuestPlayer) ? (QuestPlayer) o : null;
+		}
+
+		if (player == null) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+					"Player file did not contain a player: " + file.getAbsolutePath());
+		}
+
+		return player;
+	}
+
+	private boolean hasSave(File file) {
+		return file.exists() || saveQueue.getPendingBytes(file) != null;
+	}
+
+	/**
+	 * Picks whichever of the two files was saved most recently
+	 * @param file
+	 * @param other
+	 * @return The newer file, or null if neither has been saved
+	 */
+	private File newest(File file, File other) {
+		boolean has = hasSave(file), hasOther = hasSave(other);
+		if (!has || !hasOther) {
+			return has ? file : (hasOther ? other : null);
+		}
+
+		if (saveQueue.getPendingBytes(file) != null) {
+			return file;
+		}
+		if (saveQueue.getPendingBytes(other) != null) {
+			return other;
+		}
+
+		return other.lastModified() > file.lastModified() ? other : file;
+	}
+
+	/**
+	 * Finds the save file of the player with the given ID, in whichever format is newest
+	 * @param id
+	 * @return The file, or null if the player hasn't been saved
+	 */
+	private File findSave(UUID id) {
+		File file = getPlayerFile(id);
+		return newest(file, BinaryCodec.otherFormat(file));
+	}
+
+	private File getPlayerFile(UUID id) {
+		String name = id.toString();
+		return new File(new File(playerDirectory, name.substring(0, 2)),
+				name + (binary ? BinaryCodec.EXTENSION : BinaryCodec.YAML_EXTENSION));
+	}
+
+	/**
+	 * Moves player files sitting directly in the player directory into their shard
+	 */
+	private void shardFlatFiles() {
+		int count = 0;
+		for (File file : playerDirectory.listFiles()) {
+			if (file.isDirectory() || !file.getName().endsWith(".yml")) {
+				continue;
+			}
+
+			try {
+				UUID.fromString(file.getName().substring(0, file.getName().length() - 4));
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+
+			File dest = new File(new File(playerDirectory, file.getName().substring(0, 2)), file.getName());
+			dest.getParentFile().mkdirs();
+			if (!dest.exists() && file.renameTo(dest)) {
+				count++;
+			} else {
+				QuestManagerPlugin.questManagerPlugin.getLogger().warning(
+						"Unable to move player file into place: " + file.getAbsolutePath());
+			}
+		}
+
+		if (count > 0) {
+			QuestManagerPlugin.questManagerPlugin.getLogger().info(
+					"Moved " + count + " player file(s) into shard directories");
+		}
+	}
+
+}
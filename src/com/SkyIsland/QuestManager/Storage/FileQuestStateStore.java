@@ -0,0 +1,168 @@
+package com.SkyIsland.QuestManager.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.SkyIsland.QuestManager.SaveQueue;
+import com.SkyIsland.QuestManager.Configuration.Binary.BinaryCodec;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+
+/**
+ * Keeps each quest state in its own file in the save directory, named after its key.<br />
+ * Files are written by the {@link SaveQueue}, in yaml or the {@link BinaryCodec binary format}
+ * depending on the plugin configuration. States saved in either format are read.
+ * @author Skyler
+ *
+ */
+public class FileQuestStateStore implements QuestStateStore {
+
+	private File directory;
+
+	private boolean binary;
+
+	private SaveQueue saveQueue;
+
+	/**
+	 * @param directory The directory state files are kept in
+	 * @param binary Whether to save in the binary format
+	 * @param saveQueue
+	 */
+	public FileQuestStateStore(File directory, boolean binary, SaveQueue saveQueue) {
+		this.directory = directory;
+		this.binary = binary;
+		this.saveQueue = saveQueue;
+
+		if (!directory.exists()) {
+			directory.mkdirs();
+		}
+	}
+
+	@Override
+	public Collection<String> getKeys() throws IOException {
+		Set<String> keys = new LinkedHashSet<String>();
+
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Unable to list save directory: " + directory.getAbsolutePath());
+		}
+
+		for (File file : files) {
+			if (!file.isDirectory() && !saveQueue.isPendingDelete(file)) {
+				addKey(keys, file);
+			}
+		}
+
+		//saves that haven't been written yet
+		File dir = directory.getAbsoluteFile();
+		for (Object key : saveQueue.getPendingKeys()) {
+			if (key instanceof File && dir.equals(((File) key).getParentFile())
+					&& !saveQueue.isPendingDelete(key)) {
+				addKey(keys, (File) key);
+			}
+		}
+
+		return keys;
+	}
+
+	private static void addKey(Set<String> keys, File file) {
+		String name = file.getName();
+		if (name.endsWith(BinaryCodec.EXTENSION)) {
+			keys.add(name.substring(0, name.length() - BinaryCodec.EXTENSION.length()));
+		} else if (name.endsWith(BinaryCodec.YAML_EXTENSION)) {
+			keys.add(name.substring(0, name.length() - BinaryCodec.YAML_EXTENSION.length()));
+		}
+	}
+
+	@Override
+	public QuestState loadState(String key) throws IOException, InvalidConfigurationException {
+		File file = findSave(key);
+		if (file == null) {
+			return null;
+		}
+
+		byte[] pending = saveQueue.getPendingBytes(file);
+		if (pending == null) {
+			return BinaryCodec.readQuestState(file);
+		}
+
+		if (BinaryCodec.isBinary(file)) {
+			return BinaryCodec.decodeQuestState(ByteBuffer.wrap(pending));
+		}
+
+		YamlConfiguration config = new YamlConfiguration();
+		config.loadFromString(new String(pending, StandardCharsets.UTF_8));
+		QuestState state = new QuestState();
+		state.read(config);
+		return state;
+	}
+
+	@Override
+	public void saveState(String key, QuestState state) {
+		File file = getFile(key);
+		if (binary) {
+			saveQueue.write(file, BinaryCodec.encodeQuestState(state));
+		} else {
+			saveQueue.write(file, state.toConfig());
+		}
+
+		//don't leave an older save in the other format behind to be restored as well
+		File other = BinaryCodec.otherFormat(file);
+		if (hasSave(other)) {
+			saveQueue.delete(other);
+		}
+	}
+
+	@Override
+	public void removeState(String key) {
+		File file = getFile(key);
+		if (hasSave(file)) {
+			saveQueue.delete(file);
+		}
+
+		File other = BinaryCodec.otherFormat(file);
+		if (hasSave(other)) {
+			saveQueue.delete(other);
+		}
+	}
+
+	@Override
+	public void close() {
+		; //files are closed as they're written
+	}
+
+	private boolean hasSave(File file) {
+		if (saveQueue.getPendingBytes(file) != null) {
+			return true;
+		}
+
+		return file.exists() && !saveQueue.isPendingDelete(file);
+	}
+
+	/**
+	 * Finds the file the state is saved in, preferring the current format
+	 * @param key
+	 * @return The file, or null if there's no state under the key
+	 */
+	private File findSave(String key) {
+		File file = getFile(key);
+		if (hasSave(file)) {
+			return file;
+		}
+
+		file = BinaryCodec.otherFormat(file);
+		return hasSave(file) ? file : null;
+	}
+
+	private File getFile(String key) {
+		return new File(directory, key + (binary ? BinaryCodec.EXTENSION : BinaryCodec.YAML_EXTENSION));
+	}
+
+}
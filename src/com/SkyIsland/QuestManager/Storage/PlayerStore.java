@@ -0,0 +1,63 @@
+package com.SkyIsland.QuestManager.Storage;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Somewhere players and parties are kept between server runs.<br />
+ * Saves are snapshotted on the calling (main) thread and written later, off of it. Reads always see
+ * the most recent save, whether or not it's been written yet.
+ * @author Skyler
+ *
+ */
+public interface PlayerStore {
+
+	/**
+	 * Checks whether the player has ever been saved. Can be called off of the main thread.
+	 * @param id
+	 * @return
+	 */
+	public boolean hasPlayer(UUID id);
+
+	/**
+	 * Reads the player with the given ID. Can be called off of the main thread.
+	 * @param id
+	 * @return The player, or null if they've never been saved
+	 * @throws IOException If the player's save couldn't be read
+	 */
+	public QuestPlayer loadPlayer(UUID id) throws IOException;
+
+	/**
+	 * Snapshots the player and queues it to be saved
+	 * @param player
+	 */
+	public void savePlayer(QuestPlayer player);
+
+	/**
+	 * @return Whether any parties have been saved
+	 */
+	public boolean hasParties();
+
+	/**
+	 * Reads every saved party
+	 * @return
+	 * @throws IOException If the parties couldn't be read
+	 */
+	public Collection<Party> loadParties() throws IOException;
+
+	/**
+	 * Snapshots the parties and queues them to be saved, replacing every party saved before
+	 * @param parties
+	 */
+	public void saveParties(Collection<Party> parties);
+
+	/**
+	 * Releases anything the store holds open. Called once everything queued has been written.
+	 */
+	public void close();
+
+}
@@ -0,0 +1,54 @@
+package com.SkyIsland.QuestManager.Storage;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+
+/**
+ * Somewhere the state of stopped quests is kept, so they can be restored when the server starts.<br />
+ * States are stored under a key made of the quest's name and ID: <code>[name]_[id]</code>.
+ * Like {@link PlayerStore}, saves and removals are queued, and reads see them straight away.<br />
+ * Any of these can be called off of the main thread, as long as nothing is changing a state while
+ * it's being saved.
+ * @author Skyler
+ *
+ */
+public interface QuestStateStore {
+
+	/**
+	 * @return The key of every stored state
+	 * @throws IOException
+	 */
+	public Collection<String> getKeys() throws IOException;
+
+	/**
+	 * Reads the state stored under the key. The state's participant isn't looked up.
+	 * @param key
+	 * @return The state, or null if there isn't one
+	 * @throws IOException If the state couldn't be read
+	 * @throws InvalidConfigurationException If the state is missing something
+	 */
+	public QuestState loadState(String key) throws IOException, InvalidConfigurationException;
+
+	/**
+	 * Snapshots the state and queues it to be stored under the key, replacing anything already there
+	 * @param key
+	 * @param state
+	 */
+	public void saveState(String key, QuestState state);
+
+	/**
+	 * Queues the state stored under the key to be removed
+	 * @param key
+	 */
+	public void removeState(String key);
+
+	/**
+	 * Releases anything the store holds open. Called once everything queued has been written.
+	 */
+	public void close();
+
+}
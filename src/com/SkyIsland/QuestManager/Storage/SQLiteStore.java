@@ -0,0 +1,451 @@
+package com.SkyIsland.QuestManager.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.SkyIsland.QuestManager.SaveQueue;
+import com.SkyIsland.QuestManager.Configuration.Binary.BinaryCodec;
+import com.SkyIsland.QuestManager.Configuration.State.QuestState;
+import com.SkyIsland.QuestManager.Player.Party;
+import com.SkyIsland.QuestManager.Player.QuestPlayer;
+
+/**
+ * Keeps players, parties and quest states in an embedded SQLite database file.<br />
+ * Each player, party and quest state is its own row, holding its {@link BinaryCodec binary}
+ * encoding. Players are looked up by UUID and states by key, both primary keys, and states are
+ * also indexed by quest name. Saving a player is a single row write, rather than a whole file.<br />
+ * Rows are written on the {@link SaveQueue}'s thread, queued and coalesced the same way as files,
+ * so the main thread never waits on the database to write. Reads look at what's queued first.<br />
+ * The SQLite JDBC driver ships with the server, but isn't a dependency of the plugin; it's looked up
+ * by name when the store is opened.
+ * @author Skyler
+ *
+ */
+public class SQLiteStore implements PlayerStore, QuestStateStore {
+
+	private static final String driverClass = "org.sqlite.JDBC";
+
+	private static final String playerTable = "players";
+
+	private static final String partyTable = "parties";
+
+	private static final String stateTable = "quest_states";
+
+	/**
+	 * Identifies a row, for queueing. Only the table and ID tell rows apart; the rest is just
+	 * carried along to be written into other columns.
+	 */
+	private static class Row {
+
+		private final String table;
+
+		private final String id;
+
+		private final String quest;
+
+		private final String participant;
+
+		private Row(String table, String id) {
+			this(table, id, null, null);
+		}
+
+		private Row(String table, String id, String quest, String participant) {
+			this.table = table;
+			this.id = id;
+			this.quest = quest;
+			this.participant = participant;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Row)) {
+				return false;
+			}
+
+			Row other = (Row) o;
+			return table.equals(other.table) && id.equals(other.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * table.hashCode() + id.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return table + "/" + id;
+		}
+
+	}
+
+	/**
+	 * Writes and deletes queued rows. Called on the save thread.
+	 */
+	private class RowSink implements SaveQueue.Sink {
+
+		@Override
+		public void write(Object key, byte[] contents) throws IOException {
+			Row row = (Row) key;
+			synchronized (SQLiteStore.this) {
+				try {
+					PreparedStatement statement;
+					switch (row.table) {
+					case playerTable:
+						statement = savePlayer;
+						statement.setString(1, row.id);
+						statement.setLong(2, System.currentTimeMillis());
+						statement.setBytes(3, contents);
+						break;
+					case partyTable:
+						statement = saveParty;
+						statement.setString(1, row.id);
+						statement.setBytes(2, contents);
+						break;
+					default:
+						statement = saveState;
+						statement.setString(1, row.id);
+						statement.setString(2, row.quest);
+						statement.setString(3, row.participant);
+						statement.setLong(4, System.currentTimeMillis());
+						statement.setBytes(5, contents);
+						break;
+					}
+
+					statement.executeUpdate();
+				} catch (SQLException e) {
+					throw new IOException(e);
+				}
+			}
+		}
+
+		@Override
+		public void delete(Object key) throws IOException {
+			Row row = (Row) key;
+			synchronized (SQLiteStore.this) {
+				try {
+					PreparedStatement statement;
+					switch (row.table) {
+					case playerTable:
+						statement = deletePlayer;
+						break;
+					case partyTable:
+						statement = deleteParty;
+						break;
+					default:
+						statement = deleteState;
+						break;
+					}
+
+					statement.setString(1, row.id);
+					statement.executeUpdate();
+				} catch (SQLException e) {
+					throw new IOException(e);
+				}
+			}
+		}
+
+	}
+
+	private File file;
+
+	private SaveQueue saveQueue;
+
+	private RowSink sink;
+
+	private Connection connection;
+
+	private PreparedStatement loadPlayer, savePlayer, deletePlayer, hasPlayer;
+
+	private PreparedStatement loadParties, saveParty, deleteParty;
+
+	private PreparedStatement loadState, saveState, deleteState, loadKeys;
+
+	/**
+	 * IDs of the parties saved (or queued to be), so parties that are gone can be removed
+	 */
+	private Set<String> partyIDs;
+
+	/**
+	 * Opens the database, creating it and its tables if they don't exist yet
+	 * @param file The database file
+	 * @param saveQueue
+	 * @throws IOException If the driver can't be found or the database can't be opened
+	 */
+	public SQLiteStore(File file, SaveQueue saveQueue) throws IOException {
+		this.file = file;
+		this.saveQueue = saveQueue;
+		this.sink = new RowSink();
+		this.partyIDs = Collections.synchronizedSet(new HashSet<String>());
+
+		try {
+			Class.forName(driverClass);
+		} catch (ClassNotFoundException e) {
+			throw new IOException("SQLite driver " + driverClass + " isn't available", e);
+		}
+
+		try {
+			connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+			createTables();
+			prepareStatements();
+
+			try (Statement statement = connection.createStatement();
+					ResultSet results = statement.executeQuery("SELECT id FROM " + partyTable)) {
+				while (results.next()) {
+					partyIDs.add(results.getString(1));
+				}
+			}
+		} catch (SQLException e) {
+			close();
+			throw new IOException("Unable to open database " + file.getAbsolutePath(), e);
+		}
+	}
+
+	private void createTables() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			//a crash can lose the last few commits, but never corrupts the database
+			statement.executeUpdate("PRAGMA journal_mode=WAL");
+			statement.executeUpdate("PRAGMA synchronous=NORMAL");
+
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + playerTable + " ("
+					+ "uuid TEXT PRIMARY KEY NOT NULL, "
+					+ "saved INTEGER NOT NULL, "
+					+ "data BLOB NOT NULL)");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + partyTable + " ("
+					+ "id TEXT PRIMARY KEY NOT NULL, "
+					+ "data BLOB NOT NULL)");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + stateTable + " ("
+					+ "state_key TEXT PRIMARY KEY NOT NULL, "
+					+ "quest TEXT NOT NULL, "
+					+ "participant TEXT, "
+					+ "saved INTEGER NOT NULL, "
+					+ "data BLOB NOT NULL)");
+			statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + stateTable + "_quest ON "
+					+ stateTable + " (quest)");
+		}
+	}
+
+	private void prepareStatements() throws SQLException {
+		loadPlayer = connection.prepareStatement("SELECT data FROM " + playerTable + " WHERE uuid = ?");
+		hasPlayer = connection.prepareStatement("SELECT 1 FROM " + playerTable + " WHERE uuid = ?");
+		savePlayer = connection.prepareStatement("INSERT OR REPLACE INTO " + playerTable
+				+ " (uuid, saved, data) VALUES (?, ?, ?)");
+		deletePlayer = connection.prepareStatement("DELETE FROM " + playerTable + " WHERE uuid = ?");
+
+		loadParties = connection.prepareStatement("SELECT id, data FROM " + partyTable);
+		saveParty = connection.prepareStatement("INSERT OR REPLACE INTO " + partyTable
+				+ " (id, data) VALUES (?, ?)");
+		deleteParty = connection.prepareStatement("DELETE FROM " + partyTable + " WHERE id = ?");
+
+		loadKeys = connection.prepareStatement("SELECT state_key FROM " + stateTable);
+		loadState = connection.prepareStatement("SELECT data FROM " + stateTable + " WHERE state_key = ?");
+		saveState = connection.prepareStatement("INSERT OR REPLACE INTO " + stateTable
+				+ " (state_key, quest, participant, saved, data) VALUES (?, ?, ?, ?, ?)");
+		deleteState = connection.prepareStatement("DELETE FROM " + stateTable + " WHERE state_key = ?");
+	}
+
+	/**
+	 * Reads a row's data, looking at what's queued for it first
+	 * @param row
+	 * @param statement A query selecting the row's data by ID
+	 * @return The data, or null if there's no such row
+	 * @throws IOException
+	 */
+	private byte[] read(Row row, PreparedStatement statement) throws IOException {
+		if (saveQueue.isPendingDelete(row)) {
+			return null;
+		}
+
+		byte[] pending = saveQueue.getPendingBytes(row);
+		if (pending != null) {
+			return pending;
+		}
+
+		synchronized (this) {
+			try {
+				statement.setString(1, row.id);
+				try (ResultSet results = statement.executeQuery()) {
+					return results.next() ? results.getBytes(1) : null;
+				}
+			} catch (SQLException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	////////////////////////////////////// Players //////////////////////////////////////
+
+	@Override
+	public boolean hasPlayer(UUID id) {
+		Row row = new Row(playerTable, id.toString());
+		if (saveQueue.getPendingBytes(row) != null) {
+			return true;
+		}
+
+		synchronized (this) {
+			try {
+				hasPlayer.setString(1, row.id);
+				try (ResultSet results = hasPlayer.executeQuery()) {
+					return results.next();
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public QuestPlayer loadPlayer(UUID id) throws IOException {
+		byte[] data = read(new Row(playerTable, id.toString()), loadPlayer);
+		return data == null ? null : BinaryCodec.decodePlayer(ByteBuffer.wrap(data));
+	}
+
+	@Override
+	public void savePlayer(QuestPlayer player) {
+		saveQueue.write(new Row(playerTable, player.getIDString()), BinaryCodec.encodePlayer(player), sink);
+	}
+
+	////////////////////////////////////// Parties //////////////////////////////////////
+
+	@Override
+	public boolean hasParties() {
+		return !partyIDs.isEmpty();
+	}
+
+	@Override
+	public Collection<Party> loadParties() throws IOException {
+		Map<String, byte[]> rows = new LinkedHashMap<String, byte[]>();
+
+		synchronized (this) {
+			try (ResultSet results = loadParties.executeQuery()) {
+				while (results.next()) {
+					rows.put(results.getString(1), results.getBytes(2));
+				}
+			} catch (SQLException e) {
+				throw new IOException(e);
+			}
+		}
+
+		for (Object key : saveQueue.getPendingKeys()) {
+			if (key instanceof Row && ((Row) key).table.equals(partyTable)) {
+				byte[] pending = saveQueue.getPendingBytes(key);
+				if (pending == null) {
+					rows.remove(((Row) key).id);
+				} else {
+					rows.put(((Row) key).id, pending);
+				}
+			}
+		}
+
+		List<Party> parties = new ArrayList<Party>();
+		for (byte[] data : rows.values()) {
+			parties.addAll(BinaryCodec.decodeParties(ByteBuffer.wrap(data)));
+		}
+		return parties;
+	}
+
+	@Override
+	public void saveParties(Collection<Party> parties) {
+		Set<String> gone = new HashSet<String>(partyIDs);
+
+		for (Party party : parties) {
+			String id = party.getID().toString();
+			saveQueue.write(new Row(partyTable, id),
+					BinaryCodec.encodeParties(Collections.singletonList(party)), sink);
+			partyIDs.add(id);
+			gone.remove(id);
+		}
+
+		for (String id : gone) {
+			saveQueue.delete(new Row(partyTable, id), sink);
+			partyIDs.remove(id);
+		}
+	}
+
+	//////////////////////////////////// Quest States ////////////////////////////////////
+
+	@Override
+	public Collection<String> getKeys() throws IOException {
+		Set<String> keys = new LinkedHashSet<String>();
+
+		synchronized (this) {
+			try (ResultSet results = loadKeys.executeQuery()) {
+				while (results.next()) {
+					keys.add(results.getString(1));
+				}
+			} catch (SQLException e) {
+				throw new IOException(e);
+			}
+		}
+
+		for (Object key : saveQueue.getPendingKeys()) {
+			if (key instanceof Row && ((Row) key).table.equals(stateTable)) {
+				if (saveQueue.isPendingDelete(key)) {
+					keys.remove(((Row) key).id);
+				} else {
+					keys.add(((Row) key).id);
+				}
+			}
+		}
+
+		return keys;
+	}
+
+	@Override
+	public QuestState loadState(String key) throws IOException {
+		byte[] data = read(new Row(stateTable, key), loadState);
+		return data == null ? null : BinaryCodec.decodeQuestState(ByteBuffer.wrap(data));
+	}
+
+	@Override
+	public void saveState(String key, QuestState state) {
+		saveQueue.write(new Row(stateTable, key, state.getName(), state.getParticipantID()),
+				BinaryCodec.encodeQuestState(state), sink);
+	}
+
+	@Override
+	public void removeState(String key) {
+		saveQueue.delete(new Row(stateTable, key), sink);
+	}
+
+	/**
+	 * Closes the database. Since one store can serve as both the player and quest state store, this
+	 * can be called more than once.
+	 */
+	@Override
+	public synchronized void close() {
+		if (connection == null) {
+			return;
+		}
+
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		connection = null;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+}
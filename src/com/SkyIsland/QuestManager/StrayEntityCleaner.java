@@ -0,0 +1,98 @@
+package com.SkyIsland.QuestManager;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import com.SkyIsland.QuestManager.NPC.NPCRegistry;
+
+/**
+ * Removes stray entities found in quest worlds a few at a time.<br />
+ * Entities are queued up as they're found and removed on following ticks, spending no more than
+ * {@link #budgetNanos} each tick so a chunk full of strays doesn't stall the server. Entities are
+ * checked again right before removal, in case they've become an NPC's entity in the meantime.
+ * @author Skyler
+ *
+ */
+public class StrayEntityCleaner {
+
+	private class CleanupTask extends BukkitRunnable {
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			Entity e;
+
+			while ((e = queue.poll()) != null) {
+				if (e.isValid() && !registry.isNPC(e.getUniqueId())) {
+					e.remove();
+					removedCount++;
+				}
+
+				if (System.nanoTime() - start >= budgetNanos) {
+					break;
+				}
+			}
+
+			if (queue.isEmpty()) {
+				this.cancel();
+				task = null;
+			}
+		}
+
+	}
+
+	/**
+	 * How long to spend removing entities each tick, in nanoseconds
+	 */
+	private static final long budgetNanos = 2000000;
+
+	private NPCRegistry registry;
+
+	private Queue<Entity> queue;
+
+	private CleanupTask task;
+
+	private long removedCount;
+
+	public StrayEntityCleaner(NPCRegistry registry) {
+		this.registry = registry;
+		this.queue = new LinkedList<Entity>();
+		this.task = null;
+		this.removedCount = 0;
+	}
+
+	/**
+	 * Queues the entity for removal on a later tick
+	 * @param e
+	 */
+	public void queue(Entity e) {
+		queue.add(e);
+
+		if (task == null) {
+			task = new CleanupTask();
+			task.runTaskTimer(QuestManagerPlugin.questManagerPlugin, 1, 1);
+		}
+	}
+
+	/**
+	 * Stops cleaning up and forgets about any entities still waiting to be removed
+	 */
+	public void stop() {
+		queue.clear();
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+	}
+
+	public int getQueuedCount() {
+		return queue.size();
+	}
+
+	public long getRemovedCount() {
+		return removedCount;
+	}
+}
@@ -33,6 +33,7 @@ public class ChangeSpellHolderAction implements MenuAction {
 	@Override
 	public void onAction() {
 		player.getStoredSpells().put(holder.getType(), newSpell);
+		player.markDirty();
 		
 		if (player.getPlayer().isOnline()) {
 			new SimpleChatMenu(
@@ -0,0 +1,83 @@
+package com.SkyIsland.QuestManager.util;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+
+/**
+ * Identifies a chunk by its world name and chunk coordinates, without holding on to the
+ * chunk itself.<br />
+ * Safe to use as a map key, and to build from a location whose chunk isn't loaded.
+ * @author Skyler
+ *
+ */
+public final class ChunkKey {
+
+	private final String world;
+
+	private final int x;
+
+	private final int z;
+
+	public ChunkKey(String world, int x, int z) {
+		this.world = world;
+		this.x = x;
+		this.z = z;
+	}
+
+	public static ChunkKey of(Chunk chunk) {
+		return new ChunkKey(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+	}
+
+	/**
+	 * Creates the key for the chunk the location is in. The chunk is not loaded.
+	 * @param location
+	 * @return The key, or null if the location has no world
+	 */
+	public static ChunkKey of(Location location) {
+		if (location == null || location.getWorld() == null) {
+			return null;
+		}
+
+		return new ChunkKey(location.getWorld().getName(),
+				location.getBlockX() >> 4, location.getBlockZ() >> 4);
+	}
+
+	public String getWorld() {
+		return world;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getZ() {
+		return z;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof ChunkKey)) {
+			return false;
+		}
+
+		ChunkKey other = (ChunkKey) o;
+		return x == other.x && z == other.z && world.equals(other.world);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = world.hashCode();
+		hash = 31 * hash + x;
+		hash = 31 * hash + z;
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return world + "[" + x + ", " + z + "]";
+	}
+}